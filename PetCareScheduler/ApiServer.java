@@ -0,0 +1,339 @@
+package PetCareScheduler;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP/JSON front end over the scheduler, on the JDK's built-in server.
+ *
+ *   POST /pets                        register a pet (fields as in a pets import); 201, 409 if the ID is taken
+ *   GET  /pets/{id}                   a pet with its appointments and recurring rules
+ *   GET  /pets?owner=NAME             pets by owner name, or contact=INFO; prefix=true, limit=N (default 50)
+ *   POST /pets/{id}/appointments      book (type, dateTime, notes, durationMinutes); 201, 409 on a conflict
+ *   GET  /reports/weekly              the weekly report (see JsonReportSink)
+ *   GET  /reports/overdue             the overdue vet visit report
+ *
+ * Failures are {"error": message} with status 400, 404, 405, 409 or 413.
+ *
+ * Every exchange runs on its own virtual thread when the JVM has them (Java 21
+ * and later), so a booking waiting on its journal fsync ties up no platform
+ * thread, and thousands of concurrent bookings share group-committed syncs.
+ * Older JVMs use a fixed pool of petcare.http.threads threads (default 256).
+ * Each request is timed into the scheduler's metrics as httpRequest.
+ */
+public class ApiServer implements Closeable {
+    private static final int BACKLOG = 4096; // Pending connections the OS may queue during a burst
+    private static final int THREADS = Integer.getInteger("petcare.http.threads", 256);
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
+    private static final int MAX_SEARCH_LIMIT = 1000;
+
+    // Failure with an HTTP status other than 400 or 409
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // Handles one exchange, sending the response unless it throws
+    private interface Route {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private final ShardedScheduler scheduler;
+    private final Reports reports;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * A server bound to the address, not yet started; reports should be built
+     * over the same scheduler
+     */
+    public ApiServer(ShardedScheduler scheduler, Reports reports, InetSocketAddress address) throws IOException {
+        this.scheduler = scheduler;
+        this.reports = reports;
+        this.server = HttpServer.create(address, BACKLOG);
+        this.executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/pets", exchange -> serve(exchange, this::pets));
+        server.createContext("/reports", exchange -> serve(exchange, this::reports));
+    }
+
+    // A virtual thread per task where available; the code targets Java 8, so it is looked up reflectively
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(THREADS, task -> {
+                Thread thread = new Thread(task, "http-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stop accepting requests, giving those in progress up to a second to finish
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    private void serve(HttpExchange exchange, Route route) {
+        long start = System.nanoTime();
+        try {
+            route.handle(exchange);
+        } catch (HttpError e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (ConflictException e) {
+            sendError(exchange, 409, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            sendError(exchange, 500, "Internal error: " + e.getMessage());
+        } finally {
+            exchange.close();
+            scheduler.getMetrics().record(Metrics.Operation.HTTP_REQUEST, start);
+        }
+    }
+
+    private void pets(HttpExchange exchange) throws IOException {
+        // "/pets", "/pets/{id}" or "/pets/{id}/appointments"; the path is already URL-decoded
+        String[] path = exchange.getRequestURI().getPath().substring("/pets".length()).split("/");
+        String method = exchange.getRequestMethod();
+        if (path.length <= 1) {
+            if (path.length == 1 && !path[0].isEmpty()) {
+                throw new HttpError(404, "Not found");
+            }
+            if (method.equals("POST")) {
+                registerPet(exchange);
+            } else if (method.equals("GET")) {
+                searchPets(exchange);
+            } else {
+                throw methodNotAllowed(exchange, "GET, POST");
+            }
+        } else if (path.length == 2) {
+            if (!method.equals("GET")) {
+                throw methodNotAllowed(exchange, "GET");
+            }
+            showPet(exchange, path[1]);
+        } else if (path.length == 3 && path[2].equals("appointments")) {
+            if (!method.equals("POST")) {
+                throw methodNotAllowed(exchange, "POST");
+            }
+            bookAppointment(exchange, path[1]);
+        } else {
+            throw new HttpError(404, "Not found");
+        }
+    }
+
+    private void registerPet(HttpExchange exchange) throws IOException {
+        Pet pet = RecordParser.toPet(scheduler, fields(exchange, RecordParser.PET_COLUMNS), LocalDateTime.now());
+        scheduler.registerPet(pet);
+        exchange.getResponseHeaders().set("Location", "/pets/" + pet.getPetId());
+        StringBuilder json = new StringBuilder(256).append('{');
+        send(exchange, 201, JsonReportSink.petFields(json, pet).append('}'));
+    }
+
+    private void searchPets(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange);
+        boolean prefix = Boolean.parseBoolean(query.get("prefix"));
+        int limit = DEFAULT_SEARCH_LIMIT;
+        if (query.containsKey("limit")) {
+            try {
+                limit = Integer.parseInt(query.get("limit"));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid limit: " + query.get("limit"));
+            }
+            if (limit <= 0 || limit > MAX_SEARCH_LIMIT) {
+                throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SEARCH_LIMIT);
+            }
+        }
+
+        List<Pet> pets;
+        if (query.containsKey("owner")) {
+            pets = scheduler.findPetsByOwner(query.get("owner"), prefix, limit);
+        } else if (query.containsKey("contact")) {
+            pets = scheduler.findPetsByContact(query.get("contact"), prefix, limit);
+        } else {
+            throw new IllegalArgumentException("Search by owner or contact");
+        }
+
+        StringBuilder json = new StringBuilder(64 + pets.size() * 192).append("{\"pets\":[");
+        for (int i = 0; i < pets.size(); i++) {
+            json.append(i == 0 ? "{" : ",{");
+            JsonReportSink.petFields(json, pets.get(i)).append('}');
+        }
+        send(exchange, 200, json.append("]}"));
+    }
+
+    private void showPet(HttpExchange exchange, String petId) throws IOException {
+        Pet pet = findPet(petId);
+        StringBuilder json = new StringBuilder(1024).append('{');
+        JsonReportSink.petFields(json, pet).append(",\"schedule\":[");
+        boolean[] first = {true};
+        pet.forEachAppointment(appointment -> {
+            json.append(first[0] ? "{" : ",{");
+            JsonReportSink.appointmentFields(json, appointment).append('}');
+            first[0] = false;
+        });
+        json.append("],\"recurrences\":[");
+        List<RecurrenceRule> rules = pet.getRecurrences();
+        for (int i = 0; i < rules.size(); i++) {
+            RecurrenceRule rule = rules.get(i);
+            json.append(i == 0 ? "{" : ",{").append("\"type\":");
+            JsonReportSink.string(json, rule.getType().getName()).append(",\"start\":\"");
+            Appointment.DATE_TIME_FORMAT.formatTo(rule.getStart(), json);
+            json.append("\",\"durationMinutes\":").append(rule.getDurationMinutes()).append(",\"notes\":");
+            JsonReportSink.string(json, rule.getNotes()).append(",\"interval\":").append(rule.getInterval())
+                    .append(",\"unit\":\"").append(rule.getUnit().name().toLowerCase(Locale.ROOT)).append("\",\"until\":");
+            if (rule.getUntil() == null) {
+                json.append("null");
+            } else {
+                json.append('"');
+                Appointment.DATE_TIME_FORMAT.formatTo(rule.getUntil(), json);
+                json.append('"');
+            }
+            json.append(",\"count\":").append(rule.getCount()).append('}');
+        }
+        send(exchange, 200, json.append("]}"));
+    }
+
+    private void bookAppointment(HttpExchange exchange, String petId) throws IOException {
+        Pet pet = findPet(petId);
+        String[] fields = fields(exchange, RecordParser.APPOINTMENT_COLUMNS);
+        fields[0] = pet.getPetId(); // The pet in the path wins over any petId in the body
+        BookingRequest request = RecordParser.toBookingRequest(fields, LocalDateTime.now());
+        scheduler.scheduleAppointment(request.getPetId(), request.getAppointment());
+        StringBuilder json = new StringBuilder(256).append("{\"petId\":");
+        JsonReportSink.string(json, pet.getPetId()).append(',');
+        send(exchange, 201, JsonReportSink.appointmentFields(json, request.getAppointment()).append('}'));
+    }
+
+    private void reports(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        boolean weekly = path.equals("/reports/weekly");
+        if (!weekly && !path.equals("/reports/overdue")) {
+            throw new HttpError(404, "Not found");
+        }
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw methodNotAllowed(exchange, "GET");
+        }
+
+        // Rows are streamed as they are rendered, so the length is not known up front
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (JsonReportSink out = new JsonReportSink(exchange.getResponseBody(), true)) {
+            if (weekly) {
+                reports.weeklyReport(out, LocalDateTime.now());
+            } else {
+                reports.overdueVetReport(out, LocalDateTime.now());
+            }
+        }
+    }
+
+    private Pet findPet(String petId) {
+        Pet pet = scheduler.findPet(petId);
+        if (pet == null) {
+            throw new HttpError(404, "Pet with ID " + petId + " not found");
+        }
+        return pet;
+    }
+
+    private static HttpError methodNotAllowed(HttpExchange exchange, String allowed) {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        return new HttpError(405, "Method not allowed");
+    }
+
+    // Fields of the JSON object in the request body, in column order
+    private static String[] fields(HttpExchange exchange, String[] columns) throws IOException {
+        Map<String, String> object = new JsonLine(body(exchange)).parseObject();
+        String[] fields = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            fields[i] = object.get(columns[i]);
+        }
+        return fields;
+    }
+
+    private static String body(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(512);
+        byte[] chunk = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                if (body.size() + read > MAX_BODY_BYTES) {
+                    throw new HttpError(413, "Request body is larger than " + MAX_BODY_BYTES + " bytes");
+                }
+                body.write(chunk, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8).trim();
+    }
+
+    // Query parameters; the last value of a repeated parameter wins
+    private static Map<String, String> query(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return parameters;
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence json) throws IOException {
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Best effort: once a streamed response has started its status can no longer change
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        StringBuilder json = new StringBuilder(64 + (message == null ? 0 : message.length())).append("{\"error\":");
+        try {
+            send(exchange, status, JsonReportSink.string(json, message).append('}'));
+        } catch (IOException e) {
+            // The client has gone away
+        }
+    }
+}
@@ -3,28 +3,50 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 /**
- * Represents an appointment for a pet
+ * Represents an appointment for a pet.
+ * A pet's sorted list and the time, conflict and reminder indexes are keyed by
+ * the type, date-time and duration, so those cannot change while a pet holds the
+ * appointment: remove it from the pet, change it, and add it again.
  */
 public class Appointment {
-    private String appointmentType;
+    public static final int DEFAULT_DURATION_MINUTES = 30;
+    static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private AppointmentType type;
     private LocalDateTime dateTime;
     private String notes;
+    private int durationMinutes;
+    private boolean booked; // Set while a pet holds the appointment
 
     // Constructor
     public Appointment(String appointmentType, LocalDateTime dateTime, String notes) {
-        this.appointmentType = appointmentType;
+        this(appointmentType, dateTime, notes, DEFAULT_DURATION_MINUTES);
+    }
+
+    public Appointment(String appointmentType, LocalDateTime dateTime, String notes, int durationMinutes) {
+        this(AppointmentType.of(appointmentType), dateTime, notes, durationMinutes);
+    }
+
+    public Appointment(AppointmentType type, LocalDateTime dateTime, String notes, int durationMinutes) {
+        this.type = type;
         this.dateTime = dateTime;
         this.notes = notes;
+        setDurationMinutes(durationMinutes);
     }
 
-    // Default constructor
+    // Default constructor; the type stays null until set
     public Appointment() {
         this.notes = "";
+        this.durationMinutes = DEFAULT_DURATION_MINUTES;
     }
 
     // Getters
     public String getAppointmentType() {
-        return appointmentType;
+        return type != null ? type.getName() : null;
+    }
+
+    public AppointmentType getType() {
+        return type;
     }
 
     public LocalDateTime getDateTime() {
@@ -35,12 +57,28 @@ public class Appointment {
         return notes;
     }
 
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    // End of the booked slot (exclusive)
+    public LocalDateTime getEndDateTime() {
+        return dateTime.plusMinutes(durationMinutes);
+    }
+
+    // True if the two half-open slots [start, end) intersect
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        return dateTime.isBefore(end) && start.isBefore(getEndDateTime());
+    }
+
     // Setters
     public void setAppointmentType(String appointmentType) {
-        this.appointmentType = appointmentType;
+        checkNotBooked();
+        this.type = appointmentType != null ? AppointmentType.of(appointmentType) : null;
     }
 
     public void setDateTime(LocalDateTime dateTime) {
+        checkNotBooked();
         this.dateTime = dateTime;
     }
 
@@ -48,14 +86,41 @@ public class Appointment {
         this.notes = notes;
     }
 
+    public void setDurationMinutes(int durationMinutes) {
+        checkNotBooked();
+        if (durationMinutes > 0) {
+            this.durationMinutes = durationMinutes;
+        } else {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+    }
+
+    // Called by the pet when it takes or lets go of the appointment
+    void setBooked(boolean booked) {
+        this.booked = booked;
+    }
+
+    private void checkNotBooked() {
+        if (booked) {
+            throw new IllegalStateException(
+                    "Remove the appointment from its pet before changing its type, time or duration");
+        }
+    }
+
     // Override toString method
     @Override
     public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        return "Appointment{" +
-                "Type: '" + appointmentType + "'" +
-                ", Date & Time: " + dateTime.format(formatter) +
-                ", Notes: '" + (notes.isEmpty() ? "None" : notes) + "'" +
-                '}';
+        return appendTo(new StringBuilder(96)).toString();
+    }
+
+    // Append the toString form, so report writers can reuse one buffer
+    StringBuilder appendTo(StringBuilder out) {
+        out.append("Appointment{")
+                .append("Type: '").append(getAppointmentType()).append("'")
+                .append(", Date & Time: ");
+        DATE_TIME_FORMAT.formatTo(dateTime, out);
+        return out.append(", Duration: ").append(durationMinutes).append(" min")
+                .append(", Notes: '").append(notes.isEmpty() ? "None" : notes).append("'")
+                .append('}');
     }
 }
\ No newline at end of file
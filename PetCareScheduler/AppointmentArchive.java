@@ -0,0 +1,349 @@
+package PetCareScheduler;
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Cold storage for appointments older than a horizon, so the heap and the
+ * snapshot only hold the active window. Archived appointments are kept in
+ * gzip files partitioned by month, as lines in the appointments file format;
+ * each archiving run writes one new file per month it touches
+ * (appointments-2024-03.7.txt.gz for the seventh), which only appears under
+ * its name once complete, and files are never rewritten. They are only read
+ * when past appointments are listed. Files of earlier versions, one per month
+ * (appointments-2024-03.txt.gz), are still read.
+ *
+ * The latest archived vet visit of each pet is appended to vet_visits.txt and
+ * loaded with the pets, so the overdue-vet report never reads the archive.
+ */
+public class AppointmentArchive {
+    private static final String PREFIX = "appointments-";
+    private static final String SUFFIX = ".txt.gz";
+    private static final String VET_VISITS_FILE = "vet_visits.txt";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final Duration horizon;
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+
+    /**
+     * Archive appointments more than horizon before now into the directory
+     */
+    public AppointmentArchive(Path directory, Duration horizon) {
+        if (horizon.isNegative() || horizon.isZero()) {
+            throw new IllegalArgumentException("The archive horizon must be positive");
+        }
+        this.directory = directory;
+        this.horizon = horizon;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public Duration getHorizon() {
+        return horizon;
+    }
+
+    // Compressed bytes of archive files read
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    // Compressed bytes of archive files written
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * Append appointments, each of the pet at the same index, to their months'
+     * files and record the pets' latest vet visits among them; everything is
+     * synced before this returns
+     */
+    public void append(List<Pet> pets, List<Appointment> appointments) throws IOException {
+        Files.createDirectories(directory);
+        Map<YearMonth, StringBuilder> byMonth = new TreeMap<>();
+        Map<Pet, LocalDateTime> vetVisits = new IdentityHashMap<>();
+        for (int i = 0; i < appointments.size(); i++) {
+            Pet pet = pets.get(i);
+            Appointment appointment = appointments.get(i);
+            byMonth.computeIfAbsent(YearMonth.from(appointment.getDateTime()), month -> new StringBuilder())
+                    .append(DataStore.appointmentRecord(pet, appointment)).append('\n');
+            if (Pet.isVetVisit(appointment)) {
+                vetVisits.merge(pet, appointment.getDateTime(), (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+
+        Map<YearMonth, Integer> lastRuns = lastRuns();
+        for (Map.Entry<YearMonth, StringBuilder> month : byMonth.entrySet()) {
+            Path file = directory.resolve(PREFIX + month.getKey() + "."
+                    + (lastRuns.getOrDefault(month.getKey(), 0) + 1) + SUFFIX);
+            // Written aside and moved into place, so a crash never leaves a partial file under the name
+            Path tmp = directory.resolve(file.getFileName() + TMP_SUFFIX);
+            try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(tmp), 1 << 16),
+                    StandardCharsets.UTF_8)) {
+                writer.append(month.getValue());
+            }
+            force(tmp);
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            bytesWritten.add(Files.size(file));
+        }
+
+        if (!vetVisits.isEmpty()) {
+            Path file = directory.resolve(VET_VISITS_FILE);
+            dropTornLine(file);
+            try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8)) {
+                for (Map.Entry<Pet, LocalDateTime> visit : vetVisits.entrySet()) {
+                    writer.write(visit.getKey().getPetId() + "|" + visit.getValue() + "\n");
+                }
+            }
+            force(file);
+        }
+        forceDirectory(directory);
+    }
+
+    // The number of the latest run in each month's files, dropping files a crash left half written
+    private Map<YearMonth, Integer> lastRuns() throws IOException {
+        Map<YearMonth, Integer> lastRuns = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*")) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TMP_SUFFIX)) {
+                    Files.delete(file);
+                    continue;
+                }
+                YearMonth month = month(name);
+                if (month != null) {
+                    lastRuns.merge(month, run(name), Math::max);
+                }
+            }
+        }
+        return lastRuns;
+    }
+
+    // Cut off a last line without its line break, so the next line is not appended to it
+    private static void dropTornLine(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            ByteBuffer last = ByteBuffer.allocate(1);
+            while (end > 0) {
+                last.clear();
+                channel.read(last, end - 1);
+                if (last.get(0) == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < channel.size()) {
+                channel.truncate(end);
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Give each registered pet its latest archived vet visit
+     */
+    public void loadVetVisits(PetRegistry registry) throws IOException {
+        Path file = directory.resolve(VET_VISITS_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        Map<String, LocalDateTime> latest = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.lastIndexOf('|');
+                if (separator < 0) {
+                    continue;
+                }
+                try {
+                    LocalDateTime visit = LocalDateTime.parse(line.substring(separator + 1));
+                    latest.merge(line.substring(0, separator), visit, (a, b) -> a.isAfter(b) ? a : b);
+                } catch (DateTimeException e) {
+                    // A line cut short by a crash; its appointments were still in the snapshot
+                }
+            }
+        }
+        bytesRead.add(Files.size(file));
+        for (Map.Entry<String, LocalDateTime> visit : latest.entrySet()) {
+            Pet pet = registry.findById(visit.getKey());
+            if (pet != null) {
+                pet.setArchivedVetVisit(visit.getValue());
+            }
+        }
+    }
+
+    /**
+     * Archived appointments of registered pets before the given time, per pet in
+     * date-time order; repeated copies of a record (archived twice after a crash)
+     * are dropped. Only the partitions up to the time's month are read.
+     */
+    public Map<Pet, List<Appointment>> read(PetRegistry registry, LocalDateTime before) throws IOException {
+        Map<Pet, List<Appointment>> byPet = new IdentityHashMap<>();
+        if (!Files.isDirectory(directory)) {
+            return byPet;
+        }
+        YearMonth lastMonth = YearMonth.from(before);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                YearMonth month = month(file.getFileName().toString());
+                if (month != null && !month.isAfter(lastMonth)) {
+                    files.add(file);
+                }
+            }
+        }
+
+        for (Path file : files) {
+            readFile(file, registry, before, byPet);
+            bytesRead.add(Files.size(file));
+        }
+        for (List<Appointment> appointments : byPet.values()) {
+            appointments.sort(Comparator.comparing(Appointment::getDateTime));
+            dropDuplicates(appointments);
+        }
+        return byPet;
+    }
+
+    /**
+     * Merge a pet's archived and in-memory appointments, both in date-time order,
+     * dropping archived records still held in memory (an archiving run interrupted
+     * before the snapshot was rewritten)
+     */
+    public static List<Appointment> merge(List<Appointment> archived, List<Appointment> current) {
+        List<Appointment> merged = new ArrayList<>(archived.size() + current.size());
+        merged.addAll(archived);
+        merged.addAll(current);
+        merged.sort(Comparator.comparing(Appointment::getDateTime)); // Stable: archived first at equal times
+        dropDuplicates(merged);
+        return merged;
+    }
+
+    private void readFile(Path file, PetRegistry registry, LocalDateTime before,
+                          Map<Pet, List<Appointment>> byPet) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file), 1 << 16), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\\|", -1);
+                if (fields.length != 5) {
+                    continue;
+                }
+                Pet pet = registry.findById(fields[0]);
+                if (pet == null) {
+                    continue;
+                }
+                try {
+                    Appointment appointment = new Appointment(fields[1], LocalDateTime.parse(fields[2]), fields[3],
+                            Integer.parseInt(fields[4]));
+                    if (appointment.getDateTime().isBefore(before)) {
+                        byPet.computeIfAbsent(pet, key -> new ArrayList<>()).add(appointment);
+                    }
+                } catch (DateTimeException | IllegalArgumentException e) {
+                    // Malformed lines are skipped, as when loading
+                }
+            }
+        } catch (EOFException | ZipException e) {
+            // A member cut short by a crash in a file of an earlier version, which appended
+            // each run to the month's file; its appointments were still in the snapshot
+        }
+    }
+
+    // The month of an archive file (appointments-2024-03[.run].txt.gz), or null if it is not one
+    private static YearMonth month(String name) {
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX) || name.length() < PREFIX.length() + 7) {
+            return null;
+        }
+        try {
+            YearMonth month = YearMonth.parse(name.substring(PREFIX.length(), PREFIX.length() + 7));
+            return run(name) >= 0 ? month : null;
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    // The run number of an archive file; 0 for a file of an earlier version, -1 if malformed
+    private static int run(String name) {
+        String run = name.substring(PREFIX.length() + 7, name.length() - SUFFIX.length());
+        if (run.isEmpty()) {
+            return 0;
+        }
+        try {
+            return run.charAt(0) == '.' && Character.isDigit(run.charAt(1)) ? Integer.parseInt(run.substring(1)) : -1;
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    // Remove adjacent copies of the same record from a list in date-time order
+    private static void dropDuplicates(List<Appointment> appointments) {
+        int kept = 0;
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment appointment = appointments.get(i);
+            boolean duplicate = false;
+            for (int j = kept - 1; j >= 0 && appointments.get(j).getDateTime().equals(appointment.getDateTime()); j--) {
+                if (sameRecord(appointments.get(j), appointment)) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                appointments.set(kept++, appointment);
+            }
+        }
+        appointments.subList(kept, appointments.size()).clear();
+    }
+
+    private static boolean sameRecord(Appointment a, Appointment b) {
+        return a.getDateTime().equals(b.getDateTime()) && a.getAppointmentType().equals(b.getAppointmentType())
+                && Objects.equals(a.getNotes(), b.getNotes()) && a.getDurationMinutes() == b.getDurationMinutes();
+    }
+
+    private static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    // Make renames in the directory durable, where the platform allows it
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on some platforms (Windows); renames are durable there
+        }
+    }
+}
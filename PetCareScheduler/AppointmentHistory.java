@@ -0,0 +1,365 @@
+package PetCareScheduler;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appointment histories left in the appointments file until they are needed.
+ * When loading lazily, each pet's leading run of appointment lines that had
+ * already ended is not parsed; the pet only keeps the run's place in the file
+ * (a Segment) with its count, time span and latest vet visit. The run is read
+ * and parsed the first time the pet's full history is asked for, and kept in
+ * an LRU cache bounded by the number of appointments held.
+ *
+ * Histories stay out of the time, conflict and reminder indexes: they ended
+ * before the load, so no booking can clash with them. Compaction copies the
+ * runs into the new file unparsed and re-points the segments.
+ *
+ * Archiving the start of a history narrows its segment to the appointments from
+ * the cutoff on: the archived lines are skipped when it is read, and left out
+ * when compaction copies it.
+ *
+ * In columnar mode the runs are parsed while loading, but only into primitive
+ * columns held in memory (see ColumnarAppointmentStore) rather than Appointment
+ * objects; a segment then points at rows instead of bytes of the file, and its
+ * Appointment objects are built when the history is asked for. Compaction
+ * writes the rows out as lines, and drops rows no segment needs any more.
+ */
+public class AppointmentHistory implements Closeable {
+    public static final int DEFAULT_CACHED_APPOINTMENTS = 100_000;
+
+    /**
+     * A pet's unloaded run of appointment lines
+     */
+    public static final class Segment {
+        private final AppointmentHistory owner;
+        // Guarded by owner, like length and from; they change when the file is compacted.
+        // In columnar mode they are the first row and the number of rows
+        private long offset;
+        private int length;
+        private LocalDateTime from; // Lines starting before this were archived; null if none were
+        private final int count;
+        private final LocalDateTime first;
+        private final LocalDateTime last;
+        private final LocalDateTime lastVetVisit;
+
+        private Segment(AppointmentHistory owner, long offset, int length, LocalDateTime from, int count,
+                        LocalDateTime first, LocalDateTime last, LocalDateTime lastVetVisit) {
+            this.owner = owner;
+            this.offset = offset;
+            this.length = length;
+            this.from = from;
+            this.count = count;
+            this.first = first;
+            this.last = last;
+            this.lastVetVisit = lastVetVisit;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        // Earliest and latest start in the run
+        public LocalDateTime getFirst() {
+            return first;
+        }
+
+        public LocalDateTime getLast() {
+            return last;
+        }
+
+        // Latest vet appointment in the run, or null
+        public LocalDateTime getLastVetVisit() {
+            return lastVetVisit;
+        }
+
+        // Whether any appointment of the run may start in the range (a null bound is open)
+        boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            return (from == null || !from.isAfter(last)) && (to == null || !to.isBefore(first));
+        }
+
+        /**
+         * The run's appointments in date-time order, read from the file unless cached
+         */
+        List<Appointment> load() throws IOException {
+            return owner.load(this);
+        }
+
+        /**
+         * Forget the run once its appointments have been moved into the pet's list
+         */
+        void release() {
+            owner.release(this);
+        }
+
+        /**
+         * The segment narrowed to its appointments from the cutoff on, which are
+         * given in date-time order, or null if there are none; this one is released
+         */
+        Segment from(LocalDateTime cutoff, List<Appointment> remaining) {
+            return owner.narrow(this, cutoff, remaining);
+        }
+
+        /**
+         * Copy the run's lines to a new snapshot, as they are except that archived
+         * ones are left out; returns the bytes written
+         */
+        int copyTo(OutputStream out) throws IOException {
+            return owner.copy(this, out);
+        }
+    }
+
+    /**
+     * Where compaction wrote a segment's lines in the new file
+     */
+    static final class Placement {
+        final long offset;
+        final int length;
+
+        Placement(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    // Replaces the file on disk while reads are held off
+    interface FileSwap {
+        void run() throws IOException;
+    }
+
+    private final Path file;
+    private final int maxCachedAppointments;
+    private ColumnarAppointmentStore columns; // null leaves the runs in the file
+    private final Map<Segment, List<Appointment>> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private int cachedAppointments;
+    private FileChannel channel;
+    private long loads;
+    private long hits;
+    private long bytesRead;
+
+    /**
+     * Histories in the appointments file, keeping up to maxCachedAppointments loaded
+     */
+    public AppointmentHistory(Path file, int maxCachedAppointments) {
+        this(file, maxCachedAppointments, false);
+    }
+
+    /**
+     * Histories in the appointments file, or held in columns if columnar, keeping
+     * up to maxCachedAppointments loaded as Appointment objects
+     */
+    public AppointmentHistory(Path file, int maxCachedAppointments, boolean columnar) {
+        if (maxCachedAppointments <= 0) {
+            throw new IllegalArgumentException("The history cache must hold at least one appointment");
+        }
+        this.file = file;
+        this.maxCachedAppointments = maxCachedAppointments;
+        this.columns = columnar ? new ColumnarAppointmentStore() : null;
+    }
+
+    // The columns the loader appends runs to, or null if runs stay in the file
+    synchronized ColumnarAppointmentStore getColumns() {
+        return columns;
+    }
+
+    // Called by the loader for each run it skips, or appended as rows [offset, offset + length)
+    synchronized Segment segment(long offset, int length, int count, LocalDateTime first, LocalDateTime last,
+                                 LocalDateTime lastVetVisit) {
+        if (columns != null) {
+            columns.sortByStart((int) offset, length);
+        }
+        return new Segment(this, offset, length, null, count, first, last, lastVetVisit);
+    }
+
+    /**
+     * Open the file the segments point into; called once it has been loaded.
+     * In columnar mode the file is not read again, and the columns are trimmed instead
+     */
+    public synchronized void open() throws IOException {
+        if (columns != null) {
+            columns.trimToSize();
+        } else if (channel == null && Files.exists(file)) {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+    }
+
+    private synchronized List<Appointment> load(Segment segment) throws IOException {
+        List<Appointment> appointments = cache.get(segment);
+        if (appointments != null) {
+            hits++;
+            return appointments;
+        }
+        loads++;
+        List<Appointment> parsed;
+        if (columns != null) {
+            parsed = columns.appointments((int) segment.offset, segment.length, segment.from);
+        } else {
+            parsed = BulkLoader.parseAppointmentRun(read(segment));
+            if (segment.from != null) {
+                parsed = parsed.subList(Pet.countBefore(parsed, segment.from, false), parsed.size());
+            }
+        }
+        for (Appointment appointment : parsed) {
+            appointment.setBooked(true); // Held by the pet, like its loaded ones
+        }
+        appointments = Collections.unmodifiableList(parsed);
+        cache(segment, appointments);
+        return appointments;
+    }
+
+    private void cache(Segment segment, List<Appointment> appointments) {
+        cache.put(segment, appointments);
+        cachedAppointments += appointments.size();
+        // Keep the entry just added even if it alone is over the bound
+        for (Iterator<List<Appointment>> eldest = cache.values().iterator();
+             cachedAppointments > maxCachedAppointments && cache.size() > 1; ) {
+            cachedAppointments -= eldest.next().size();
+            eldest.remove();
+        }
+    }
+
+    private synchronized int copy(Segment segment, OutputStream out) throws IOException {
+        if (columns != null) {
+            return columns.copyTo((int) segment.offset, segment.length, segment.from, out);
+        }
+        byte[] bytes = read(segment);
+        if (segment.from == null) {
+            out.write(bytes);
+            return bytes.length;
+        }
+        return BulkLoader.copyAppointmentRunFrom(bytes, segment.from, out);
+    }
+
+    private synchronized Segment narrow(Segment segment, LocalDateTime cutoff, List<Appointment> remaining) {
+        release(segment);
+        if (remaining.isEmpty()) {
+            return null;
+        }
+        LocalDateTime lastVetVisit = null;
+        for (Appointment appointment : remaining) {
+            if (Pet.isVetVisit(appointment)) {
+                lastVetVisit = appointment.getDateTime();
+            }
+        }
+        LocalDateTime from = segment.from == null || cutoff.isAfter(segment.from) ? cutoff : segment.from;
+        Segment narrowed = new Segment(this, segment.offset, segment.length, from, remaining.size(),
+                remaining.get(0).getDateTime(), remaining.get(remaining.size() - 1).getDateTime(), lastVetVisit);
+        // Already parsed, so kept loaded
+        cache(narrowed, Collections.unmodifiableList(new ArrayList<>(remaining)));
+        return narrowed;
+    }
+
+    private synchronized void release(Segment segment) {
+        List<Appointment> appointments = cache.remove(segment);
+        if (appointments != null) {
+            cachedAppointments -= appointments.size();
+        }
+    }
+
+    /**
+     * Close the file, let the swap replace it, then reopen it with the segments
+     * moved to their new places; if the swap fails they keep their old ones.
+     * In columnar mode the rows of the segments are copied into new columns
+     * instead, leaving out archived ones and those of released segments
+     */
+    synchronized void swap(FileSwap swap, Map<Segment, Placement> placements) throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        boolean swapped = false;
+        try {
+            swap.run();
+            swapped = true;
+        } finally {
+            if (swapped && columns != null) {
+                retainColumns(placements.keySet());
+            } else if (swapped) {
+                for (Map.Entry<Segment, Placement> moved : placements.entrySet()) {
+                    Segment segment = moved.getKey();
+                    segment.offset = moved.getValue().offset;
+                    segment.length = moved.getValue().length;
+                    segment.from = null; // Archived lines were left out of the copy
+                }
+            }
+            open();
+        }
+    }
+
+    private void retainColumns(Collection<Segment> segments) {
+        List<int[]> ranges = new ArrayList<>(segments.size());
+        List<LocalDateTime> from = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            ranges.add(new int[] { (int) segment.offset, segment.length });
+            from.add(segment.from);
+        }
+        columns = columns.retain(ranges, from);
+        int i = 0;
+        for (Segment segment : segments) {
+            segment.offset = ranges.get(i)[0];
+            segment.length = ranges.get(i)[1];
+            segment.from = null;
+            i++;
+        }
+    }
+
+    private byte[] read(Segment segment) throws IOException {
+        if (channel == null) {
+            throw new IOException("Appointment history file is not open: " + file);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(segment.length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, segment.offset + buffer.position()) < 0) {
+                throw new IOException("Appointment history file is shorter than expected: " + file);
+            }
+        }
+        bytesRead += segment.length;
+        return buffer.array();
+    }
+
+    // Appointments held in the cache
+    public synchronized int getCachedAppointments() {
+        return cachedAppointments;
+    }
+
+    // Histories read from the file, and those served from the cache
+    public synchronized long getLoadCount() {
+        return loads;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getBytesRead() {
+        return bytesRead;
+    }
+
+    // Heap held by the columns, or 0 if the runs are in the file
+    public synchronized long getColumnarBytes() {
+        return columns != null ? columns.estimatedBytes() : 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        cache.clear();
+        cachedAppointments = 0;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
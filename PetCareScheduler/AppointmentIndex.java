@@ -0,0 +1,104 @@
+package PetCareScheduler;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global index of appointments across all pets, ordered by date-time.
+ * Backed by a skip list, so inserts, removals and range scans are lock-free;
+ * range results are weakly consistent with concurrent updates.
+ */
+public class AppointmentIndex {
+    /**
+     * An appointment together with the pet it belongs to
+     */
+    public static final class Entry {
+        private final Pet pet;
+        private final Appointment appointment;
+
+        Entry(Pet pet, Appointment appointment) {
+            this.pet = pet;
+            this.appointment = appointment;
+        }
+
+        public Pet getPet() {
+            return pet;
+        }
+
+        public Appointment getAppointment() {
+            return appointment;
+        }
+    }
+
+    // Appointments sharing a date-time are ordered by insertion sequence
+    private static final class Key implements Comparable<Key> {
+        final LocalDateTime dateTime;
+        final long sequence;
+
+        Key(LocalDateTime dateTime, long sequence) {
+            this.dateTime = dateTime;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byTime = dateTime.compareTo(other.dateTime);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final ConcurrentNavigableMap<Key, Entry> byDateTime = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public void add(Pet pet, Appointment appointment) {
+        byDateTime.put(new Key(appointment.getDateTime(), sequence.incrementAndGet()), new Entry(pet, appointment));
+        size.incrementAndGet();
+    }
+
+    public boolean remove(Pet pet, Appointment appointment) {
+        LocalDateTime dateTime = appointment.getDateTime();
+        NavigableMap<Key, Entry> sameTime = byDateTime.subMap(
+                new Key(dateTime, Long.MIN_VALUE), true, new Key(dateTime, Long.MAX_VALUE), true);
+        for (Map.Entry<Key, Entry> slot : sameTime.entrySet()) {
+            Entry entry = slot.getValue();
+            if (entry.pet == pet && entry.appointment == appointment
+                    && byDateTime.remove(slot.getKey(), entry)) {
+                size.decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appointments within a date-time range, in time order; a null bound is open
+     */
+    public List<Entry> range(LocalDateTime from, boolean fromInclusive,
+                             LocalDateTime to, boolean toInclusive, boolean descending) {
+        NavigableMap<Key, Entry> window = byDateTime;
+        if (from != null && to != null && from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        if (from != null) {
+            window = window.tailMap(new Key(from, fromInclusive ? Long.MIN_VALUE : Long.MAX_VALUE), true);
+        }
+        if (to != null) {
+            window = window.headMap(new Key(to, toInclusive ? Long.MAX_VALUE : Long.MIN_VALUE), true);
+        }
+        if (descending) {
+            window = window.descendingMap();
+        }
+        return new ArrayList<>(window.values());
+    }
+
+    public int size() {
+        return size.get();
+    }
+}
@@ -0,0 +1,148 @@
+package PetCareScheduler;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Appointment type. Each distinct type name (ignoring case and surrounding
+ * spaces) maps to one shared canonical instance with a small integer code, so
+ * appointments share type objects. Types are equal when their names match
+ * ignoring case; each keeps the spelling it was given, for display.
+ * Codes are assigned per process and are not stable across runs.
+ *
+ * Type names are free text from the API and batch import, so the tables are
+ * bounded: past MAX_INTERNED distinct types, new names get an unshared
+ * instance with code -1, and past MAX_SPELLINGS spellings are not cached.
+ */
+public final class AppointmentType {
+    static final int MAX_INTERNED = 1024;
+    static final int MAX_SPELLINGS = 4096;
+
+    private static final ConcurrentMap<String, AppointmentType> BY_KEY = new ConcurrentHashMap<>();
+    // Exact spellings already seen, so repeated names skip trimming and lower-casing
+    private static final ConcurrentMap<String, AppointmentType> BY_SPELLING = new ConcurrentHashMap<>();
+    private static volatile AppointmentType[] byCode = new AppointmentType[16];
+    private static int nextCode;
+
+    public static final AppointmentType VET_VISIT = of("Vet Visit");
+    public static final AppointmentType VACCINATION = of("Vaccination");
+    public static final AppointmentType GROOMING = of("Grooming");
+
+    private final int code;
+    private final String key;
+    private final String name;
+    private final boolean vet;
+
+    private AppointmentType(int code, String key, String name) {
+        this.code = code;
+        this.key = key;
+        this.name = name;
+        this.vet = key.contains("vet");
+    }
+
+    /**
+     * Type for a name, keeping its spelling; unknown names are registered on
+     * first use while the table has room
+     */
+    public static AppointmentType of(String name) {
+        AppointmentType type = BY_SPELLING.get(name);
+        if (type == null) {
+            String spelling = name.trim();
+            String key = spelling.toLowerCase(Locale.ROOT);
+            AppointmentType canonical = BY_KEY.get(key);
+            if (canonical == null) {
+                canonical = register(key, spelling);
+            }
+            type = canonical.name.equals(spelling) ? canonical : new AppointmentType(canonical.code, key, spelling);
+            if (BY_SPELLING.size() < MAX_SPELLINGS) {
+                AppointmentType raced = BY_SPELLING.putIfAbsent(name, type);
+                if (raced != null) {
+                    type = raced;
+                }
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Canonical type for a code previously handed out by this process
+     */
+    public static AppointmentType byCode(int code) {
+        AppointmentType[] table = byCode;
+        if (code < 0 || code >= table.length || table[code] == null) {
+            throw new IllegalArgumentException("Unknown appointment type code: " + code);
+        }
+        return table[code];
+    }
+
+    private static synchronized AppointmentType register(String key, String name) {
+        AppointmentType existing = BY_KEY.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (nextCode >= MAX_INTERNED) {
+            return new AppointmentType(-1, key, name);
+        }
+        AppointmentType type = new AppointmentType(nextCode++, key, name);
+        AppointmentType[] table = byCode;
+        if (type.code >= table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[type.code] = type;
+        byCode = table;
+        BY_KEY.put(key, type);
+        return type;
+    }
+
+    // Sizes of the intern tables
+    static int internedTypes() {
+        return BY_KEY.size();
+    }
+
+    static int cachedSpellings() {
+        return BY_SPELLING.size();
+    }
+
+    // Code of the canonical type, or -1 if the type was not interned
+    public int getCode() {
+        return code;
+    }
+
+    // The name ignoring case and surrounding spaces, shared by equal types
+    String getKey() {
+        return key;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Vet-related types (name contains "vet"), resolved once at creation
+    public boolean isVet() {
+        return vet;
+    }
+
+    // Interned types compare by code; only types past the cap fall back to the name
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof AppointmentType)) {
+            return false;
+        }
+        AppointmentType type = (AppointmentType) other;
+        return code >= 0 && type.code >= 0 ? code == type.code : key.equals(type.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return code >= 0 ? code : key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
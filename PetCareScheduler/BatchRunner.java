@@ -0,0 +1,384 @@
+package PetCareScheduler;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Headless mode for scheduled jobs: bulk-import pets and appointments from
+ * CSV or JSON Lines (a file or stdin), then print reports.
+ *
+ * Records are validated up front and written in chunks, each journaled with a
+ * single sync. Rejected records are listed on stderr with their line number
+ * instead of being prompted for; stdout only carries the reports.
+ */
+public class BatchRunner {
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int MAX_LISTED_ERRORS = 20;
+    private static final String USAGE =
+            "Usage: PetCareScheduler [--pets FILE] [--appointments FILE] [--format csv|jsonl]\n"
+            + "                        [--report weekly|overdue|upcoming|past|pets]... [--output FILE]\n"
+            + "  FILE may be - for stdin. The format defaults to jsonl for .jsonl/.json files, csv otherwise.\n"
+            + "  Reports are written as CSV when the --output file ends in .csv.\n"
+            + "  Pets:         petId,name,speciesBreed,age,ownerName,contactInfo[,registrationDate]\n"
+            + "  Appointments: petId,type,dateTime,notes[,durationMinutes]\n"
+            + "  Exit status: 0 all records imported, 1 some records rejected, 2 usage or I/O error.";
+
+    private final ShardedScheduler scheduler;
+    private final PrintStream err = System.err;
+    private LocalDateTime now;
+    private int rejected;
+
+    public BatchRunner(SchedulerService service) {
+        this(ShardedScheduler.single(service));
+    }
+
+    public BatchRunner(ShardedScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Run a batch job described by command-line arguments; returns the exit status
+     */
+    public int run(String[] args) {
+        String petsSource = null;
+        String appointmentsSource = null;
+        String format = null;
+        String output = null;
+        List<String> reportNames = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--help") || option.equals("-h")) {
+                System.out.println(USAGE);
+                return 0;
+            }
+            if (i + 1 >= args.length) {
+                return usage("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--pets":
+                    petsSource = value;
+                    break;
+                case "--appointments":
+                    appointmentsSource = value;
+                    break;
+                case "--format":
+                    if (!value.equals("csv") && !value.equals("jsonl")) {
+                        return usage("Unknown format: " + value);
+                    }
+                    format = value;
+                    break;
+                case "--report":
+                    if (!Arrays.asList("weekly", "overdue", "upcoming", "past", "pets").contains(value)) {
+                        return usage("Unknown report: " + value);
+                    }
+                    reportNames.add(value);
+                    break;
+                case "--output":
+                    output = value;
+                    break;
+                default:
+                    return usage("Unknown option: " + option);
+            }
+        }
+        if ("-".equals(petsSource) && "-".equals(appointmentsSource)) {
+            return usage("Only one input can be read from stdin");
+        }
+
+        now = LocalDateTime.now();
+        try {
+            BulkLoader.LoadStats[] stats = scheduler.load();
+            err.println("Loaded " + scheduler.size() + " pets (Pets: " + stats[0]
+                    + " | Appointments: " + stats[1] + " | Journal: " + stats[2] + ")");
+
+            if (petsSource != null) {
+                importPets(petsSource, formatOf(petsSource, format));
+            }
+            if (appointmentsSource != null) {
+                importAppointments(appointmentsSource, formatOf(appointmentsSource, format));
+            }
+            scheduler.save();
+
+            if (!reportNames.isEmpty()) {
+                writeReports(reportNames, output);
+            }
+        } catch (IOException | RuntimeException e) {
+            err.println("Batch run failed: " + e.getMessage());
+            return 2;
+        } finally {
+            try {
+                scheduler.close();
+            } catch (IOException e) {
+                err.println("Error closing data files: " + e.getMessage());
+            }
+        }
+        return rejected > 0 ? 1 : 0;
+    }
+
+    private int usage(String problem) {
+        err.println(problem);
+        err.println(USAGE);
+        return 2;
+    }
+
+    private static String formatOf(String source, String format) {
+        if (format != null) {
+            return format;
+        }
+        return source.endsWith(".jsonl") || source.endsWith(".json") ? "jsonl" : "csv";
+    }
+
+    private void importPets(String source, String format) throws IOException {
+        long start = System.nanoTime();
+        int imported = 0;
+        int rejectedBefore = rejected;
+        List<Pet> chunk = new ArrayList<>();
+        List<Integer> lines = new ArrayList<>();
+
+        try (RecordReader reader = new RecordReader(source, format, RecordParser.PET_COLUMNS)) {
+            while (reader.advance()) {
+                try {
+                    chunk.add(RecordParser.toPet(scheduler, reader.fields(), now));
+                    lines.add(reader.getLineNumber());
+                } catch (RuntimeException e) {
+                    reject(source, reader.getLineNumber(), e.getMessage());
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    imported += registerChunk(source, chunk, lines);
+                }
+            }
+            imported += registerChunk(source, chunk, lines);
+        }
+        err.println(summary("Pets", imported, rejected - rejectedBefore, start));
+    }
+
+    // Register a chunk; the pets not registered had an ID that was already taken
+    private int registerChunk(String source, List<Pet> chunk, List<Integer> lines) throws IOException {
+        Set<Pet> registered = Collections.newSetFromMap(new IdentityHashMap<>());
+        registered.addAll(scheduler.registerPets(chunk));
+        for (int i = 0; i < chunk.size(); i++) {
+            if (!registered.contains(chunk.get(i))) {
+                reject(source, lines.get(i), "Pet ID already exists: " + chunk.get(i).getPetId());
+            }
+        }
+        chunk.clear();
+        lines.clear();
+        return registered.size();
+    }
+
+    private void importAppointments(String source, String format) throws IOException {
+        long start = System.nanoTime();
+        int imported = 0;
+        int rejectedBefore = rejected;
+        List<BookingRequest> chunk = new ArrayList<>();
+        List<Integer> lines = new ArrayList<>();
+
+        try (RecordReader reader = new RecordReader(source, format, RecordParser.APPOINTMENT_COLUMNS)) {
+            while (reader.advance()) {
+                try {
+                    chunk.add(RecordParser.toBookingRequest(reader.fields(), now));
+                    lines.add(reader.getLineNumber());
+                } catch (RuntimeException e) {
+                    reject(source, reader.getLineNumber(), e.getMessage());
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    imported += bookChunk(source, chunk, lines);
+                }
+            }
+            imported += bookChunk(source, chunk, lines);
+        }
+        err.println(summary("Appointments", imported, rejected - rejectedBefore, start));
+    }
+
+    // Book a chunk request by request, with one journal sync per shard involved
+    private int bookChunk(String source, List<BookingRequest> chunk, List<Integer> lines) throws IOException {
+        List<BookingResult> results = scheduler.bookEach(chunk);
+        int booked = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isBooked()) {
+                booked++;
+            } else {
+                reject(source, lines.get(i), results.get(i).getError());
+            }
+        }
+        chunk.clear();
+        lines.clear();
+        return booked;
+    }
+
+    private void reject(String source, int line, String reason) {
+        rejected++;
+        if (rejected <= MAX_LISTED_ERRORS) {
+            err.println("  " + source + ":" + line + ": " + reason);
+        } else if (rejected == MAX_LISTED_ERRORS + 1) {
+            err.println("  (further rejected records are counted but not listed)");
+        }
+    }
+
+    private static String summary(String what, int imported, int rejected, long start) {
+        return String.format("%s: %d imported, %d rejected in %.1f s", what, imported, rejected,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    private void writeReports(List<String> reportNames, String output) throws IOException {
+        // A .csv output file gets the rows as CSV; otherwise the console text is written
+        ReportSink out;
+        if (output == null) {
+            out = new TextReportSink(System.out, Charset.defaultCharset(), false);
+        } else if (output.endsWith(".csv")) {
+            out = new CsvReportSink(Files.newOutputStream(Paths.get(output)));
+        } else {
+            out = new TextReportSink(Files.newOutputStream(Paths.get(output)), StandardCharsets.UTF_8);
+        }
+
+        try {
+            Reports reports = new Reports(scheduler);
+            for (String name : reportNames) {
+                switch (name) {
+                    case "weekly":
+                        reports.weeklyReport(out, now);
+                        break;
+                    case "overdue":
+                        reports.overdueVetReport(out, now);
+                        break;
+                    case "upcoming":
+                        reports.upcomingAppointments(out, now);
+                        break;
+                    case "past":
+                        reports.pastAppointments(out, now);
+                        break;
+                    default:
+                        reports.allPets(out);
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads CSV or JSON Lines records into fields in column order; missing
+     * optional fields are null. A CSV header line naming the first column is skipped.
+     */
+    private static class RecordReader implements Closeable {
+        private final BufferedReader reader;
+        private final boolean stdin;
+        private final boolean json;
+        private final String[] columns;
+        private String line;
+        private int lineNumber;
+
+        RecordReader(String source, String format, String[] columns) throws IOException {
+            this.stdin = source.equals("-");
+            this.reader = stdin
+                    ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                    : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8);
+            this.json = format.equals("jsonl");
+            this.columns = columns;
+        }
+
+        int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Move to the next non-blank line; returns false at end of input
+         */
+        boolean advance() throws IOException {
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || lineNumber == 1 && !json && isHeader(line)) {
+                    continue;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Fields of the current line in column order; throws IllegalArgumentException if it is malformed
+         */
+        String[] fields() {
+            String[] fields = new String[columns.length];
+            if (json) {
+                Map<String, String> object = new JsonLine(line).parseObject();
+                for (int i = 0; i < columns.length; i++) {
+                    fields[i] = object.get(columns[i]);
+                }
+                return fields;
+            }
+
+            List<String> values = splitCsv(line);
+            if (values.size() > columns.length) {
+                throw new IllegalArgumentException("Expected at most " + columns.length + " fields, found "
+                        + values.size());
+            }
+            for (int i = 0; i < values.size(); i++) {
+                fields[i] = values.get(i).trim();
+            }
+            return fields;
+        }
+
+        private boolean isHeader(String line) {
+            try {
+                return splitCsv(line).get(0).trim().equalsIgnoreCase(columns[0]);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        // Comma-separated fields; double quotes enclose commas, and "" is a literal quote
+        private static List<String> splitCsv(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Unterminated quoted field");
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!stdin) { // Leave stdin open for the rest of the process
+                reader.close();
+            }
+        }
+    }
+}
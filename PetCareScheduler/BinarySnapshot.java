@@ -0,0 +1,224 @@
+package PetCareScheduler;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned binary snapshot of all pets and appointments.
+ *
+ * Layout (big-endian): magic, version, a dictionary of appointment types and
+ * species, then each pet followed by its appointments and recurrence rules.
+ * Strings are length-prefixed UTF-8, dates are epoch days and date-times epoch
+ * seconds (UTC). Version 1 (without durations) and version 2 (without rules)
+ * snapshots are still readable.
+ * Snapshots are read through a memory-mapped buffer, so they must be under 2 GB.
+ */
+public class BinarySnapshot {
+    private static final int MAGIC = 0x50435342; // "PCSB"
+    private static final int VERSION = 3; // 2 added appointment durations, 3 recurrence rules
+
+    /**
+     * Write a snapshot of the registry
+     */
+    public static void write(PetRegistry registry, Path file) throws IOException {
+        List<String> dictionary = new ArrayList<>();
+        Map<String, Integer> codes = new HashMap<>();
+        for (Pet pet : registry.getPets()) {
+            code(pet.getSpeciesBreed(), dictionary, codes);
+            pet.forEachAppointment(appointment -> code(appointment.getAppointmentType(), dictionary, codes));
+            for (RecurrenceRule rule : pet.getRecurrences()) {
+                code(rule.getType().getName(), dictionary, codes);
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(dictionary.size());
+            for (String entry : dictionary) {
+                writeString(out, entry);
+            }
+
+            out.writeInt(registry.size());
+            for (Pet pet : registry.getPets()) {
+                writeString(out, pet.getPetId());
+                writeString(out, pet.getName());
+                out.writeInt(codes.get(pet.getSpeciesBreed()));
+                out.writeInt(pet.getAge());
+                writeString(out, pet.getOwnerName());
+                writeString(out, pet.getContactInfo());
+                out.writeLong(pet.getRegistrationDate().toEpochDay());
+
+                List<Appointment> appointments = pet.getAppointments();
+                out.writeInt(appointments.size());
+                for (Appointment appointment : appointments) {
+                    out.writeInt(codes.get(appointment.getAppointmentType()));
+                    out.writeLong(appointment.getDateTime().toEpochSecond(ZoneOffset.UTC));
+                    writeString(out, appointment.getNotes());
+                    out.writeInt(appointment.getDurationMinutes());
+                }
+
+                List<RecurrenceRule> rules = pet.getRecurrences();
+                out.writeInt(rules.size());
+                for (RecurrenceRule rule : rules) {
+                    out.writeInt(codes.get(rule.getType().getName()));
+                    out.writeLong(rule.getStart().toEpochSecond(ZoneOffset.UTC));
+                    writeString(out, rule.getNotes());
+                    out.writeInt(rule.getDurationMinutes());
+                    out.writeInt(rule.getInterval());
+                    writeString(out, rule.getUnit().name());
+                    // An until date-time, or a count
+                    out.writeBoolean(rule.getUntil() != null);
+                    if (rule.getUntil() != null) {
+                        out.writeLong(rule.getUntil().toEpochSecond(ZoneOffset.UTC));
+                    } else {
+                        out.writeInt(rule.getCount());
+                    }
+                }
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Read a snapshot into the registry; returns {petStats, appointmentStats}
+     */
+    public static BulkLoader.LoadStats[] read(Path file, PetRegistry registry) throws IOException {
+        long start = System.nanoTime();
+        long petRows = 0;
+        long appointmentRows = 0;
+        long skipped = 0;
+        long size;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < 8 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a pet care snapshot: " + file);
+            }
+            int version = buffer.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+
+            String[] dictionary = new String[buffer.getInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(buffer);
+            }
+
+            int petCount = buffer.getInt();
+            for (int i = 0; i < petCount; i++) {
+                Pet pet = new Pet(readString(buffer), readString(buffer), dictionary[buffer.getInt()],
+                        buffer.getInt(), readString(buffer), readString(buffer),
+                        LocalDate.ofEpochDay(buffer.getLong()));
+                int appointmentCount = buffer.getInt();
+                for (int j = 0; j < appointmentCount; j++) {
+                    String type = dictionary[buffer.getInt()];
+                    LocalDateTime dateTime = LocalDateTime.ofEpochSecond(buffer.getLong(), 0, ZoneOffset.UTC);
+                    String notes = readString(buffer);
+                    int duration = version >= 2 ? buffer.getInt() : Appointment.DEFAULT_DURATION_MINUTES;
+                    pet.addAppointment(new Appointment(type, dateTime, notes, duration));
+                }
+                int ruleCount = version >= 3 ? buffer.getInt() : 0;
+                for (int j = 0; j < ruleCount; j++) {
+                    pet.addRecurrence(readRule(buffer, dictionary));
+                }
+                if (registry.register(pet)) {
+                    petRows++;
+                    appointmentRows += appointmentCount + ruleCount;
+                } else {
+                    skipped++;
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot: " + file, e);
+        }
+
+        long nanos = System.nanoTime() - start;
+        return new BulkLoader.LoadStats[] {
+                new BulkLoader.LoadStats(petRows, skipped, size, nanos),
+                new BulkLoader.LoadStats(appointmentRows, 0, 0, nanos) };
+    }
+
+    private static RecurrenceRule readRule(MappedByteBuffer buffer, String[] dictionary) {
+        AppointmentType type = AppointmentType.of(dictionary[buffer.getInt()]);
+        LocalDateTime start = LocalDateTime.ofEpochSecond(buffer.getLong(), 0, ZoneOffset.UTC);
+        String notes = readString(buffer);
+        int duration = buffer.getInt();
+        int interval = buffer.getInt();
+        ChronoUnit unit = ChronoUnit.valueOf(readString(buffer));
+        boolean hasUntil = buffer.get() != 0;
+        LocalDateTime until = hasUntil ? LocalDateTime.ofEpochSecond(buffer.getLong(), 0, ZoneOffset.UTC) : null;
+        int count = hasUntil ? 0 : buffer.getInt();
+        return new RecurrenceRule(type, start, notes, duration, interval, unit, until, count);
+    }
+
+    private static void code(String value, List<String> dictionary, Map<String, Integer> codes) {
+        if (!codes.containsKey(value)) {
+            codes.put(value, dictionary.size());
+            dictionary.add(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converter between the text files and a binary snapshot:
+     * to-binary PETS_FILE APPOINTMENTS_FILE SNAPSHOT | to-text SNAPSHOT PETS_FILE APPOINTMENTS_FILE
+     */
+    public static void main(String[] args) {
+        if (args.length != 4 || !(args[0].equals("to-binary") || args[0].equals("to-text"))) {
+            System.out.println("Usage: BinarySnapshot to-binary <pets file> <appointments file> <snapshot>");
+            System.out.println("       BinarySnapshot to-text <snapshot> <pets file> <appointments file>");
+            return;
+        }
+
+        try {
+            PetRegistry registry = new PetRegistry();
+            if (args[0].equals("to-binary")) {
+                BulkLoader.LoadStats[] stats = BulkLoader.loadAll(Paths.get(args[1]), Paths.get(args[2]), registry);
+                write(registry, Paths.get(args[3]));
+                System.out.println("Wrote " + stats[0].getRows() + " pets and " + stats[1].getRows()
+                        + " appointments to " + args[3]);
+            } else {
+                BulkLoader.LoadStats[] stats = read(Paths.get(args[1]), registry);
+                DataStore.writeSnapshot(registry, Paths.get(args[2]), Paths.get(args[3]));
+                System.out.println("Wrote " + stats[0].getRows() + " pets and " + stats[1].getRows()
+                        + " appointments to " + args[2] + " and " + args[3]);
+            }
+        } catch (IOException e) {
+            System.out.println("Conversion failed: " + e.getMessage());
+        }
+    }
+}
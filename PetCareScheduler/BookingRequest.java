@@ -0,0 +1,22 @@
+package PetCareScheduler;
+
+/**
+ * A request to book an appointment for the pet with the given ID
+ */
+public class BookingRequest {
+    private final String petId;
+    private final Appointment appointment;
+
+    public BookingRequest(String petId, Appointment appointment) {
+        this.petId = petId;
+        this.appointment = appointment;
+    }
+
+    public String getPetId() {
+        return petId;
+    }
+
+    public Appointment getAppointment() {
+        return appointment;
+    }
+}
@@ -0,0 +1,40 @@
+package PetCareScheduler;
+
+/**
+ * Outcome of one request in a batch booking: booked for a pet, or rejected with a reason
+ */
+public class BookingResult {
+    private final BookingRequest request;
+    private final Pet pet;      // Null if rejected
+    private final String error; // Null if booked
+
+    private BookingResult(BookingRequest request, Pet pet, String error) {
+        this.request = request;
+        this.pet = pet;
+        this.error = error;
+    }
+
+    public static BookingResult booked(BookingRequest request, Pet pet) {
+        return new BookingResult(request, pet, null);
+    }
+
+    public static BookingResult rejected(BookingRequest request, String error) {
+        return new BookingResult(request, null, error);
+    }
+
+    public BookingRequest getRequest() {
+        return request;
+    }
+
+    public boolean isBooked() {
+        return error == null;
+    }
+
+    public Pet getPet() {
+        return pet;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
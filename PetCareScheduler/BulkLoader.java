@@ -0,0 +1,735 @@
+package PetCareScheduler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bulk loader for the pipe-delimited pet and appointment files.
+ * Files are read in large NIO chunks split on line boundaries; chunks are parsed
+ * in parallel and merged into the registry in file order.
+ */
+public class BulkLoader {
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_IN_FLIGHT = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+    private static final byte FIELD_SEPARATOR = '|';
+    private static final int MAX_FIELDS = 16;
+
+    /**
+     * Row counts and timing for one loaded file
+     */
+    public static final class LoadStats {
+        private long rows;
+        private long skipped;
+        private long bytes;
+        private long nanos;
+        private long validLength; // Journal replay only
+
+        public LoadStats() {
+        }
+
+        LoadStats(long rows, long skipped, long bytes, long nanos) {
+            this.rows = rows;
+            this.skipped = skipped;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        // For a replayed journal: the offset just past its last complete record
+        public long getValidLength() {
+            return validLength;
+        }
+
+        // Totals of loads that ran side by side, timed by the wall clock
+        static LoadStats combine(List<LoadStats> parts, long nanos) {
+            LoadStats total = new LoadStats();
+            for (LoadStats part : parts) {
+                total.rows += part.rows;
+                total.skipped += part.skipped;
+                total.bytes += part.bytes;
+            }
+            total.nanos = nanos;
+            return total;
+        }
+
+        public long rowsPerSecond() {
+            return nanos == 0 ? rows : rows * 1_000_000_000L / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return rows + " rows (" + skipped + " skipped) in " + (nanos / 1_000_000) + " ms, "
+                    + rowsPerSecond() + " rows/s";
+        }
+    }
+
+    // Parsed rows of one chunk, plus the number of malformed lines in it
+    private static final class ParsedChunk<T> {
+        final List<T> rows = new ArrayList<>();
+        int skipped;
+    }
+
+    // An appointment or recurrence rule row waiting to be attached to its pet
+    private static final class AppointmentRow {
+        final String petId;
+        final Appointment appointment; // Null for a rule row
+        final RecurrenceRule rule;     // Null for an appointment row
+
+        AppointmentRow(String petId, Appointment appointment, RecurrenceRule rule) {
+            this.petId = petId;
+            this.appointment = appointment;
+            this.rule = rule;
+        }
+
+        void addTo(Pet pet) {
+            if (rule != null) {
+                pet.addRecurrence(rule);
+            } else {
+                pet.addAppointment(appointment);
+            }
+        }
+    }
+
+    /**
+     * Load pets (petId|name|speciesBreed|age|ownerName|contactInfo|registrationDate)
+     */
+    public static LoadStats loadPets(Path file, PetRegistry registry) throws IOException {
+        return load(file, BulkLoader::parsePets, registry::register);
+    }
+
+    /**
+     * Load appointments (petId|appointmentType|dateTime|notes[|durationMinutes]) and
+     * recurrence rules (petId|appointmentType|start|notes|durationMinutes|interval|unit|until or count)
+     * for registered pets
+     */
+    public static LoadStats loadAppointments(Path file, PetRegistry registry) throws IOException {
+        return load(file, BulkLoader::parseAppointments, row -> {
+            Pet pet = registry.findById(row.petId);
+            if (pet == null) {
+                return false;
+            }
+            row.addTo(pet);
+            return true;
+        });
+    }
+
+    /**
+     * Load appointments and rules like loadAppointments, except that each pet's
+     * leading run of appointment lines that had ended by asOf is left unparsed in
+     * the file, as a segment of the history. Lines are scanned in file order;
+     * a pet whose lines are not contiguous only gets its first run skipped.
+     * If the history is columnar, the run is parsed into its columns instead.
+     */
+    public static LoadStats loadAppointmentsLazily(Path file, PetRegistry registry, AppointmentHistory history,
+                                                   LocalDateTime asOf) throws IOException {
+        LoadStats stats = new LoadStats();
+        long start = System.nanoTime();
+        HistoryRun run = new HistoryRun(registry, history, asOf, stats);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            long bufferOffset = 0; // File offset of the buffer's first byte
+            while (true) {
+                int read = channel.read(buffer);
+                if (read > 0) {
+                    stats.bytes += read;
+                }
+                boolean eof = read < 0;
+                if (!eof && buffer.hasRemaining()) {
+                    continue;
+                }
+
+                int end = buffer.position();
+                int cut = eof ? end : lastLineEnd(buffer.array(), end);
+                if (cut < 0) {
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                    continue;
+                }
+                byte[] bytes = buffer.array();
+                int lineStart = 0;
+                while (lineStart < cut) {
+                    int lineEnd = lineStart;
+                    while (lineEnd < cut && bytes[lineEnd] != '\n') {
+                        lineEnd++;
+                    }
+                    int contentEnd = contentEnd(bytes, lineStart, lineEnd);
+                    if (contentEnd > lineStart) {
+                        run.line(bytes, lineStart, contentEnd, bufferOffset + lineStart,
+                                lineEnd < cut ? bufferOffset + lineEnd + 1 : -1);
+                    }
+                    lineStart = lineEnd + 1;
+                }
+                if (eof) {
+                    break;
+                }
+                // Carry the partial line over to the start of the buffer
+                buffer.limit(end);
+                buffer.position(cut);
+                buffer.compact();
+                bufferOffset += cut;
+            }
+        }
+        run.finish();
+        stats.nanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    // Scan state of loadAppointmentsLazily: the current pet's lines and its run of skipped ones.
+    // With columns the run is appended to them, and runStart and runEnd are rows, not offsets
+    private static final class HistoryRun {
+        private static final int MAX_RUN_BYTES = Integer.MAX_VALUE - 8;
+
+        private final PetRegistry registry;
+        private final AppointmentHistory history;
+        private final ColumnarAppointmentStore columns; // null leaves the run in the file
+        private final LocalDateTime asOf;
+        private final LoadStats stats;
+        private final int[] bounds = new int[MAX_FIELDS * 2];
+        private byte[] petId = new byte[0]; // Pet ID as spelled on the current lines
+        private Pet pet;                    // Null if those lines belong to no registered pet
+        private int petIndex;               // The pet's index in the columns
+        private boolean open;               // Lines may still join the run
+        private long runStart;
+        private long runEnd;
+        private int count;
+        private LocalDateTime first;
+        private LocalDateTime last;
+        private LocalDateTime lastVetVisit;
+
+        HistoryRun(PetRegistry registry, AppointmentHistory history, LocalDateTime asOf, LoadStats stats) {
+            this.registry = registry;
+            this.history = history;
+            this.columns = history.getColumns();
+            this.asOf = asOf;
+            this.stats = stats;
+        }
+
+        // One non-empty line; next is the offset after its line break, or -1 if it has none
+        void line(byte[] bytes, int start, int end, long offset, long next) {
+            int fields = split(bytes, start, end, bounds);
+            if (fields == 0) {
+                stats.skipped++;
+                return;
+            }
+            if (!samePet(bytes)) {
+                finish();
+                petId = Arrays.copyOfRange(bytes, bounds[0], bounds[1]);
+                pet = registry.findById(field(bytes, bounds, 0));
+                open = pet != null && pet.getHistory() == null;
+                if (open && columns != null) {
+                    petIndex = columns.petIndex(pet.getPetId());
+                }
+            }
+            if (pet == null) {
+                stats.skipped++;
+                return;
+            }
+            if (open && fields >= 3 && fields <= 5
+                    && (columns != null || next >= 0 && (count == 0 || next - runStart <= MAX_RUN_BYTES))) {
+                try {
+                    LocalDateTime dateTime = parseDateTime(bytes, bounds[4], bounds[5]);
+                    int duration = fields > 4
+                            ? parseInt(bytes, bounds[8], bounds[9]) : Appointment.DEFAULT_DURATION_MINUTES;
+                    if (!dateTime.plusMinutes(duration).isAfter(asOf)) {
+                        String type = field(bytes, bounds, 1);
+                        boolean vet = AppointmentType.of(type).isVet();
+                        if (columns == null) {
+                            add(offset, next, dateTime, vet);
+                            stats.rows++;
+                            return;
+                        }
+                        int row = fields > 3
+                                ? columns.add(petIndex, type, dateTime, duration, bytes, bounds[6], bounds[7])
+                                : columns.add(petIndex, type, dateTime, duration, bytes, 0, 0);
+                        if (row >= 0) {
+                            add(row, row + 1, dateTime, vet);
+                            stats.rows++;
+                            return;
+                        }
+                    }
+                } catch (DateTimeException | IllegalArgumentException e) {
+                    // Parsed again below, which rejects it
+                }
+            }
+            // Later lines are loaded too, so the run stays one contiguous block
+            open = false;
+            AppointmentRow row = parseAppointmentLine(bytes, start, end, bounds);
+            if (row != null) {
+                row.addTo(pet);
+                stats.rows++;
+            } else {
+                stats.skipped++;
+            }
+        }
+
+        private boolean samePet(byte[] bytes) {
+            int length = bounds[1] - bounds[0];
+            if (length != petId.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (bytes[bounds[0] + i] != petId[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void add(long offset, long next, LocalDateTime dateTime, boolean vet) {
+            if (count == 0) {
+                runStart = offset;
+                first = dateTime;
+                last = dateTime;
+            } else if (dateTime.isBefore(first)) {
+                first = dateTime;
+            } else if (dateTime.isAfter(last)) {
+                last = dateTime;
+            }
+            if (vet && (lastVetVisit == null || dateTime.isAfter(lastVetVisit))) {
+                lastVetVisit = dateTime;
+            }
+            runEnd = next;
+            count++;
+        }
+
+        // Hand the current pet its run, if it has one
+        void finish() {
+            if (pet != null && count > 0) {
+                pet.setHistory(history.segment(runStart, (int) (runEnd - runStart), count, first, last, lastVetVisit));
+            }
+            count = 0;
+            lastVetVisit = null;
+        }
+    }
+
+    /**
+     * Parse the appointment lines of a history segment, in date-time order
+     */
+    static List<Appointment> parseAppointmentRun(byte[] bytes) {
+        List<Appointment> appointments = new ArrayList<>();
+        int[] bounds = new int[MAX_FIELDS * 2];
+        int lineStart = 0;
+        while (lineStart < bytes.length) {
+            int lineEnd = lineEnd(bytes, lineStart);
+            int contentEnd = contentEnd(bytes, lineStart, lineEnd);
+            if (contentEnd > lineStart) {
+                AppointmentRow row = parseAppointmentLine(bytes, lineStart, contentEnd, bounds);
+                if (row != null && row.appointment != null) {
+                    appointments.add(row.appointment);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        appointments.sort(Comparator.comparing(Appointment::getDateTime));
+        return appointments;
+    }
+
+    /**
+     * Copy the lines of a history segment that start at or after from; returns the bytes written
+     */
+    static int copyAppointmentRunFrom(byte[] bytes, LocalDateTime from, OutputStream out) throws IOException {
+        int written = 0;
+        int[] bounds = new int[MAX_FIELDS * 2];
+        int lineStart = 0;
+        while (lineStart < bytes.length) {
+            int lineEnd = lineEnd(bytes, lineStart);
+            int next = Math.min(lineEnd + 1, bytes.length);
+            int contentEnd = contentEnd(bytes, lineStart, lineEnd);
+            // Segments only hold lines that parsed when they were loaded
+            if (split(bytes, lineStart, contentEnd, bounds) >= 3
+                    && !parseDateTime(bytes, bounds[4], bounds[5]).isBefore(from)) {
+                out.write(bytes, lineStart, next - lineStart);
+                written += next - lineStart;
+            }
+            lineStart = next;
+        }
+        return written;
+    }
+
+    // Merges one parsed row; returns false if the row was rejected
+    private interface RowSink<T> {
+        boolean accept(T row);
+    }
+
+    private static <T> LoadStats load(Path file, Function<byte[], ParsedChunk<T>> parser,
+                                      RowSink<T> sink) throws IOException {
+        LoadStats stats = new LoadStats();
+        long start = System.nanoTime();
+        Deque<CompletableFuture<ParsedChunk<T>>> inFlight = new ArrayDeque<>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            while (true) {
+                int read = channel.read(buffer);
+                if (read > 0) {
+                    stats.bytes += read;
+                }
+                boolean eof = read < 0;
+                if (!eof && buffer.hasRemaining()) {
+                    continue;
+                }
+
+                // Hand off everything up to the last complete line, carry the rest over
+                int end = buffer.position();
+                int cut = eof ? end : lastLineEnd(buffer.array(), end);
+                if (cut < 0) {
+                    // A single line longer than the buffer: grow and keep reading
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                    continue;
+                }
+                if (cut > 0) {
+                    byte[] chunk = new byte[cut];
+                    System.arraycopy(buffer.array(), 0, chunk, 0, cut);
+                    inFlight.addLast(CompletableFuture.supplyAsync(() -> parser.apply(chunk)));
+                }
+                ByteBuffer next = ByteBuffer.allocate(Math.max(CHUNK_SIZE, end - cut));
+                next.put(buffer.array(), cut, end - cut);
+                buffer = next;
+
+                while (inFlight.size() >= MAX_IN_FLIGHT) {
+                    merge(inFlight.removeFirst(), sink, stats);
+                }
+                if (eof) {
+                    break;
+                }
+            }
+        }
+
+        while (!inFlight.isEmpty()) {
+            merge(inFlight.removeFirst(), sink, stats);
+        }
+        stats.nanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    private static <T> void merge(CompletableFuture<ParsedChunk<T>> future, RowSink<T> sink, LoadStats stats) {
+        ParsedChunk<T> chunk;
+        try {
+            chunk = future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        stats.skipped += chunk.skipped;
+        for (T row : chunk.rows) {
+            if (sink.accept(row)) {
+                stats.rows++;
+            } else {
+                stats.skipped++;
+            }
+        }
+    }
+
+    private static int lastLineEnd(byte[] bytes, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static ParsedChunk<Pet> parsePets(byte[] chunk) {
+        ParsedChunk<Pet> parsed = new ParsedChunk<>();
+        int[] bounds = new int[MAX_FIELDS * 2];
+        int lineStart = 0;
+        while (lineStart < chunk.length) {
+            int lineEnd = lineEnd(chunk, lineStart);
+            int contentEnd = contentEnd(chunk, lineStart, lineEnd);
+            if (contentEnd > lineStart) {
+                Pet pet = parsePetLine(chunk, lineStart, contentEnd, bounds);
+                if (pet != null) {
+                    parsed.rows.add(pet);
+                } else {
+                    parsed.skipped++;
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return parsed;
+    }
+
+    private static ParsedChunk<AppointmentRow> parseAppointments(byte[] chunk) {
+        ParsedChunk<AppointmentRow> parsed = new ParsedChunk<>();
+        int[] bounds = new int[MAX_FIELDS * 2];
+        int lineStart = 0;
+        while (lineStart < chunk.length) {
+            int lineEnd = lineEnd(chunk, lineStart);
+            int contentEnd = contentEnd(chunk, lineStart, lineEnd);
+            if (contentEnd > lineStart) {
+                AppointmentRow row = parseAppointmentLine(chunk, lineStart, contentEnd, bounds);
+                if (row != null) {
+                    parsed.rows.add(row);
+                } else {
+                    parsed.skipped++;
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return parsed;
+    }
+
+    // Parse one pet line, or return null if it is malformed
+    private static Pet parsePetLine(byte[] bytes, int start, int end, int[] bounds) {
+        if (split(bytes, start, end, bounds) != 7) {
+            return null;
+        }
+        try {
+            return new Pet(field(bytes, bounds, 0), field(bytes, bounds, 1),
+                    field(bytes, bounds, 2), parseInt(bytes, bounds[6], bounds[7]),
+                    field(bytes, bounds, 4), field(bytes, bounds, 5),
+                    parseDate(bytes, bounds[12], bounds[13]));
+        } catch (NumberFormatException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    // Parse one appointment or recurrence rule line, or return null if it is malformed
+    private static AppointmentRow parseAppointmentLine(byte[] bytes, int start, int end, int[] bounds) {
+        int fields = split(bytes, start, end, bounds);
+        if (fields < 3 || fields > 5 && fields != 8) {
+            return null;
+        }
+        try {
+            String notes = fields > 3 ? field(bytes, bounds, 3) : "";
+            // Files written before durations were recorded have no fifth field
+            int duration = fields > 4 ? parseInt(bytes, bounds[8], bounds[9]) : Appointment.DEFAULT_DURATION_MINUTES;
+            LocalDateTime dateTime = parseDateTime(bytes, bounds[4], bounds[5]);
+            if (fields == 8) {
+                return new AppointmentRow(field(bytes, bounds, 0), null, parseRule(bytes, bounds,
+                        AppointmentType.of(field(bytes, bounds, 1)), dateTime, notes, duration));
+            }
+            Appointment appointment = new Appointment(field(bytes, bounds, 1), dateTime, notes, duration);
+            return new AppointmentRow(field(bytes, bounds, 0), appointment, null);
+        } catch (DateTimeException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // The repeat fields of a rule line: interval, unit, and an until date-time or a count
+    private static RecurrenceRule parseRule(byte[] bytes, int[] bounds, AppointmentType type,
+                                            LocalDateTime start, String notes, int duration) {
+        int interval = parseInt(bytes, bounds[10], bounds[11]);
+        ChronoUnit unit = RecurrenceRule.parseUnit(field(bytes, bounds, 6));
+        boolean isDateTime = bounds[15] - bounds[14] > 10;
+        return new RecurrenceRule(type, start, notes, duration, interval, unit,
+                isDateTime ? parseDateTime(bytes, bounds[14], bounds[15]) : null,
+                isDateTime ? 0 : parseInt(bytes, bounds[14], bounds[15]));
+    }
+
+    /**
+     * Replay journal records ("P|" + pet line or "A|" + appointment or rule line) in order.
+     * A torn final record without its line terminator is ignored; the stats' valid
+     * length ends before it, so it can be cut off before the journal is appended to.
+     */
+    public static LoadStats replayJournal(Path file, PetRegistry registry) throws IOException {
+        LoadStats stats = new LoadStats();
+        long start = System.nanoTime();
+        byte[] bytes = Files.readAllBytes(file);
+        stats.bytes = bytes.length;
+        int[] bounds = new int[MAX_FIELDS * 2];
+        int lineStart = 0;
+        while (lineStart < bytes.length) {
+            int lineEnd = lineEnd(bytes, lineStart);
+            if (lineEnd == bytes.length) {
+                break;
+            }
+            stats.validLength = lineEnd + 1;
+            int contentEnd = contentEnd(bytes, lineStart, lineEnd);
+            boolean applied = false;
+            if (contentEnd - lineStart > 2 && bytes[lineStart + 1] == FIELD_SEPARATOR) {
+                if (bytes[lineStart] == 'P') {
+                    Pet pet = parsePetLine(bytes, lineStart + 2, contentEnd, bounds);
+                    applied = pet != null && registry.register(pet);
+                } else if (bytes[lineStart] == 'A') {
+                    AppointmentRow row = parseAppointmentLine(bytes, lineStart + 2, contentEnd, bounds);
+                    Pet pet = row == null ? null : registry.findById(row.petId);
+                    if (pet != null) {
+                        row.addTo(pet);
+                        applied = true;
+                    }
+                }
+            }
+            if (applied) {
+                stats.rows++;
+            } else if (contentEnd > lineStart) {
+                stats.skipped++;
+            }
+            lineStart = lineEnd + 1;
+        }
+        stats.nanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    private static int lineEnd(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return bytes.length;
+    }
+
+    // Line end without a trailing carriage return
+    private static int contentEnd(byte[] bytes, int start, int end) {
+        return end > start && bytes[end - 1] == '\r' ? end - 1 : end;
+    }
+
+    /**
+     * Split a line on '|' into [start, end) pairs. Like String.split, trailing
+     * empty fields are dropped; returns the number of fields kept.
+     */
+    static int split(byte[] bytes, int start, int end, int[] bounds) {
+        int count = 0;
+        int fieldStart = start;
+        int maxFields = bounds.length / 2;
+        for (int i = start; i <= end && count < maxFields; i++) {
+            if (i == end || bytes[i] == FIELD_SEPARATOR) {
+                bounds[count * 2] = fieldStart;
+                bounds[count * 2 + 1] = i;
+                count++;
+                fieldStart = i + 1;
+            }
+        }
+        while (count > 0 && bounds[count * 2 - 1] == bounds[count * 2 - 2]) {
+            count--;
+        }
+        return count;
+    }
+
+    // '|' never occurs inside a multi-byte UTF-8 sequence, so fields decode independently
+    private static String field(byte[] bytes, int[] bounds, int index) {
+        int start = bounds[index * 2];
+        return new String(bytes, start, bounds[index * 2 + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    // Same results as Integer.parseInt, with a fast path for up to nine digits after an optional sign
+    static int parseInt(byte[] bytes, int start, int end) {
+        boolean signed = start < end && (bytes[start] == '-' || bytes[start] == '+');
+        int digitsStart = signed ? start + 1 : start;
+        if (digitsStart == end || end - digitsStart > 9) {
+            return Integer.parseInt(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+        }
+        int value = 0;
+        for (int i = digitsStart; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \""
+                        + new String(bytes, start, end - start, StandardCharsets.UTF_8) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return bytes[start] == '-' ? -value : value;
+    }
+
+    /**
+     * Parse an ISO date (yyyy-MM-dd), with a fixed-layout fast path
+     */
+    static LocalDate parseDate(byte[] bytes, int start, int end) {
+        if (end - start == 10 && bytes[start + 4] == '-' && bytes[start + 7] == '-') {
+            int year = digits(bytes, start, 4);
+            int month = digits(bytes, start + 5, 2);
+            int day = digits(bytes, start + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse an ISO date-time as written by LocalDateTime.toString()
+     * (yyyy-MM-ddTHH:mm or yyyy-MM-ddTHH:mm:ss), with a fixed-layout fast path
+     */
+    static LocalDateTime parseDateTime(byte[] bytes, int start, int end) {
+        int length = end - start;
+        if ((length == 16 || length == 19) && bytes[start + 4] == '-' && bytes[start + 7] == '-'
+                && bytes[start + 10] == 'T' && bytes[start + 13] == ':'
+                && (length == 16 || bytes[start + 16] == ':')) {
+            int year = digits(bytes, start, 4);
+            int month = digits(bytes, start + 5, 2);
+            int day = digits(bytes, start + 8, 2);
+            int hour = digits(bytes, start + 11, 2);
+            int minute = digits(bytes, start + 14, 2);
+            int second = length == 19 ? digits(bytes, start + 17, 2) : 0;
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+                return LocalDateTime.of(year, month, day, hour, minute, second);
+            }
+        }
+        return LocalDateTime.parse(new String(bytes, start, length, StandardCharsets.UTF_8));
+    }
+
+    // Unsigned decimal of fixed width, or -1 if any byte is not a digit
+    private static int digits(byte[] bytes, int start, int width) {
+        int value = 0;
+        for (int i = start; i < start + width; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Load both data files if present; returns {petStats, appointmentStats}
+     */
+    public static LoadStats[] loadAll(Path petsFile, Path appointmentsFile, PetRegistry registry) throws IOException {
+        LoadStats petStats = Files.exists(petsFile) ? loadPets(petsFile, registry) : new LoadStats();
+        LoadStats appointmentStats = Files.exists(appointmentsFile)
+                ? loadAppointments(appointmentsFile, registry) : new LoadStats();
+        return new LoadStats[] { petStats, appointmentStats };
+    }
+
+    /**
+     * Load both data files if present, leaving histories that ended by asOf in the
+     * appointments file (see loadAppointmentsLazily); returns {petStats, appointmentStats}
+     */
+    public static LoadStats[] loadAll(Path petsFile, Path appointmentsFile, PetRegistry registry,
+                                      AppointmentHistory history, LocalDateTime asOf) throws IOException {
+        LoadStats petStats = Files.exists(petsFile) ? loadPets(petsFile, registry) : new LoadStats();
+        LoadStats appointmentStats = Files.exists(appointmentsFile)
+                ? loadAppointmentsLazily(appointmentsFile, registry, history, asOf) : new LoadStats();
+        history.open();
+        return new LoadStats[] { petStats, appointmentStats };
+    }
+}
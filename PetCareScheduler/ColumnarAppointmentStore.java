@@ -0,0 +1,274 @@
+package PetCareScheduler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appointment rows in parallel primitive columns, the columnar backend of
+ * AppointmentHistory: pet index (int), start as an epoch minute (long), type as
+ * a code into the store's own spellings (short), duration (int), and notes as
+ * offsets into one shared UTF-8 arena. A row costs 18 bytes plus its notes,
+ * where a parsed Appointment with its strings takes a few hundred.
+ *
+ * Appointment objects are only built when a range of rows is materialized.
+ * Rows are appended while loading and never changed; rows no segment points
+ * at any more are dropped by copying the live ones into a new store.
+ * Not thread-safe: AppointmentHistory guards it.
+ */
+final class ColumnarAppointmentStore {
+    private static final int MAX_TYPES = 1 << 16; // Codes are read back unsigned
+    private static final int MAX_NOTES_BYTES = Integer.MAX_VALUE - 8;
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private int size;
+    private int[] petIndexes = new int[1024];
+    private long[] startMinutes = new long[1024];
+    private short[] typeCodes = new short[1024];
+    private int[] durations = new int[1024];
+    private int[] notesOffsets = new int[1025]; // Row i's notes are [notesOffsets[i], notesOffsets[i + 1])
+    private byte[] notesArena = new byte[16 * 1024];
+
+    private final List<String> petIds = new ArrayList<>();
+    private final List<String> typeSpellings = new ArrayList<>();
+    // Only needed while rows are appended, so dropped by trimToSize
+    private Map<String, Integer> petIndexById = new HashMap<>();
+    private Map<String, Integer> typeCodeBySpelling = new HashMap<>();
+
+    // Index of a pet ID in the pet column, added if new
+    int petIndex(String petId) {
+        Integer index = petIndexById.get(petId);
+        if (index == null) {
+            index = petIds.size();
+            petIds.add(petId);
+            petIndexById.put(petId, index);
+        }
+        return index;
+    }
+
+    /**
+     * Append a row whose notes are bytes [notesStart, notesEnd) of a line; returns
+     * its row number, or -1 if it cannot be held: the start has seconds, which an
+     * epoch minute drops, the type would be one spelling too many, or the notes
+     * arena is full
+     */
+    int add(int petIndex, String type, LocalDateTime start, int durationMinutes,
+            byte[] notes, int notesStart, int notesEnd) {
+        if (start.getSecond() != 0 || start.getNano() != 0
+                || notesEnd - notesStart > MAX_NOTES_BYTES - notesOffsets[size]) {
+            return -1;
+        }
+        int typeCode = typeCode(type);
+        if (typeCode < 0) {
+            return -1;
+        }
+        ensureCapacity(size + 1, notesOffsets[size] + notesEnd - notesStart);
+        int row = size++;
+        petIndexes[row] = petIndex;
+        startMinutes[row] = epochMinute(start);
+        typeCodes[row] = (short) typeCode;
+        durations[row] = durationMinutes;
+        System.arraycopy(notes, notesStart, notesArena, notesOffsets[row], notesEnd - notesStart);
+        notesOffsets[row + 1] = notesOffsets[row] + notesEnd - notesStart;
+        return row;
+    }
+
+    // Copy a row of another store to the end of this one; returns its row number here
+    private int copyRow(ColumnarAppointmentStore from, int row) {
+        int notesStart = from.notesOffsets[row];
+        int copied = add(petIndex(from.petIds.get(from.petIndexes[row])),
+                from.typeOf(row), from.startOf(row), from.durations[row],
+                from.notesArena, notesStart, from.notesOffsets[row + 1]);
+        // Held by the other store, so within both limits here
+        assert copied >= 0;
+        return copied;
+    }
+
+    private int typeCode(String type) {
+        Integer code = typeCodeBySpelling.get(type);
+        if (code != null) {
+            return code;
+        }
+        if (typeSpellings.size() == MAX_TYPES) {
+            return -1;
+        }
+        code = typeSpellings.size();
+        typeSpellings.add(type);
+        typeCodeBySpelling.put(type, code);
+        return code;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Sort rows [from, from + count) by start, keeping the order of equal starts
+     */
+    void sortByStart(int from, int count) {
+        int end = from + count;
+        boolean sorted = true;
+        for (int row = from + 1; row < end && sorted; row++) {
+            sorted = startMinutes[row - 1] <= startMinutes[row];
+        }
+        if (sorted) {
+            return;
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = from + i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(startMinutes[a], startMinutes[b]));
+
+        int[] pets = new int[count];
+        long[] starts = new long[count];
+        short[] types = new short[count];
+        int[] lengths = new int[count];
+        int[] notesStarts = new int[count];
+        int[] notesLengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            int row = order[i];
+            pets[i] = petIndexes[row];
+            starts[i] = startMinutes[row];
+            types[i] = typeCodes[row];
+            lengths[i] = durations[row];
+            notesStarts[i] = notesOffsets[row];
+            notesLengths[i] = notesOffsets[row + 1] - notesOffsets[row];
+        }
+        // The rows' notes are one stretch of the arena, rewritten in the new order
+        int notesFrom = notesOffsets[from];
+        byte[] notes = Arrays.copyOfRange(notesArena, notesFrom, notesOffsets[end]);
+        for (int i = 0; i < count; i++) {
+            int row = from + i;
+            petIndexes[row] = pets[i];
+            startMinutes[row] = starts[i];
+            typeCodes[row] = types[i];
+            durations[row] = lengths[i];
+            System.arraycopy(notes, notesStarts[i] - notesFrom, notesArena, notesOffsets[row], notesLengths[i]);
+            notesOffsets[row + 1] = notesOffsets[row] + notesLengths[i];
+        }
+    }
+
+    /**
+     * Rows [from, from + count) that start at or after notBefore (all if null) as
+     * new Appointment objects, in row order
+     */
+    List<Appointment> appointments(int from, int count, LocalDateTime notBefore) {
+        List<Appointment> appointments = new ArrayList<>(count);
+        for (int row = from; row < from + count; row++) {
+            if (notBefore == null || !startOf(row).isBefore(notBefore)) {
+                appointments.add(new Appointment(typeOf(row), startOf(row), notesOf(row), durations[row]));
+            }
+        }
+        return appointments;
+    }
+
+    /**
+     * Write rows [from, from + count) that start at or after notBefore (all if null)
+     * as appointment lines; returns the bytes written
+     */
+    int copyTo(int from, int count, LocalDateTime notBefore, OutputStream out) throws IOException {
+        int written = 0;
+        for (int row = from; row < from + count; row++) {
+            LocalDateTime start = startOf(row);
+            if (notBefore == null || !start.isBefore(notBefore)) {
+                // Same layout as DataStore.appointmentRecord, with the notes bytes as they were read
+                byte[] head = (petIds.get(petIndexes[row]) + "|" + typeOf(row) + "|" + start
+                        + "|").getBytes(StandardCharsets.UTF_8);
+                byte[] tail = ("|" + durations[row] + "\n").getBytes(StandardCharsets.UTF_8);
+                int notesStart = notesOffsets[row];
+                int notesLength = notesOffsets[row + 1] - notesStart;
+                out.write(head);
+                out.write(notesArena, notesStart, notesLength);
+                out.write(tail);
+                written += head.length + notesLength + tail.length;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * A new store holding rows [from, from + count) that start at or after
+     * notBefore (all if null) of each given range of this one, in order; the
+     * ranges are {from, count} pairs, and each is set to its place in the new store
+     */
+    ColumnarAppointmentStore retain(List<int[]> ranges, List<LocalDateTime> notBefore) {
+        ColumnarAppointmentStore retained = new ColumnarAppointmentStore();
+        for (int i = 0; i < ranges.size(); i++) {
+            int[] range = ranges.get(i);
+            LocalDateTime cutoff = notBefore.get(i);
+            int start = retained.size;
+            for (int row = range[0]; row < range[0] + range[1]; row++) {
+                if (cutoff == null || !startOf(row).isBefore(cutoff)) {
+                    retained.copyRow(this, row);
+                }
+            }
+            range[0] = start;
+            range[1] = retained.size - start;
+        }
+        retained.trimToSize();
+        return retained;
+    }
+
+    /**
+     * Shrink the columns and arena to what the rows use; no rows can be added after
+     */
+    void trimToSize() {
+        petIndexById = null;
+        typeCodeBySpelling = null;
+        if (petIndexes.length == size && notesArena.length == notesOffsets[size]) {
+            return;
+        }
+        petIndexes = Arrays.copyOf(petIndexes, size);
+        startMinutes = Arrays.copyOf(startMinutes, size);
+        typeCodes = Arrays.copyOf(typeCodes, size);
+        durations = Arrays.copyOf(durations, size);
+        notesOffsets = Arrays.copyOf(notesOffsets, size + 1);
+        notesArena = size == 0 ? NO_BYTES : Arrays.copyOf(notesArena, notesOffsets[size]);
+    }
+
+    /**
+     * Heap taken by the columns and the notes arena, not counting the pet and type tables
+     */
+    long estimatedBytes() {
+        return 4L * petIndexes.length + 8L * startMinutes.length + 2L * typeCodes.length
+                + 4L * durations.length + 4L * notesOffsets.length + notesArena.length;
+    }
+
+    private String typeOf(int row) {
+        return typeSpellings.get(typeCodes[row] & 0xFFFF);
+    }
+
+    private LocalDateTime startOf(int row) {
+        return LocalDateTime.ofEpochSecond(startMinutes[row] * 60, 0, ZoneOffset.UTC);
+    }
+
+    private String notesOf(int row) {
+        int start = notesOffsets[row];
+        return new String(notesArena, start, notesOffsets[row + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    private static long epochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private void ensureCapacity(int rows, int notesBytes) {
+        if (rows > petIndexes.length) {
+            int capacity = Math.max(rows, petIndexes.length * 2);
+            petIndexes = Arrays.copyOf(petIndexes, capacity);
+            startMinutes = Arrays.copyOf(startMinutes, capacity);
+            typeCodes = Arrays.copyOf(typeCodes, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            notesOffsets = Arrays.copyOf(notesOffsets, capacity + 1);
+        }
+        if (notesBytes > notesArena.length) {
+            notesArena = Arrays.copyOf(notesArena, Math.max(notesBytes, notesArena.length * 2));
+        }
+    }
+}
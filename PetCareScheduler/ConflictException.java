@@ -0,0 +1,13 @@
+package PetCareScheduler;
+
+/**
+ * A request that clashes with data already held: a Pet ID that is taken, or
+ * a double booking of a pet or an exclusive resource
+ */
+public class ConflictException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
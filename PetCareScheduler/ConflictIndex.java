@@ -0,0 +1,268 @@
+package PetCareScheduler;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Double-booking detection. A pet can only be in one appointment at a time, and
+ * an exclusive resource type (e.g. the grooming table) can only be booked once
+ * per slot. Each exclusive resource keeps its bookings in a start-ordered map, so
+ * checks are O(log n). Callers hold the lock stripes of the pets and resources
+ * involved while checking and inserting, which makes check-then-book atomic.
+ *
+ * Bookings made here never overlap, but loaded ones may (even sharing a start),
+ * so every booking at a start is kept, and a check looks back over the starts
+ * within the resource's longest booking before the candidate's end.
+ */
+public class ConflictIndex implements PetListener {
+    private static final int STRIPES = 64;
+
+    private final Set<AppointmentType> exclusiveResources;
+    // Bookings of each resource by start; the lists are small and replaced, never changed
+    private final ConcurrentMap<AppointmentType, ConcurrentSkipListMap<LocalDateTime, List<Appointment>>>
+            bookingsByResource = new ConcurrentHashMap<>();
+    // Longest booking ever added per resource, bounding how far back a check looks
+    private final ConcurrentMap<AppointmentType, Integer> longestByResource = new ConcurrentHashMap<>();
+    // Recurrence rules on exclusive resources; there are few, so each is checked directly
+    private final ConcurrentMap<AppointmentType, List<RecurrenceRule>> rulesByResource = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    /**
+     * @param exclusiveResources appointment types that can only be booked once per slot
+     */
+    public ConflictIndex(Collection<String> exclusiveResources) {
+        Set<AppointmentType> normalized = new HashSet<>();
+        for (String resource : exclusiveResources) {
+            normalized.add(AppointmentType.of(resource));
+        }
+        this.exclusiveResources = Collections.unmodifiableSet(normalized);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isExclusive(AppointmentType type) {
+        return exclusiveResources.contains(type);
+    }
+
+    /**
+     * Describe why the appointment cannot be booked for the pet, or return null
+     */
+    public String findConflict(Pet pet, Appointment candidate) {
+        LocalDateTime start = candidate.getDateTime();
+        LocalDateTime end = candidate.getEndDateTime();
+        Appointment clash = pet.findOverlap(start, end);
+        if (clash != null) {
+            return pet.getPetId() + " already has an appointment at " + clash.getDateTime();
+        }
+        if (isExclusive(candidate.getType())) {
+            Appointment booked = findBooking(candidate.getType(), start, end);
+            if (booked != null) {
+                return candidate.getAppointmentType() + " slot is already booked at " + booked.getDateTime();
+            }
+            for (RecurrenceRule rule : rulesByResource.getOrDefault(candidate.getType(), Collections.emptyList())) {
+                Appointment occurrence = rule.findOverlap(start, end);
+                if (occurrence != null) {
+                    return candidate.getAppointmentType() + " slot is already booked at " + occurrence.getDateTime();
+                }
+            }
+        }
+        return null;
+    }
+
+    // A booking of the resource overlapping [start, end), or null
+    private Appointment findBooking(AppointmentType resource, LocalDateTime start, LocalDateTime end) {
+        ConcurrentSkipListMap<LocalDateTime, List<Appointment>> bookings = bookingsByResource.get(resource);
+        if (bookings == null) {
+            return null;
+        }
+        // Nothing starting at or before this can last into the slot
+        LocalDateTime horizon = start.minusMinutes(longestByResource.getOrDefault(resource, 0));
+        for (Map.Entry<LocalDateTime, List<Appointment>> entry : bookings.headMap(end).descendingMap().entrySet()) {
+            if (!entry.getKey().isAfter(horizon)) {
+                break;
+            }
+            for (Appointment booking : entry.getValue()) {
+                if (booking.overlaps(start, end)) {
+                    return booking;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Describe the first conflict among a batch of candidates (index-aligned with
+     * their pets), against existing bookings or each other; null if none
+     */
+    public String findConflict(List<Pet> pets, List<Appointment> candidates) {
+        // Group candidates by what they occupy: their pet, and an exclusive resource if any
+        Map<Object, List<Integer>> byHolder = new HashMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            String conflict = findConflict(pets.get(i), candidates.get(i));
+            if (conflict != null) {
+                return "Item " + (i + 1) + ": " + conflict;
+            }
+            byHolder.computeIfAbsent(pets.get(i), key -> new ArrayList<>()).add(i);
+            AppointmentType type = candidates.get(i).getType();
+            if (isExclusive(type)) {
+                byHolder.computeIfAbsent(type, key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // Within each group, sweep in start order looking for a start before the latest end so far
+        for (List<Integer> group : byHolder.values()) {
+            group.sort(Comparator.comparing(i -> candidates.get(i).getDateTime()));
+            int latest = -1;
+            for (int i : group) {
+                Appointment candidate = candidates.get(i);
+                if (latest >= 0 && candidate.getDateTime().isBefore(candidates.get(latest).getEndDateTime())) {
+                    return "Item " + (i + 1) + " overlaps item " + (latest + 1);
+                }
+                if (latest < 0 || candidate.getEndDateTime().isAfter(candidates.get(latest).getEndDateTime())) {
+                    latest = i;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Bookings accepted so far in a batch that are not yet on their pets, so
+     * each further request can be checked against them as well as against the
+     * index; O(log n) per check. Use under the lock stripes of the batch.
+     */
+    public final class Pending {
+        // Accepted bookings by what they occupy (a pet, or an exclusive resource), keyed by start
+        private final Map<Object, TreeMap<LocalDateTime, Appointment>> byHolder = new HashMap<>();
+
+        /**
+         * Describe why the appointment clashes with a pending booking, or return null
+         */
+        public String findConflict(Pet pet, Appointment candidate) {
+            Appointment clash = findOverlap(pet, candidate);
+            if (clash != null) {
+                return pet.getPetId() + " already has an appointment at " + clash.getDateTime();
+            }
+            clash = isExclusive(candidate.getType()) ? findOverlap(candidate.getType(), candidate) : null;
+            if (clash != null) {
+                return candidate.getAppointmentType() + " slot is already booked at " + clash.getDateTime();
+            }
+            return null;
+        }
+
+        public void add(Pet pet, Appointment appointment) {
+            byHolder.computeIfAbsent(pet, key -> new TreeMap<>()).put(appointment.getDateTime(), appointment);
+            if (isExclusive(appointment.getType())) {
+                byHolder.computeIfAbsent(appointment.getType(), key -> new TreeMap<>())
+                        .put(appointment.getDateTime(), appointment);
+            }
+        }
+
+        // Pending bookings of one holder never overlap, so only the last one starting before the end can
+        private Appointment findOverlap(Object holder, Appointment candidate) {
+            TreeMap<LocalDateTime, Appointment> bookings = byHolder.get(holder);
+            Map.Entry<LocalDateTime, Appointment> previous =
+                    bookings == null ? null : bookings.lowerEntry(candidate.getEndDateTime());
+            return previous != null && previous.getValue().overlaps(candidate.getDateTime(),
+                    candidate.getEndDateTime()) ? previous.getValue() : null;
+        }
+    }
+
+    public Pending pending() {
+        return new Pending();
+    }
+
+    /**
+     * Acquire the lock stripes covering the given pets and appointment types in a
+     * global order (so batches cannot deadlock); pass the result to unlock()
+     */
+    public List<ReentrantLock> lock(Collection<Pet> pets, Collection<Appointment> candidates) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Pet pet : pets) {
+            indexes.add(stripe("pet:" + PetRegistry.normalizeId(pet.getPetId())));
+        }
+        for (Appointment candidate : candidates) {
+            if (isExclusive(candidate.getType())) {
+                indexes.add(stripe("resource:" + candidate.getType().getKey()));
+            }
+        }
+        List<ReentrantLock> held = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            stripes[index].lock();
+            held.add(stripes[index]);
+        }
+        return held;
+    }
+
+    public void unlock(List<ReentrantLock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+    }
+
+    @Override
+    public void appointmentAdded(Pet pet, Appointment appointment) {
+        if (isExclusive(appointment.getType())) {
+            longestByResource.merge(appointment.getType(), appointment.getDurationMinutes(), Math::max);
+            bookingsByResource.computeIfAbsent(appointment.getType(), key -> new ConcurrentSkipListMap<>())
+                    .compute(appointment.getDateTime(), (start, kept) -> {
+                        if (kept == null) {
+                            return Collections.singletonList(appointment);
+                        }
+                        List<Appointment> bookings = new ArrayList<>(kept.size() + 1);
+                        bookings.addAll(kept);
+                        bookings.add(appointment);
+                        return bookings;
+                    });
+        }
+    }
+
+    @Override
+    public void appointmentRemoved(Pet pet, Appointment appointment) {
+        if (isExclusive(appointment.getType())) {
+            ConcurrentSkipListMap<LocalDateTime, List<Appointment>> bookings =
+                    bookingsByResource.get(appointment.getType());
+            if (bookings != null) {
+                bookings.computeIfPresent(appointment.getDateTime(), (start, kept) -> {
+                    List<Appointment> left = new ArrayList<>(kept);
+                    left.removeIf(booking -> booking == appointment);
+                    return left.isEmpty() ? null : left;
+                });
+            }
+        }
+    }
+
+    @Override
+    public void recurrenceAdded(Pet pet, RecurrenceRule rule) {
+        if (isExclusive(rule.getType())) {
+            rulesByResource.computeIfAbsent(rule.getType(), key -> new CopyOnWriteArrayList<>()).add(rule);
+        }
+    }
+
+    @Override
+    public void recurrenceRemoved(Pet pet, RecurrenceRule rule) {
+        List<RecurrenceRule> rules = rulesByResource.get(rule.getType());
+        if (rules != null) {
+            rules.remove(rule);
+        }
+    }
+
+    private int stripe(String key) {
+        return (key.hashCode() & 0x7fffffff) % STRIPES;
+    }
+}
@@ -0,0 +1,165 @@
+package PetCareScheduler;
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Report rows as RFC 4180 CSV in UTF-8. Each report starts with a header for
+ * the kind of rows it holds; reports are separated by a blank line. Titles,
+ * pet headers and empty-report messages carry no data and are not written.
+ */
+public class CsvReportSink implements ReportSink {
+    private static final String APPOINTMENT_HEADER =
+            "petId,petName,ownerName,contactInfo,type,dateTime,durationMinutes,notes";
+    private static final String VET_VISIT_HEADER = "petId,petName,ownerName,contactInfo,lastVetVisit";
+    private static final String PET_HEADER =
+            "petId,name,speciesBreed,age,ownerName,contactInfo,registrationDate,appointments";
+
+    private final Writer writer;
+    private final CharArrayWriter buffer; // Set for partitions, which render into memory
+    private final StringBuilder line = new StringBuilder(256);
+    private String header; // Header written for the current report (needed, for a partition), or null
+    private boolean anyRows;
+
+    public CsvReportSink(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        this.buffer = null;
+    }
+
+    private CsvReportSink(CharArrayWriter buffer) {
+        this.writer = buffer;
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void beginReport(String title) {
+        header = null;
+    }
+
+    @Override
+    public void petHeader(Pet pet, boolean withContact) {
+    }
+
+    @Override
+    public void appointment(Pet pet, Appointment appointment) throws IOException {
+        header(APPOINTMENT_HEADER);
+        petColumns(pet);
+        field(appointment.getAppointmentType()).append(',');
+        Appointment.DATE_TIME_FORMAT.formatTo(appointment.getDateTime(), line);
+        line.append(',').append(appointment.getDurationMinutes()).append(',');
+        field(appointment.getNotes());
+        writeLine();
+    }
+
+    @Override
+    public void lastVetVisit(Pet pet, LocalDateTime lastVetVisit) throws IOException {
+        header(VET_VISIT_HEADER);
+        petColumns(pet);
+        if (lastVetVisit != null) {
+            Pet.DATE_FORMAT.formatTo(lastVetVisit, line);
+        }
+        writeLine();
+    }
+
+    @Override
+    public void pet(Pet pet) throws IOException {
+        header(PET_HEADER);
+        field(pet.getPetId()).append(',');
+        field(pet.getName()).append(',');
+        field(pet.getSpeciesBreed()).append(',');
+        line.append(pet.getAge()).append(',');
+        field(pet.getOwnerName()).append(',');
+        field(pet.getContactInfo()).append(',');
+        Pet.DATE_FORMAT.formatTo(pet.getRegistrationDate(), line);
+        line.append(',').append(pet.getAppointmentCount());
+        writeLine();
+    }
+
+    @Override
+    public void noResults(String message) {
+    }
+
+    @Override
+    public ReportSink partition() {
+        return new CsvReportSink(new CharArrayWriter(1 << 16));
+    }
+
+    @Override
+    public void append(ReportSink partition) throws IOException {
+        CsvReportSink rows = (CsvReportSink) partition;
+        if (rows.buffer.size() > 0) {
+            header(rows.header);
+            rows.buffer.writeTo(writer);
+        }
+    }
+
+    // Partitions only note the header; it is written once, by the sink they are appended to
+    private void header(String columns) throws IOException {
+        if (header != null) {
+            return;
+        }
+        if (buffer != null) {
+            header = columns;
+            return;
+        }
+        if (anyRows) {
+            writer.write("\r\n");
+        }
+        header = columns;
+        writer.write(columns);
+        writer.write("\r\n");
+        anyRows = true;
+    }
+
+    private void petColumns(Pet pet) {
+        field(pet.getPetId()).append(',');
+        field(pet.getName()).append(',');
+        field(pet.getOwnerName()).append(',');
+        field(pet.getContactInfo()).append(',');
+    }
+
+    // Quote a value when it contains a separator, quote or line break
+    private StringBuilder field(String value) {
+        if (value == null) {
+            return line;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return line.append(value);
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
+
+    private void writeLine() throws IOException {
+        line.append("\r\n");
+        writer.append(line);
+        line.setLength(0);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,446 @@
+package PetCareScheduler;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persistent storage: a snapshot plus an append-only journal of registrations
+ * and scheduled appointments since the last snapshot. Saving costs O(changes);
+ * the journal is folded into a new snapshot once it grows past a threshold.
+ * The snapshot is the pair of text files, or a BinarySnapshot file if one is
+ * configured (the text files are then only read when no binary snapshot exists yet).
+ * With an AppointmentArchive, appointments older than its horizon are moved
+ * out of the registry and the snapshot into the archive when saving. With the
+ * text files, histories can be loaded lazily (see AppointmentHistory).
+ */
+public class DataStore {
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 10_000;
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String COMPACTING_SUFFIX = ".compacting";
+
+    private final Path petsFile;
+    private final Path appointmentsFile;
+    private final Path journalFile;
+    private final Path binarySnapshotFile;
+    private final int compactionThreshold;
+    private final AppointmentArchive archive; // null keeps all history in the snapshot
+    private final AppointmentHistory history; // null loads all appointments eagerly
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private volatile Journal journal;
+
+    public DataStore(Path petsFile, Path appointmentsFile, Path journalFile) {
+        this(petsFile, appointmentsFile, journalFile, null, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public DataStore(Path petsFile, Path appointmentsFile, Path journalFile, int compactionThreshold) {
+        this(petsFile, appointmentsFile, journalFile, null, compactionThreshold);
+    }
+
+    /**
+     * @param binarySnapshotFile binary snapshot to use instead of the text files, or null
+     */
+    public DataStore(Path petsFile, Path appointmentsFile, Path journalFile, Path binarySnapshotFile,
+                     int compactionThreshold) {
+        this(petsFile, appointmentsFile, journalFile, binarySnapshotFile, compactionThreshold, null);
+    }
+
+    /**
+     * @param binarySnapshotFile binary snapshot to use instead of the text files, or null
+     * @param archive            where to move appointments past its horizon when saving, or null
+     */
+    public DataStore(Path petsFile, Path appointmentsFile, Path journalFile, Path binarySnapshotFile,
+                     int compactionThreshold, AppointmentArchive archive) {
+        this(petsFile, appointmentsFile, journalFile, binarySnapshotFile, compactionThreshold, archive, 0);
+    }
+
+    /**
+     * @param binarySnapshotFile        binary snapshot to use instead of the text files, or null
+     * @param archive                   where to move appointments past its horizon when saving, or null
+     * @param cachedHistoryAppointments with the text files, leave ended appointments in the appointments
+     *                                  file until needed and keep up to this many of them loaded; 0 loads
+     *                                  everything
+     */
+    public DataStore(Path petsFile, Path appointmentsFile, Path journalFile, Path binarySnapshotFile,
+                     int compactionThreshold, AppointmentArchive archive, int cachedHistoryAppointments) {
+        this(petsFile, appointmentsFile, journalFile, binarySnapshotFile, compactionThreshold, archive,
+                cachedHistoryAppointments, false);
+    }
+
+    /**
+     * @param columnarHistory hold the ended appointments left out of the loaded lists in
+     *                        primitive columns in memory rather than in the appointments file
+     *                        (see AppointmentHistory); only used with cachedHistoryAppointments
+     */
+    public DataStore(Path petsFile, Path appointmentsFile, Path journalFile, Path binarySnapshotFile,
+                     int compactionThreshold, AppointmentArchive archive, int cachedHistoryAppointments,
+                     boolean columnarHistory) {
+        this.petsFile = petsFile;
+        this.appointmentsFile = appointmentsFile;
+        this.journalFile = journalFile;
+        this.binarySnapshotFile = binarySnapshotFile;
+        this.compactionThreshold = compactionThreshold;
+        this.archive = archive;
+        this.history = binarySnapshotFile == null && cachedHistoryAppointments > 0
+                ? new AppointmentHistory(appointmentsFile, cachedHistoryAppointments, columnarHistory) : null;
+    }
+
+    public AppointmentArchive getArchive() {
+        return archive;
+    }
+
+    // Lazily loaded histories, or null
+    public AppointmentHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Load the snapshot, replay the journal, open it for appending (dropping a
+     * record torn by a crash) and restore the pets' archived vet visits.
+     * Returns {petStats, appointmentStats, journalStats}.
+     */
+    public BulkLoader.LoadStats[] load(PetRegistry registry) throws IOException {
+        recoverCompaction();
+        BulkLoader.LoadStats[] snapshot;
+        if (binarySnapshotFile != null && Files.exists(binarySnapshotFile)) {
+            snapshot = BinarySnapshot.read(binarySnapshotFile, registry);
+        } else if (history != null) {
+            snapshot = BulkLoader.loadAll(petsFile, appointmentsFile, registry, history, LocalDateTime.now());
+        } else {
+            snapshot = BulkLoader.loadAll(petsFile, appointmentsFile, registry);
+        }
+        BulkLoader.LoadStats replayed = Files.exists(journalFile)
+                ? BulkLoader.replayJournal(journalFile, registry) : new BulkLoader.LoadStats();
+        bytesRead.add(snapshot[0].getBytes() + snapshot[1].getBytes() + replayed.getBytes());
+        journal = new Journal(journalFile, bytesWritten, replayed.getValidLength());
+        journal.addReplayedRecords(replayed.getRows());
+        if (archive != null) {
+            archive.loadVetVisits(registry);
+        }
+        return new BulkLoader.LoadStats[] { snapshot[0], snapshot[1], replayed };
+    }
+
+    // Callers coordinate recording against save/compact (see SchedulerService)
+    public void recordPet(Pet pet) throws IOException {
+        Journal target = openJournal();
+        target.sync(target.append("P|" + petRecord(pet)));
+    }
+
+    // Journal several pets with a single sync
+    public void recordPets(List<Pet> pets) throws IOException {
+        Journal target = openJournal();
+        long last = 0;
+        for (Pet pet : pets) {
+            last = target.append("P|" + petRecord(pet));
+        }
+        target.sync(last);
+    }
+
+    public void recordAppointment(Pet pet, Appointment appointment) throws IOException {
+        Journal target = openJournal();
+        target.sync(target.append("A|" + appointmentRecord(pet, appointment)));
+    }
+
+    // Journal several appointments with a single sync
+    public void recordAppointments(List<Pet> pets, List<Appointment> appointments) throws IOException {
+        Journal target = openJournal();
+        long last = 0;
+        for (int i = 0; i < appointments.size(); i++) {
+            last = target.append("A|" + appointmentRecord(pets.get(i), appointments.get(i)));
+        }
+        target.sync(last);
+    }
+
+    public void recordRecurrence(Pet pet, RecurrenceRule rule) throws IOException {
+        Journal target = openJournal();
+        target.sync(target.append("A|" + recurrenceRecord(pet, rule)));
+    }
+
+    /**
+     * Make all journaled changes durable, compacting if the journal is large or
+     * appointments were archived
+     */
+    public void save(PetRegistry registry) throws IOException {
+        Journal target = openJournal();
+        target.syncAll();
+        boolean archived = archive != null
+                && archiveBefore(registry, LocalDateTime.now().minus(archive.getHorizon())) > 0;
+        if (archived || target.getRecordCount() >= compactionThreshold) {
+            compact(registry);
+        }
+    }
+
+    /**
+     * Move the appointments before the cutoff to the archive and out of the
+     * registry; returns how many were moved (none without an archive). They stay
+     * in the snapshot and journal until the next compaction, so after a crash in
+     * between they are archived again, and reads drop the copies. Callers hold
+     * off other changes (see SchedulerService).
+     */
+    public int archiveBefore(PetRegistry registry, LocalDateTime cutoff) throws IOException {
+        if (archive == null) {
+            return 0;
+        }
+        List<Pet> pets = new ArrayList<>();
+        List<Appointment> appointments = new ArrayList<>();
+        List<Pet> touched = new ArrayList<>();
+        for (Pet pet : registry.getPets()) {
+            List<Appointment> old = pet.getStoredAppointmentsBefore(cutoff);
+            if (!old.isEmpty()) {
+                touched.add(pet);
+                for (Appointment appointment : old) {
+                    pets.add(pet);
+                    appointments.add(appointment);
+                }
+            }
+        }
+        if (appointments.isEmpty()) {
+            return 0;
+        }
+        // Durable in the archive before leaving memory
+        archive.append(pets, appointments);
+        for (Pet pet : touched) {
+            pet.removeAppointmentsBefore(cutoff);
+        }
+        return appointments.size();
+    }
+
+    /**
+     * Write a full snapshot of the registry and start an empty journal.
+     * The old journal is renamed aside before the snapshot files are swapped in,
+     * so an interrupted compaction is rolled forward on the next load.
+     */
+    public void compact(PetRegistry registry) throws IOException {
+        Path[] snapshotFiles = snapshotFiles();
+        Map<AppointmentHistory.Segment, AppointmentHistory.Placement> historyPlacements = new IdentityHashMap<>();
+        if (binarySnapshotFile != null) {
+            BinarySnapshot.write(registry, sibling(binarySnapshotFile, TMP_SUFFIX));
+        } else {
+            writeSnapshot(registry, sibling(petsFile, TMP_SUFFIX), sibling(appointmentsFile, TMP_SUFFIX),
+                    historyPlacements);
+        }
+        for (Path snapshotFile : snapshotFiles) {
+            bytesWritten.add(Files.size(sibling(snapshotFile, TMP_SUFFIX)));
+        }
+
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        Path compacting = sibling(journalFile, COMPACTING_SUFFIX);
+        if (history != null) {
+            // Unloaded histories are read from the appointments file, so hold them off while it is replaced
+            history.swap(() -> swapIn(snapshotFiles, compacting), historyPlacements);
+        } else {
+            swapIn(snapshotFiles, compacting);
+        }
+        Files.delete(compacting);
+        journal = new Journal(journalFile, bytesWritten);
+    }
+
+    // Set the journal aside and move the new snapshot files in
+    private void swapIn(Path[] snapshotFiles, Path compacting) throws IOException {
+        if (Files.exists(journalFile)) {
+            Files.move(journalFile, compacting, StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            Files.createFile(compacting);
+        }
+        for (Path snapshotFile : snapshotFiles) {
+            Files.move(sibling(snapshotFile, TMP_SUFFIX), snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        if (history != null) {
+            history.close();
+        }
+    }
+
+    // Whether there is a snapshot or journal on disk, possibly from an interrupted compaction
+    boolean hasData() throws IOException {
+        List<Path> files = new ArrayList<>();
+        files.add(petsFile);
+        files.add(appointmentsFile);
+        files.add(journalFile);
+        files.add(sibling(journalFile, COMPACTING_SUFFIX));
+        if (binarySnapshotFile != null) {
+            files.add(binarySnapshotFile);
+        }
+        for (Path file : files) {
+            if (Files.exists(file) && Files.size(file) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A file next to the journal, e.g. to mark the store's data as being moved elsewhere
+    Path marker(String suffix) {
+        return sibling(journalFile, suffix);
+    }
+
+    // Rename the files, and the archive directory, with the suffix added once their data
+    // lives elsewhere; files already moved are skipped, so an interrupted move can be redone
+    void moveAside(String suffix) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        paths.add(petsFile);
+        paths.add(appointmentsFile);
+        paths.add(journalFile);
+        if (binarySnapshotFile != null) {
+            paths.add(binarySnapshotFile);
+        }
+        if (archive != null) {
+            paths.add(archive.getDirectory());
+        }
+        for (Path path : paths) {
+            if (Files.exists(path)) {
+                Path aside = sibling(path, suffix);
+                if (Files.isDirectory(aside)) {
+                    throw new IOException("Cannot move " + path + " aside, " + aside + " already exists");
+                }
+                Files.move(path, aside, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+    }
+
+    // Bytes of snapshot and journal read by load(), plus archive and history bytes read
+    public long getBytesRead() {
+        return bytesRead.sum() + (archive != null ? archive.getBytesRead() : 0)
+                + (history != null ? history.getBytesRead() : 0);
+    }
+
+    // Bytes of journal records, snapshots and archive files written
+    public long getBytesWritten() {
+        return bytesWritten.sum() + (archive != null ? archive.getBytesWritten() : 0);
+    }
+
+    /**
+     * Write the pipe-delimited pets and appointments files; recurrence rules
+     * follow their pet's appointments in the appointments file
+     */
+    public static void writeSnapshot(PetRegistry registry, Path pets, Path appointments) throws IOException {
+        writeSnapshot(registry, pets, appointments, new IdentityHashMap<>());
+    }
+
+    // Unloaded histories are copied over unparsed, ahead of their pet's other lines,
+    // and their places in the new appointments file are put in historyPlacements
+    private static void writeSnapshot(PetRegistry registry, Path pets, Path appointments,
+                                      Map<AppointmentHistory.Segment, AppointmentHistory.Placement> historyPlacements)
+            throws IOException {
+        try (BufferedWriter petWriter = Files.newBufferedWriter(pets, StandardCharsets.UTF_8)) {
+            for (Pet pet : registry.getPets()) {
+                petWriter.write(petRecord(pet));
+                petWriter.newLine();
+            }
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(appointments), 1 << 16)) {
+            long position = 0;
+            for (Pet pet : registry.getPets()) {
+                // Hold the pet's lock so its history and loaded list are written as one state
+                synchronized (pet) {
+                    AppointmentHistory.Segment history = pet.getHistory();
+                    if (history != null) {
+                        int written = history.copyTo(out);
+                        historyPlacements.put(history, new AppointmentHistory.Placement(position, written));
+                        position += written;
+                    }
+                    for (Appointment appointment : pet.getLoadedAppointments()) {
+                        position += writeLine(out, appointmentRecord(pet, appointment));
+                    }
+                    for (RecurrenceRule rule : pet.getRecurrences()) {
+                        position += writeLine(out, recurrenceRecord(pet, rule));
+                    }
+                }
+            }
+        }
+        force(pets);
+        force(appointments);
+    }
+
+    private static int writeLine(OutputStream out, String record) throws IOException {
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes);
+        out.write('\n');
+        return bytes.length + 1;
+    }
+
+    static String petRecord(Pet pet) {
+        return pet.getPetId() + "|" + pet.getName() + "|" + pet.getSpeciesBreed() +
+                "|" + pet.getAge() + "|" + pet.getOwnerName() + "|" + pet.getContactInfo() +
+                "|" + pet.getRegistrationDate();
+    }
+
+    static String appointmentRecord(Pet pet, Appointment appointment) {
+        return pet.getPetId() + "|" + appointment.getAppointmentType() +
+                "|" + appointment.getDateTime() + "|" + appointment.getNotes() +
+                "|" + appointment.getDurationMinutes();
+    }
+
+    // An appointment line with the repeat fields appended: interval, unit, and until or count
+    static String recurrenceRecord(Pet pet, RecurrenceRule rule) {
+        return pet.getPetId() + "|" + rule.getType().getName() +
+                "|" + rule.getStart() + "|" + rule.getNotes() +
+                "|" + rule.getDurationMinutes() + "|" + rule.getInterval() + "|" + rule.getUnit().name() +
+                "|" + (rule.getUntil() != null ? rule.getUntil() : Integer.toString(rule.getCount()));
+    }
+
+    // Finish or discard a compaction interrupted by a crash
+    private void recoverCompaction() throws IOException {
+        Path compacting = sibling(journalFile, COMPACTING_SUFFIX);
+        boolean rollForward = Files.exists(compacting);
+        for (Path snapshotFile : snapshotFiles()) {
+            Path tmp = sibling(snapshotFile, TMP_SUFFIX);
+            if (!rollForward) {
+                Files.deleteIfExists(tmp);
+            } else if (Files.exists(tmp)) {
+                // The new snapshot was complete before the journal was set aside
+                Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        Files.deleteIfExists(compacting);
+    }
+
+    private Path[] snapshotFiles() {
+        return binarySnapshotFile != null
+                ? new Path[] { binarySnapshotFile }
+                : new Path[] { petsFile, appointmentsFile };
+    }
+
+    private synchronized Journal openJournal() throws IOException {
+        if (journal == null) {
+            journal = new Journal(journalFile, bytesWritten);
+        }
+        return journal;
+    }
+
+    private static Path sibling(Path file, String suffix) {
+        Path parent = file.toAbsolutePath().getParent();
+        String name = file.getFileName() + suffix;
+        return parent == null ? Paths.get(name) : parent.resolve(name);
+    }
+
+    private static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package PetCareScheduler;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Append-only journal of mutations with group-commit fsync.
+ * Each record is written to the file as soon as it is appended; sync() forces
+ * every record appended so far in one fsync, so concurrent writers share it.
+ */
+public class Journal implements Closeable {
+    private final FileChannel channel;
+    private final Object syncLock = new Object();
+    private long appendedSeq;
+    private volatile long syncedSeq;
+    private long records;
+    private final LongAdder bytesWritten;
+
+    public Journal(Path file) throws IOException {
+        this(file, new LongAdder());
+    }
+
+    // Adds the size of each appended record to bytesWritten
+    Journal(Path file, LongAdder bytesWritten) throws IOException {
+        this(file, bytesWritten, -1);
+    }
+
+    /**
+     * Open the journal, first cutting it to validLength bytes (unless negative) so
+     * new records do not land on the end of a record torn by a crash
+     */
+    Journal(Path file, LongAdder bytesWritten, long validLength) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.bytesWritten = bytesWritten;
+        if (validLength >= 0 && channel.size() > validLength) {
+            try {
+                channel.truncate(validLength);
+                channel.force(true);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Append one record (without line terminator); returns its sequence number
+     */
+    public synchronized long append(String record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+        bytesWritten.add(buffer.remaining());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        records++;
+        return ++appendedSeq;
+    }
+
+    /**
+     * Make every record up to the given sequence number durable
+     */
+    public void sync(long seq) throws IOException {
+        if (syncedSeq >= seq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedSeq >= seq) {
+                return; // Another writer's fsync already covered this record
+            }
+            long target = getAppendedSeq();
+            channel.force(false);
+            syncedSeq = target;
+        }
+    }
+
+    /**
+     * Make every record appended so far durable
+     */
+    public void syncAll() throws IOException {
+        sync(getAppendedSeq());
+    }
+
+    public synchronized long getAppendedSeq() {
+        return appendedSeq;
+    }
+
+    // Records in the file, including those replayed from a previous run
+    public synchronized long getRecordCount() {
+        return records;
+    }
+
+    synchronized void addReplayedRecords(long count) {
+        records += count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncAll();
+        channel.close();
+    }
+}
@@ -0,0 +1,227 @@
+package PetCareScheduler;
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Report rows as JSON in UTF-8: each report is one object on its own line,
+ * {"report": title, "rows": [...]}, plus a "message" when it found nothing.
+ * Rows carry the same fields as the CSV columns; pet headers are not written.
+ */
+public class JsonReportSink implements ReportSink {
+    private final Writer writer;
+    private final CharArrayWriter buffer; // Set for partitions, which render into memory
+    private final boolean closeStream;
+    private final StringBuilder line = new StringBuilder(256);
+    private boolean inReport;
+    private int rows; // Rows in the current report
+
+    /**
+     * Write to a stream; closing the sink only closes the stream if closeStream is set
+     */
+    public JsonReportSink(OutputStream out, boolean closeStream) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        this.buffer = null;
+        this.closeStream = closeStream;
+    }
+
+    private JsonReportSink(CharArrayWriter buffer) {
+        this.writer = buffer;
+        this.buffer = buffer;
+        this.closeStream = false;
+    }
+
+    @Override
+    public void beginReport(String title) throws IOException {
+        endReport(null);
+        line.append("{\"report\":");
+        string(line, title).append(",\"rows\":[");
+        write();
+        inReport = true;
+    }
+
+    @Override
+    public void petHeader(Pet pet, boolean withContact) {
+    }
+
+    @Override
+    public void appointment(Pet pet, Appointment appointment) throws IOException {
+        beginRow();
+        petColumns(pet);
+        line.append(',');
+        appointmentFields(line, appointment);
+        endRow();
+    }
+
+    @Override
+    public void lastVetVisit(Pet pet, LocalDateTime lastVetVisit) throws IOException {
+        beginRow();
+        petColumns(pet);
+        line.append(",\"lastVetVisit\":");
+        if (lastVetVisit == null) {
+            line.append("null");
+        } else {
+            line.append('"');
+            Pet.DATE_FORMAT.formatTo(lastVetVisit, line);
+            line.append('"');
+        }
+        endRow();
+    }
+
+    @Override
+    public void pet(Pet pet) throws IOException {
+        beginRow();
+        petFields(line, pet);
+        endRow();
+    }
+
+    @Override
+    public void noResults(String message) throws IOException {
+        endReport(message);
+    }
+
+    @Override
+    public ReportSink partition() {
+        return new JsonReportSink(new CharArrayWriter(1 << 16));
+    }
+
+    @Override
+    public void append(ReportSink partition) throws IOException {
+        JsonReportSink rendered = (JsonReportSink) partition;
+        if (rendered.rows > 0) {
+            if (rows > 0) {
+                writer.write(',');
+            }
+            rendered.buffer.writeTo(writer);
+            rows += rendered.rows;
+        }
+    }
+
+    /**
+     * Append a pet's fields (without braces): petId, name, speciesBreed, age,
+     * ownerName, contactInfo, registrationDate and the number of appointments
+     */
+    static StringBuilder petFields(StringBuilder out, Pet pet) {
+        out.append("\"petId\":");
+        string(out, pet.getPetId()).append(",\"name\":");
+        string(out, pet.getName()).append(",\"speciesBreed\":");
+        string(out, pet.getSpeciesBreed()).append(",\"age\":").append(pet.getAge()).append(",\"ownerName\":");
+        string(out, pet.getOwnerName()).append(",\"contactInfo\":");
+        string(out, pet.getContactInfo()).append(",\"registrationDate\":\"");
+        Pet.DATE_FORMAT.formatTo(pet.getRegistrationDate(), out);
+        return out.append("\",\"appointments\":").append(pet.getAppointmentCount());
+    }
+
+    /**
+     * Append an appointment's fields (without braces): type, dateTime, durationMinutes and notes
+     */
+    static StringBuilder appointmentFields(StringBuilder out, Appointment appointment) {
+        out.append("\"type\":");
+        string(out, appointment.getAppointmentType()).append(",\"dateTime\":\"");
+        Appointment.DATE_TIME_FORMAT.formatTo(appointment.getDateTime(), out);
+        out.append("\",\"durationMinutes\":").append(appointment.getDurationMinutes()).append(",\"notes\":");
+        return string(out, appointment.getNotes());
+    }
+
+    /**
+     * Append a value as a JSON string, or null
+     */
+    static StringBuilder string(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    // Report rows' pet columns, named as in the CSV output
+    private void petColumns(Pet pet) {
+        line.append("\"petId\":");
+        string(line, pet.getPetId()).append(",\"petName\":");
+        string(line, pet.getName()).append(",\"ownerName\":");
+        string(line, pet.getOwnerName()).append(",\"contactInfo\":");
+        string(line, pet.getContactInfo());
+    }
+
+    private void beginRow() {
+        if (rows > 0) {
+            line.append(',');
+        }
+        line.append('{');
+    }
+
+    private void endRow() throws IOException {
+        line.append('}');
+        write();
+        rows++;
+    }
+
+    // Close the open report, if any, with an optional message
+    private void endReport(String message) throws IOException {
+        if (!inReport) {
+            return;
+        }
+        line.append(']');
+        if (message != null) {
+            string(line.append(",\"message\":"), message);
+        }
+        line.append("}\n");
+        write();
+        inReport = false;
+        rows = 0;
+    }
+
+    private void write() throws IOException {
+        writer.append(line);
+        line.setLength(0);
+    }
+
+    /**
+     * Flush the rows written so far; the open report is only closed by the next report or close()
+     */
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        endReport(null);
+        if (closeStream) {
+            writer.close();
+        } else {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package PetCareScheduler;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MXBean;
+import javax.management.ObjectName;
+
+/**
+ * Always-on instrumentation: a latency histogram and counter per hot operation,
+ * plus pet, appointment and I/O byte gauges read from the data when asked.
+ *
+ * Timing an operation is two nanoTime calls and a lock-free histogram update,
+ * with no allocation. The numbers can be read over JMX (domain PetCareScheduler)
+ * and appended to a text file periodically.
+ */
+public class Metrics {
+
+    public enum Operation {
+        LOAD("load"),
+        SAVE("save"),
+        FIND_PET("findPet"),
+        SEARCH_PETS("searchPets"),
+        REGISTER_PET("registerPet"),
+        SCHEDULE_APPOINTMENT("scheduleAppointment"),
+        SCHEDULE_RECURRENCE("scheduleRecurrence"),
+        BOOK_BATCH("bookBatch"),
+        REPORT_ALL_PETS("allPetsReport"),
+        REPORT_UPCOMING("upcomingReport"),
+        REPORT_PAST("pastReport"),
+        REPORT_WEEKLY("weeklyReport"),
+        REPORT_OVERDUE_VET("overdueVetReport"),
+        HTTP_REQUEST("httpRequest");
+
+        private final String displayName;
+
+        Operation(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    /**
+     * JMX view of the data gauges (PetCareScheduler:type=Scheduler)
+     */
+    @MXBean
+    public interface SchedulerStats {
+        long getPetCount();
+
+        long getAppointmentCount();
+
+        long getBytesRead();
+
+        long getBytesWritten();
+    }
+
+    /**
+     * JMX view of one operation (PetCareScheduler:type=Operation,name=...); times in microseconds
+     */
+    @MXBean
+    public interface OperationStats {
+        long getCount();
+
+        double getMeanMicros();
+
+        double getP50Micros();
+
+        double getP99Micros();
+
+        double getP999Micros();
+
+        double getMaxMicros();
+
+        void reset();
+    }
+
+    private static final class OperationMetrics implements OperationStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        @Override
+        public long getCount() {
+            return latency.getCount();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return latency.getMean() / 1000;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return latency.getPercentile(50) / 1000.0;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return latency.getPercentile(99) / 1000.0;
+        }
+
+        @Override
+        public double getP999Micros() {
+            return latency.getPercentile(99.9) / 1000.0;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return latency.getMax() / 1000.0;
+        }
+
+        @Override
+        public void reset() {
+            latency.reset();
+        }
+    }
+
+    private static final class Gauges implements SchedulerStats {
+        final LongSupplier pets;
+        final LongSupplier appointments;
+        final LongSupplier bytesRead;
+        final LongSupplier bytesWritten;
+
+        Gauges(LongSupplier pets, LongSupplier appointments, LongSupplier bytesRead, LongSupplier bytesWritten) {
+            this.pets = pets;
+            this.appointments = appointments;
+            this.bytesRead = bytesRead;
+            this.bytesWritten = bytesWritten;
+        }
+
+        @Override
+        public long getPetCount() {
+            return pets.getAsLong();
+        }
+
+        @Override
+        public long getAppointmentCount() {
+            return appointments.getAsLong();
+        }
+
+        @Override
+        public long getBytesRead() {
+            return bytesRead.getAsLong();
+        }
+
+        @Override
+        public long getBytesWritten() {
+            return bytesWritten.getAsLong();
+        }
+    }
+
+    private final Map<Operation, OperationMetrics> operations = new EnumMap<>(Operation.class);
+    private final Gauges gauges;
+    private ScheduledExecutorService dumper;
+    private Path dumpFile;
+
+    /**
+     * Metrics without gauges
+     */
+    public Metrics() {
+        this(() -> 0, () -> 0, () -> 0, () -> 0);
+    }
+
+    public Metrics(LongSupplier pets, LongSupplier appointments, LongSupplier bytesRead, LongSupplier bytesWritten) {
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, new OperationMetrics());
+        }
+        this.gauges = new Gauges(pets, appointments, bytesRead, bytesWritten);
+    }
+
+    /**
+     * Record an operation that started at startNanos (from System.nanoTime()) and has just ended
+     */
+    public void record(Operation operation, long startNanos) {
+        operations.get(operation).latency.record(System.nanoTime() - startNanos);
+    }
+
+    public LatencyHistogram getLatency(Operation operation) {
+        return operations.get(operation).latency;
+    }
+
+    public SchedulerStats getGauges() {
+        return gauges;
+    }
+
+    /**
+     * Register the MXBeans with the platform MBean server, replacing any registered before
+     */
+    public void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            register(server, gauges, new ObjectName("PetCareScheduler:type=Scheduler"));
+            for (Map.Entry<Operation, OperationMetrics> entry : operations.entrySet()) {
+                register(server, entry.getValue(), new ObjectName("PetCareScheduler:type=Operation,name="
+                        + entry.getKey().getDisplayName()));
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics MBeans", e);
+        }
+    }
+
+    private static void register(MBeanServer server, Object bean, ObjectName name) throws JMException {
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(bean, name);
+    }
+
+    /**
+     * Append a dump to the file every interval, on a daemon thread, until stopDump()
+     */
+    public synchronized void startDump(Path file, Duration interval) {
+        stopDump();
+        dumpFile = file;
+        dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        dumper.scheduleAtFixedRate(() -> dumpTo(file), millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop periodic dumps, appending a last one so short runs are covered too
+     */
+    public synchronized void stopDump() {
+        if (dumper != null) {
+            dumper.shutdown();
+            dumper = null;
+            dumpTo(dumpFile);
+        }
+    }
+
+    private void dumpTo(Path file) {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), false, "UTF-8")) {
+            dump(out);
+        } catch (IOException e) {
+            System.err.println("Could not write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write the gauges and every operation that has run, one line each
+     */
+    public void dump(PrintStream out) {
+        out.println(LocalDateTime.now().withNano(0) + " pets=" + gauges.getPetCount()
+                + " appointments=" + gauges.getAppointmentCount()
+                + " bytesRead=" + gauges.getBytesRead() + " bytesWritten=" + gauges.getBytesWritten());
+        for (Map.Entry<Operation, OperationMetrics> entry : operations.entrySet()) {
+            OperationMetrics stats = entry.getValue();
+            if (stats.getCount() == 0) {
+                continue;
+            }
+            out.println(String.format(Locale.ROOT,
+                    "  %-20s count=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                    entry.getKey().getDisplayName(), stats.getCount(), stats.getMeanMicros(),
+                    stats.getP50Micros(), stats.getP99Micros(), stats.getP999Micros(), stats.getMaxMicros()));
+        }
+    }
+}
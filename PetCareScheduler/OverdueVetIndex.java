@@ -0,0 +1,106 @@
+package PetCareScheduler;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pets ordered by their last vet visit (never-visited first), kept up to date
+ * as appointments change, so "who is overdue as of a date" is a head scan
+ * over just the overdue pets.
+ */
+public class OverdueVetIndex implements PetListener {
+    private static final class Entry {
+        final Pet pet;
+        final LocalDateTime lastVetVisit; // null = never
+        final long order;                 // Registration order, breaks ties
+
+        Entry(Pet pet, LocalDateTime lastVetVisit, long order) {
+            this.pet = pet;
+            this.lastVetVisit = lastVetVisit;
+            this.order = order;
+        }
+    }
+
+    private static final Comparator<Entry> BY_LAST_VISIT = Comparator
+            .comparing((Entry entry) -> entry.lastVetVisit, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingLong(entry -> entry.order);
+
+    private final ConcurrentSkipListSet<Entry> byLastVisit = new ConcurrentSkipListSet<>(BY_LAST_VISIT);
+    private final ConcurrentMap<Pet, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong registrations = new AtomicLong();
+
+    /**
+     * Pets whose last vet visit is before the cutoff (or who never had one),
+     * in registration order
+     */
+    public List<Pet> overdueAsOf(LocalDateTime cutoff) {
+        List<Entry> overdue = new ArrayList<>(byLastVisit.headSet(new Entry(null, cutoff, Long.MIN_VALUE)));
+        overdue.sort(Comparator.comparingLong(entry -> entry.order));
+        List<Pet> pets = new ArrayList<>(overdue.size());
+        for (Entry entry : overdue) {
+            pets.add(entry.pet);
+        }
+        return pets;
+    }
+
+    @Override
+    public void petRegistered(Pet pet) {
+        refresh(pet);
+    }
+
+    @Override
+    public void appointmentAdded(Pet pet, Appointment appointment) {
+        if (Pet.isVetVisit(appointment)) {
+            refresh(pet);
+        }
+    }
+
+    @Override
+    public void appointmentRemoved(Pet pet, Appointment appointment) {
+        if (Pet.isVetVisit(appointment)) {
+            refresh(pet);
+        }
+    }
+
+    @Override
+    public void petUpdated(Pet pet) {
+        refresh(pet);
+    }
+
+    @Override
+    public void recurrenceAdded(Pet pet, RecurrenceRule rule) {
+        if (rule.getType().isVet()) {
+            refresh(pet);
+        }
+    }
+
+    @Override
+    public void recurrenceRemoved(Pet pet, RecurrenceRule rule) {
+        if (rule.getType().isVet()) {
+            refresh(pet);
+        }
+    }
+
+    // Re-position the pet if its last vet visit changed; runs under the pet's lock,
+    // or during registration before the pet is visible to other threads
+    private void refresh(Pet pet) {
+        LocalDateTime lastVetVisit = pet.getLastVetVisit();
+        Entry current = entries.get(pet);
+        if (current != null && Objects.equals(current.lastVetVisit, lastVetVisit)) {
+            return;
+        }
+        long order = current != null ? current.order : registrations.getAndIncrement();
+        Entry updated = new Entry(pet, lastVetVisit, order);
+        byLastVisit.add(updated);
+        entries.put(pet, updated);
+        if (current != null) {
+            byLastVisit.remove(current);
+        }
+    }
+}
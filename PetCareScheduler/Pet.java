@@ -1,13 +1,28 @@
 package PetCareScheduler;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
- * Represents a Pet with all necessary information and appointments
+ * Represents a Pet with all necessary information and appointments.
+ * Appointment changes are guarded by the pet's own monitor, so threads
+ * scheduling for different pets never contend.
+ *
+ * When loaded lazily, the appointments that had already ended may be left in
+ * the data file as a history segment (see AppointmentHistory); methods that
+ * list or search the whole history read it in, the others never touch it.
  */
 public class Pet {
+    static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
     private String petId;
     private String name;
     private String speciesBreed;
@@ -15,7 +30,14 @@ public class Pet {
     private String ownerName;
     private String contactInfo;
     private LocalDate registrationDate;
-    private List<Appointment> appointments;
+    private List<Appointment> appointments; // Kept sorted by date-time
+    private List<Appointment> appointmentsView;
+    private int longestMinutes; // Longest appointment ever held, so overlap checks know how far back to look
+    private List<RecurrenceRule> recurrences = Collections.emptyList(); // Allocated on first use
+    private LocalDateTime lastVetVisit; // Latest vet appointment or occurrence, maintained on add/remove
+    private LocalDateTime archivedVetVisit; // Latest vet appointment moved to the archive, or null
+    private AppointmentHistory.Segment history; // Ended appointments still in the data file, or null
+    private PetListener listener;
 
     // Constructor
     public Pet(String petId, String name, String speciesBreed, int age, 
@@ -28,11 +50,13 @@ public class Pet {
         this.contactInfo = contactInfo;
         this.registrationDate = registrationDate;
         this.appointments = new ArrayList<>();
+        this.appointmentsView = Collections.unmodifiableList(appointments);
     }
 
     // Default constructor
     public Pet() {
         this.appointments = new ArrayList<>();
+        this.appointmentsView = Collections.unmodifiableList(appointments);
         this.registrationDate = LocalDate.now();
     }
 
@@ -65,12 +89,125 @@ public class Pet {
         return registrationDate;
     }
 
-    public List<Appointment> getAppointments() {
-        return new ArrayList<>(appointments); // Return copy to maintain encapsulation
+    // Read-only copy sorted by date-time, taken under the pet's lock so other threads may
+    // keep scheduling; forEachAppointment and getAppointmentsBetween avoid copying everything
+    public synchronized List<Appointment> getAppointments() {
+        return Collections.unmodifiableList(history != null
+                ? merged(readHistory(), appointments) : new ArrayList<>(appointments));
+    }
+
+    // Live view of the appointments held in memory, without any unloaded history;
+    // only iterate it while holding the pet's lock
+    List<Appointment> getLoadedAppointments() {
+        return appointmentsView;
+    }
+
+    synchronized AppointmentHistory.Segment getHistory() {
+        return history;
+    }
+
+    // Called when loading lazily, once the pet is registered
+    synchronized void setHistory(AppointmentHistory.Segment segment) {
+        history = segment;
+        if (listener != null) {
+            listener.historyAttached(this);
+        }
+        LocalDateTime visit = segment.getLastVetVisit();
+        if (visit != null && (lastVetVisit == null || visit.isAfter(lastVetVisit))) {
+            lastVetVisit = visit;
+            if (listener != null) {
+                listener.petUpdated(this);
+            }
+        }
+    }
+
+    // Recurrence rules, in the order they were added
+    public synchronized List<RecurrenceRule> getRecurrences() {
+        return new ArrayList<>(recurrences);
+    }
+
+    public synchronized boolean hasRecurrences() {
+        return !recurrences.isEmpty();
+    }
+
+    // Date-time of the latest vet appointment, or null if there has been none
+    public synchronized LocalDateTime getLastVetVisit() {
+        return lastVetVisit;
+    }
+
+    public static boolean isVetVisit(Appointment appointment) {
+        return appointment.getType().isVet();
+    }
+
+    public synchronized int getAppointmentCount() {
+        return appointments.size() + (history != null ? history.getCount() : 0);
+    }
+
+    // Visit each appointment in date-time order without copying or exposing the list.
+    // The action runs with the pet's lock held, so it must not block or lock other pets
+    public synchronized void forEachAppointment(Consumer<? super Appointment> action) {
+        List<Appointment> all = history != null ? merged(readHistory(), appointments) : appointments;
+        for (int i = 0; i < all.size(); i++) {
+            action.accept(all.get(i));
+        }
+    }
+
+    // Copy of the appointments, including occurrences of recurrence rules, starting after
+    // from (or at it, if fromInclusive) and before to (or at it, if toInclusive), in
+    // date-time order; a null bound is open
+    public synchronized List<Appointment> getAppointmentsBetween(LocalDateTime from, boolean fromInclusive,
+                                                                 LocalDateTime to, boolean toInclusive) {
+        int start = from == null ? 0 : countBefore(appointments, from, !fromInclusive);
+        int end = to == null ? appointments.size() : countBefore(appointments, to, toInclusive);
+        List<Appointment> result = start >= end
+                ? Collections.emptyList() : new ArrayList<>(appointments.subList(start, end));
+        if (history != null && history.overlaps(from, to)) {
+            List<Appointment> older = readHistory();
+            int olderStart = from == null ? 0 : countBefore(older, from, !fromInclusive);
+            int olderEnd = to == null ? older.size() : countBefore(older, to, toInclusive);
+            if (olderStart < olderEnd) {
+                result = merged(older.subList(olderStart, olderEnd), result);
+            }
+        }
+        if (recurrences.isEmpty()) {
+            return result;
+        }
+
+        result = new ArrayList<>(result);
+        for (RecurrenceRule rule : recurrences) {
+            result.addAll(rule.occurrencesBetween(from, fromInclusive, to, toInclusive));
+        }
+        result.sort(Comparator.comparing(Appointment::getDateTime));
+        return result;
+    }
+
+    // Latest appointment matching the filter, or null
+    public synchronized Appointment findLastAppointment(Predicate<? super Appointment> filter) {
+        Appointment latest = findLast(appointments, filter);
+        if (history != null) {
+            Appointment older = findLast(readHistory(), filter);
+            if (older != null && (latest == null || older.getDateTime().isAfter(latest.getDateTime()))) {
+                latest = older;
+            }
+        }
+        return latest;
+    }
+
+    private static Appointment findLast(List<Appointment> list, Predicate<? super Appointment> filter) {
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (filter.test(list.get(i))) {
+                return list.get(i);
+            }
+        }
+        return null;
     }
 
     // Setters
-    public void setPetId(String petId) {
+    // The registry and its indexes are keyed by the ID, so it is fixed once the pet is registered
+    public synchronized void setPetId(String petId) {
+        if (listener != null) {
+            throw new IllegalStateException("A registered pet's ID cannot change");
+        }
         this.petId = petId;
     }
 
@@ -90,40 +227,319 @@ public class Pet {
         }
     }
 
-    public void setOwnerName(String ownerName) {
+    // Owner name and contact info are indexed, so changes notify the listener
+    public synchronized void setOwnerName(String ownerName) {
         this.ownerName = ownerName;
+        if (listener != null) {
+            listener.petUpdated(this);
+        }
     }
 
-    public void setContactInfo(String contactInfo) {
+    public synchronized void setContactInfo(String contactInfo) {
         this.contactInfo = contactInfo;
+        if (listener != null) {
+            listener.petUpdated(this);
+        }
     }
 
     public void setRegistrationDate(LocalDate registrationDate) {
         this.registrationDate = registrationDate;
     }
 
+    // Existing appointment or recurring occurrence whose slot overlaps [start, end), or
+    // null. Loaded and imported slots may overlap each other, so every appointment
+    // starting within the longest duration before end is checked: O(log n + k).
+    // An unloaded history ended before the load, so it cannot overlap a booking.
+    public synchronized Appointment findOverlap(LocalDateTime start, LocalDateTime end) {
+        for (RecurrenceRule rule : recurrences) {
+            Appointment occurrence = rule.findOverlap(start, end);
+            if (occurrence != null) {
+                return occurrence;
+            }
+        }
+
+        int low = 0;
+        int high = appointments.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (appointments.get(mid).getDateTime().isBefore(end)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        LocalDateTime horizon = start.minusMinutes(longestMinutes);
+        for (int i = low - 1; i >= 0 && appointments.get(i).getDateTime().isAfter(horizon); i--) {
+            if (appointments.get(i).overlaps(start, end)) {
+                return appointments.get(i);
+            }
+        }
+        return null;
+    }
+
+    // Called by the registry: hands over existing appointments and rules and starts
+    // notifying the listener, atomically with respect to concurrent changes
+    // (an unloaded history is never handed over)
+    synchronized void attach(PetListener listener, Consumer<Appointment> existing,
+                             Consumer<RecurrenceRule> existingRules) {
+        appointments.forEach(existing);
+        recurrences.forEach(existingRules);
+        this.listener = listener;
+    }
+
     // Methods to manage appointments
-    public void addAppointment(Appointment appointment) {
-        appointments.add(appointment);
+    public synchronized void addAppointment(Appointment appointment) {
+        appointments.add(insertionPoint(appointment), appointment);
+        appointment.setBooked(true);
+        longestMinutes = Math.max(longestMinutes, appointment.getDurationMinutes());
+        if (isVetVisit(appointment) && (lastVetVisit == null || appointment.getDateTime().isAfter(lastVetVisit))) {
+            lastVetVisit = appointment.getDateTime();
+        }
+        if (listener != null) {
+            listener.appointmentAdded(this, appointment);
+        }
     }
 
-    public boolean removeAppointment(Appointment appointment) {
-        return appointments.remove(appointment);
+    // Add several appointments in one merge pass over the list instead of an
+    // insertion each; the listener still hears of every appointment
+    public synchronized void addAppointments(List<Appointment> added) {
+        if (added.size() == 1) {
+            addAppointment(added.get(0));
+            return;
+        }
+        List<Appointment> sorted = new ArrayList<>(added);
+        sorted.sort(Comparator.comparing(Appointment::getDateTime));
+        mergeIn(sorted);
+
+        for (Appointment appointment : sorted) {
+            if (isVetVisit(appointment) && (lastVetVisit == null || appointment.getDateTime().isAfter(lastVetVisit))) {
+                lastVetVisit = appointment.getDateTime();
+            }
+            if (listener != null) {
+                listener.appointmentAdded(this, appointment);
+            }
+        }
+    }
+
+    public synchronized boolean removeAppointment(Appointment appointment) {
+        if (history != null && !appointments.contains(appointment) && readHistory().contains(appointment)) {
+            loadHistory();
+        }
+        boolean removed = appointments.remove(appointment);
+        if (removed) {
+            appointment.setBooked(false);
+        }
+        if (removed && isVetVisit(appointment) && appointment.getDateTime().equals(lastVetVisit)) {
+            lastVetVisit = latestVetVisit();
+        }
+        if (removed && listener != null) {
+            listener.appointmentRemoved(this, appointment);
+        }
+        return removed;
+    }
+
+    // Remove the appointments before the cutoff, which have been archived, and return them.
+    // The last vet visit is kept even if it was one of them. An unloaded history is only
+    // narrowed to the appointments from the cutoff on, which stay unloaded
+    synchronized List<Appointment> removeAppointmentsBefore(LocalDateTime cutoff) {
+        List<Appointment> prefix = appointments.subList(0, countBefore(appointments, cutoff, false));
+        List<Appointment> removed = new ArrayList<>(prefix);
+        prefix.clear();
+        if (listener != null) {
+            for (Appointment appointment : removed) {
+                listener.appointmentRemoved(this, appointment);
+            }
+        }
+        if (history != null && history.getFirst().isBefore(cutoff)) {
+            // The listener never heard of the history's appointments, so it is not told of their removal
+            List<Appointment> older = readHistory();
+            int archived = countBefore(older, cutoff, false);
+            removed = merged(older.subList(0, archived), removed);
+            history = history.from(cutoff, older.subList(archived, older.size()));
+        }
+        for (Appointment appointment : removed) {
+            appointment.setBooked(false);
+            if (isVetVisit(appointment) && (archivedVetVisit == null || appointment.getDateTime().isAfter(archivedVetVisit))) {
+                archivedVetVisit = appointment.getDateTime();
+            }
+        }
+        return removed;
+    }
+
+    // Stored appointments (not rule occurrences) before the cutoff, in date-time order
+    synchronized List<Appointment> getStoredAppointmentsBefore(LocalDateTime cutoff) {
+        List<Appointment> result = new ArrayList<>(appointments.subList(0, countBefore(appointments, cutoff, false)));
+        if (history != null && history.getFirst().isBefore(cutoff)) {
+            List<Appointment> older = readHistory();
+            result = merged(older.subList(0, countBefore(older, cutoff, false)), result);
+        }
+        return result;
+    }
+
+    // Called when loading: the latest vet visit already in the archive
+    synchronized void setArchivedVetVisit(LocalDateTime visit) {
+        if (archivedVetVisit != null && !visit.isAfter(archivedVetVisit)) {
+            return;
+        }
+        archivedVetVisit = visit;
+        if (lastVetVisit == null || visit.isAfter(lastVetVisit)) {
+            lastVetVisit = visit;
+            if (listener != null) {
+                listener.petUpdated(this);
+            }
+        }
+    }
+
+    // Recurrence rules; only the rule is stored, occurrences are computed when queried
+    public synchronized void addRecurrence(RecurrenceRule rule) {
+        if (recurrences.isEmpty()) {
+            recurrences = new ArrayList<>(2);
+        }
+        recurrences.add(rule);
+        if (rule.getType().isVet() && (lastVetVisit == null || rule.getLast().isAfter(lastVetVisit))) {
+            lastVetVisit = rule.getLast();
+        }
+        if (listener != null) {
+            listener.recurrenceAdded(this, rule);
+        }
+    }
+
+    public synchronized boolean removeRecurrence(RecurrenceRule rule) {
+        boolean removed = recurrences.remove(rule);
+        if (removed && rule.getType().isVet() && rule.getLast().equals(lastVetVisit)) {
+            lastVetVisit = latestVetVisit();
+        }
+        if (removed && listener != null) {
+            listener.recurrenceRemoved(this, rule);
+        }
+        return removed;
+    }
+
+    // Latest vet appointment (archived, unloaded or not) or recurring vet occurrence, or null
+    private LocalDateTime latestVetVisit() {
+        Appointment latest = findLast(appointments, Pet::isVetVisit);
+        LocalDateTime result = latest == null ? archivedVetVisit : latest.getDateTime();
+        if (archivedVetVisit != null && archivedVetVisit.isAfter(result)) {
+            result = archivedVetVisit;
+        }
+        LocalDateTime unloaded = history != null ? history.getLastVetVisit() : null;
+        if (unloaded != null && (result == null || unloaded.isAfter(result))) {
+            result = unloaded;
+        }
+        for (RecurrenceRule rule : recurrences) {
+            if (rule.getType().isVet() && (result == null || rule.getLast().isAfter(result))) {
+                result = rule.getLast();
+            }
+        }
+        return result;
+    }
+
+    // The unloaded history, read through its cache
+    private List<Appointment> readHistory() {
+        try {
+            return history.load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the appointment history of pet " + petId, e);
+        }
+    }
+
+    // Move the unloaded history into the list and tell the listener of its appointments,
+    // so the indexes cover everything held in memory
+    private void loadHistory() {
+        List<Appointment> older = readHistory();
+        history.release();
+        history = null;
+        mergeIn(older);
+        if (listener != null) {
+            for (Appointment appointment : older) {
+                listener.appointmentAdded(this, appointment);
+            }
+        }
+    }
+
+    // Merge sorted appointments into the list in one pass; they go after existing ones at the same time
+    private void mergeIn(List<Appointment> sorted) {
+        // Grow the list, then merge from the back
+        int i = appointments.size() - 1;
+        int j = sorted.size() - 1;
+        appointments.addAll(sorted);
+        for (Appointment appointment : sorted) {
+            appointment.setBooked(true);
+            longestMinutes = Math.max(longestMinutes, appointment.getDurationMinutes());
+        }
+        for (int k = appointments.size() - 1; j >= 0; k--) {
+            if (i >= 0 && appointments.get(i).getDateTime().isAfter(sorted.get(j).getDateTime())) {
+                appointments.set(k, appointments.get(i--));
+            } else {
+                appointments.set(k, sorted.get(j--));
+            }
+        }
+    }
+
+    // Two sorted lists merged into a new one; at the same time, older's entries come first
+    private static List<Appointment> merged(List<Appointment> older, List<Appointment> newer) {
+        List<Appointment> result = new ArrayList<>(older.size() + newer.size());
+        int i = 0;
+        int j = 0;
+        while (i < older.size() || j < newer.size()) {
+            if (j == newer.size()
+                    || i < older.size() && !older.get(i).getDateTime().isAfter(newer.get(j).getDateTime())) {
+                result.add(older.get(i++));
+            } else {
+                result.add(newer.get(j++));
+            }
+        }
+        return result;
+    }
+
+    // Number of appointments in a sorted list before time (or at it too, if includeEqual)
+    static int countBefore(List<Appointment> list, LocalDateTime time, boolean includeEqual) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            LocalDateTime dateTime = list.get(mid).getDateTime();
+            if (dateTime.isBefore(time) || includeEqual && dateTime.isEqual(time)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Binary search for the slot after any appointment at the same or earlier time
+    private int insertionPoint(Appointment appointment) {
+        int low = 0;
+        int high = appointments.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (appointments.get(mid).getDateTime().isAfter(appointment.getDateTime())) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
     }
 
     // Override toString method
     @Override
     public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        return "Pet{" +
-                "ID: '" + petId + "'" +
-                ", Name: '" + name + "'" +
-                ", Species/Breed: '" + speciesBreed + "'" +
-                ", Age: " + age +
-                ", Owner: '" + ownerName + "'" +
-                ", Contact: '" + contactInfo + "'" +
-                ", Registered: " + registrationDate.format(formatter) +
-                ", Total Appointments: " + appointments.size() +
-                '}';
+        return appendTo(new StringBuilder(160)).toString();
+    }
+
+    // Append the toString form, so report writers can reuse one buffer
+    StringBuilder appendTo(StringBuilder out) {
+        out.append("Pet{")
+                .append("ID: '").append(petId).append("'")
+                .append(", Name: '").append(name).append("'")
+                .append(", Species/Breed: '").append(speciesBreed).append("'")
+                .append(", Age: ").append(age)
+                .append(", Owner: '").append(ownerName).append("'")
+                .append(", Contact: '").append(contactInfo).append("'")
+                .append(", Registered: ");
+        DATE_FORMAT.formatTo(registrationDate, out);
+        return out.append(", Total Appointments: ").append(getAppointmentCount()).append('}');
     }
 }
\ No newline at end of file
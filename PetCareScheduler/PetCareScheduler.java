@@ -1,25 +1,57 @@
 package PetCareScheduler;
 import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Main application class for Pet Care Scheduler
  */
 public class PetCareScheduler {
-    private static List<Pet> pets = new ArrayList<>();
     private static Scanner scanner = new Scanner(System.in);
     private static final String PETS_FILE = "pets_data.txt";
     private static final String APPOINTMENTS_FILE = "appointments_data.txt";
+    private static final String JOURNAL_FILE = "journal_data.txt";
+    private static final String BINARY_SNAPSHOT_FILE = "snapshot_data.bin";
+    private static final int SEARCH_LIMIT = 50;
+    private static final String REMINDER_LOG_FILE = "reminders_log.txt";
+    private static final String ARCHIVE_DIRECTORY = "archive";
+    // Run with -Dpetcare.shards=4 (by hash of Pet ID) or -Dpetcare.shards=NORTH,SOUTH
+    // (by Pet ID clinic prefix) to split the data into shards with their own files. Existing
+    // unsharded data is moved into the shards on the first such run; the setting cannot be
+    // changed afterwards, as pets stay in the shard they were saved in
+    private static ShardedScheduler scheduler = openScheduler(System.getProperty("petcare.shards", "").trim());
+    private static Reports reports = new Reports(scheduler);
+    // Reports are buffered and flushed once they are complete
+    private static ReportSink console = new TextReportSink(System.out, Charset.defaultCharset(), false);
+    // Set when reminders are enabled with -Dpetcare.reminders
+    private static ReminderService reminders;
+    private static ReminderLog reminderLog;
 
     public static void main(String[] args) {
+        startMetrics();
+        if (args.length > 0 && args[0].equals("--serve")) {
+            // Headless HTTP/JSON API on localhost (see ApiServer)
+            serve(args);
+            return;
+        }
+        if (args.length > 0) {
+            // Headless batch mode for scheduled imports and reports (see BatchRunner)
+            System.exit(new BatchRunner(scheduler).run(args));
+        }
+
         System.out.println("=== Welcome to Pet Care Scheduler ===");
 
         // Load existing data
+        startReminders();
         loadDataFromFiles();
 
         boolean running = true;
@@ -46,6 +78,7 @@ public class PetCareScheduler {
                         break;
                     case 6:
                         storeDataToFiles(); // Auto-save before exit
+                        closeDataStore();
                         System.out.println("Thank you for using Pet Care Scheduler. Goodbye!");
                         running = false;
                         break;
@@ -99,6 +132,12 @@ public class PetCareScheduler {
                     System.out.println("Pet ID already exists. Please choose a different ID.");
                     continue;
                 }
+                try {
+                    scheduler.shardFor(petId);
+                } catch (IllegalArgumentException e) {
+                    System.out.println(e.getMessage());
+                    continue;
+                }
                 break;
             } while (true);
 
@@ -159,7 +198,7 @@ public class PetCareScheduler {
 
             // Create and add new pet
             Pet newPet = new Pet(petId, name, speciesBreed, age, ownerName, contactInfo, registrationDate);
-            pets.add(newPet);
+            scheduler.registerPet(newPet);
 
             System.out.println("\n✓ Pet registered successfully!");
             System.out.println("Pet Details: " + newPet);
@@ -175,7 +214,7 @@ public class PetCareScheduler {
     private static void scheduleAppointment() {
         System.out.println("\n=== Schedule Appointment ===");
 
-        if (pets.isEmpty()) {
+        if (scheduler.isEmpty()) {
             System.out.println("No pets registered. Please register a pet first.");
             return;
         }
@@ -183,8 +222,9 @@ public class PetCareScheduler {
         try {
             // Display all pets
             System.out.println("Available Pets:");
-            for (int i = 0; i < pets.size(); i++) {
-                System.out.println((i + 1) + ". " + pets.get(i).getName() + " (ID: " + pets.get(i).getPetId() + ")");
+            int index = 1;
+            for (Pet pet : scheduler.getPets()) {
+                System.out.println(index++ + ". " + pet.getName() + " (ID: " + pet.getPetId() + ")");
             }
 
             // Get pet ID
@@ -210,9 +250,9 @@ public class PetCareScheduler {
                 try {
                     int typeChoice = Integer.parseInt(scanner.nextLine().trim());
                     switch (typeChoice) {
-                        case 1: appointmentType = "Vet Visit"; break;
-                        case 2: appointmentType = "Vaccination"; break;
-                        case 3: appointmentType = "Grooming"; break;
+                        case 1: appointmentType = AppointmentType.VET_VISIT.getName(); break;
+                        case 2: appointmentType = AppointmentType.VACCINATION.getName(); break;
+                        case 3: appointmentType = AppointmentType.GROOMING.getName(); break;
                         case 4: 
                             System.out.print("Enter custom appointment type: ");
                             appointmentType = scanner.nextLine().trim();
@@ -238,8 +278,7 @@ public class PetCareScheduler {
                     System.out.print("Enter appointment date and time (yyyy-MM-dd HH:mm): ");
                     String dateTimeInput = scanner.nextLine().trim();
 
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-                    appointmentDateTime = LocalDateTime.parse(dateTimeInput, formatter);
+                    appointmentDateTime = LocalDateTime.parse(dateTimeInput, Appointment.DATE_TIME_FORMAT);
 
                     // Validate that appointment is in the future
                     if (appointmentDateTime.isBefore(LocalDateTime.now())) {
@@ -253,13 +292,45 @@ public class PetCareScheduler {
                 }
             }
 
+            // Get duration (optional)
+            int durationMinutes;
+            while (true) {
+                System.out.print("Enter duration in minutes (press Enter for " + Appointment.DEFAULT_DURATION_MINUTES + "): ");
+                String durationInput = scanner.nextLine().trim();
+                if (durationInput.isEmpty()) {
+                    durationMinutes = Appointment.DEFAULT_DURATION_MINUTES;
+                    break;
+                }
+                try {
+                    durationMinutes = Integer.parseInt(durationInput);
+                    if (durationMinutes <= 0) {
+                        System.out.println("Duration must be a positive number of minutes.");
+                        continue;
+                    }
+                    break;
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid duration. Please enter a number of minutes.");
+                }
+            }
+
             // Get notes (optional)
             System.out.print("Enter notes (optional, press Enter to skip): ");
             String notes = scanner.nextLine().trim();
 
+            // Get repeat (optional)
+            RecurrenceRule rule = readRecurrence(appointmentType, appointmentDateTime, notes, durationMinutes);
+            if (rule != null) {
+                scheduler.scheduleRecurrence(selectedPet.getPetId(), rule);
+
+                System.out.println("\n✓ Recurring appointment scheduled successfully!");
+                System.out.println("Pet: " + selectedPet.getName());
+                System.out.println("Appointment: " + rule);
+                return;
+            }
+
             // Create and add appointment
-            Appointment newAppointment = new Appointment(appointmentType, appointmentDateTime, notes);
-            selectedPet.addAppointment(newAppointment);
+            Appointment newAppointment = new Appointment(appointmentType, appointmentDateTime, notes, durationMinutes);
+            scheduler.scheduleAppointment(selectedPet.getPetId(), newAppointment);
 
             System.out.println("\n✓ Appointment scheduled successfully!");
             System.out.println("Pet: " + selectedPet.getName());
@@ -270,6 +341,45 @@ public class PetCareScheduler {
         }
     }
 
+    /**
+     * Ask whether the appointment repeats; returns the rule, or null for a one-off
+     */
+    private static RecurrenceRule readRecurrence(String appointmentType, LocalDateTime start, String notes,
+                                                 int durationMinutes) {
+        while (true) {
+            System.out.print("Repeat every (e.g. 2 weeks; press Enter for one-off): ");
+            String repeatInput = scanner.nextLine().trim();
+            if (repeatInput.isEmpty()) {
+                return null;
+            }
+            try {
+                String[] parts = repeatInput.split("\\s+");
+                if (parts.length > 2) {
+                    throw new IllegalArgumentException("Use a number and a unit, e.g. 2 weeks");
+                }
+                int interval = parts.length == 2 ? Integer.parseInt(parts[0]) : 1;
+                ChronoUnit unit = RecurrenceRule.parseUnit(parts[parts.length - 1]);
+
+                System.out.print("Repeat until (yyyy-MM-dd) or number of occurrences: ");
+                String endInput = scanner.nextLine().trim();
+                if (endInput.contains("-")) {
+                    // The whole end day is included
+                    LocalDateTime until = LocalDate.parse(endInput, Pet.DATE_FORMAT).atTime(23, 59);
+                    return new RecurrenceRule(AppointmentType.of(appointmentType), start, notes, durationMinutes,
+                            interval, unit, until, 0);
+                }
+                return new RecurrenceRule(AppointmentType.of(appointmentType), start, notes, durationMinutes,
+                        interval, unit, null, Integer.parseInt(endInput));
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid number. Please try again.");
+            } catch (DateTimeParseException e) {
+                System.out.println("Invalid date format. Please use yyyy-MM-dd.");
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
     /**
      * Display records based on user choice
      */
@@ -279,9 +389,10 @@ public class PetCareScheduler {
         System.out.println("2. All appointments for a specific pet");
         System.out.println("3. Upcoming appointments for all pets");
         System.out.println("4. Past appointment history for all pets");
+        System.out.println("5. Find pets by owner name or contact info");
 
         try {
-            System.out.print("Select display option (1-4): ");
+            System.out.print("Select display option (1-5): ");
             int choice = Integer.parseInt(scanner.nextLine());
 
             switch (choice) {
@@ -297,6 +408,9 @@ public class PetCareScheduler {
                 case 4:
                     displayPastAppointments();
                     break;
+                case 5:
+                    findPetsByOwner();
+                    break;
                 default:
                     System.out.println("Invalid choice.");
             }
@@ -308,22 +422,14 @@ public class PetCareScheduler {
      * Display all registered pets
      */
     private static void displayAllPets() {
-        System.out.println("\n=== All Registered Pets ===");
-        if (pets.isEmpty()) {
-            System.out.println("No pets registered.");
-            return;
-        }
-
-        for (Pet pet : pets) {
-            System.out.println(pet);
-        }
+        printReport(out -> reports.allPets(out));
     }
 
     /**
      * Display appointments for a specific pet
      */
     private static void displayPetAppointments() {
-        if (pets.isEmpty()) {
+        if (scheduler.isEmpty()) {
             System.out.println("No pets registered.");
             return;
         }
@@ -338,72 +444,66 @@ public class PetCareScheduler {
         }
 
         System.out.println("\n=== Appointments for " + pet.getName() + " ===");
-        List<Appointment> appointments = pet.getAppointments();
-
-        if (appointments.isEmpty()) {
+        List<RecurrenceRule> rules = pet.getRecurrences();
+        if (pet.getAppointmentCount() == 0 && rules.isEmpty()) {
             System.out.println("No appointments found for this pet.");
             return;
         }
 
-        for (Appointment appointment : appointments) {
-            System.out.println(appointment);
-        }
+        pet.forEachAppointment(System.out::println);
+        rules.forEach(System.out::println);
     }
 
     /**
-     * Display upcoming appointments for all pets
+     * Find pets by owner name or contact info; a trailing * searches by prefix
      */
-    private static void displayUpcomingAppointments() {
-        System.out.println("\n=== Upcoming Appointments ===");
-        LocalDateTime now = LocalDateTime.now();
-        boolean hasUpcoming = false;
-
-        for (Pet pet : pets) {
-            List<Appointment> upcomingAppointments = pet.getAppointments().stream()
-                    .filter(app -> app.getDateTime().isAfter(now))
-                    .sorted(Comparator.comparing(Appointment::getDateTime))
-                    .collect(Collectors.toList());
-
-            if (!upcomingAppointments.isEmpty()) {
-                System.out.println("\nPet: " + pet.getName() + " (ID: " + pet.getPetId() + ")");
-                for (Appointment appointment : upcomingAppointments) {
-                    System.out.println("  " + appointment);
-                }
-                hasUpcoming = true;
-            }
+    private static void findPetsByOwner() {
+        System.out.print("Search by (1) owner name or (2) contact info: ");
+        String field = scanner.nextLine().trim();
+        if (!field.equals("1") && !field.equals("2")) {
+            System.out.println("Invalid choice.");
+            return;
+        }
+        System.out.print("Enter search text (end with * to match the beginning): ");
+        String query = scanner.nextLine().trim();
+        boolean prefix = query.endsWith("*");
+        if (prefix) {
+            query = query.substring(0, query.length() - 1);
+        }
+        if (query.isEmpty()) {
+            System.out.println("Search text cannot be empty.");
+            return;
         }
 
-        if (!hasUpcoming) {
-            System.out.println("No upcoming appointments found.");
+        // Ask for one more than is shown, to tell whether there are more
+        List<Pet> pets = field.equals("1")
+                ? scheduler.findPetsByOwner(query, prefix, SEARCH_LIMIT + 1)
+                : scheduler.findPetsByContact(query, prefix, SEARCH_LIMIT + 1);
+        System.out.println("\n=== Matching Pets ===");
+        if (pets.isEmpty()) {
+            System.out.println("No matching pets found.");
+            return;
+        }
+        for (Pet pet : pets.subList(0, Math.min(pets.size(), SEARCH_LIMIT))) {
+            System.out.println(pet);
+        }
+        if (pets.size() > SEARCH_LIMIT) {
+            System.out.println("(Showing the first " + SEARCH_LIMIT + " matches; refine the search to see others)");
         }
     }
 
+    /**
+     * Display upcoming appointments for all pets
+     */
+    private static void displayUpcomingAppointments() {
+        printReport(out -> reports.upcomingAppointments(out, LocalDateTime.now()));
+    }
+
     /**
      * Display past appointments for all pets
      */
     private static void displayPastAppointments() {
-        System.out.println("\n=== Past Appointments ===");
-        LocalDateTime now = LocalDateTime.now();
-        boolean hasPast = false;
-
-        for (Pet pet : pets) {
-            List<Appointment> pastAppointments = pet.getAppointments().stream()
-                    .filter(app -> app.getDateTime().isBefore(now))
-                    .sorted(Comparator.comparing(Appointment::getDateTime).reversed())
-                    .collect(Collectors.toList());
-
-            if (!pastAppointments.isEmpty()) {
-                System.out.println("\nPet: " + pet.getName() + " (ID: " + pet.getPetId() + ")");
-                for (Appointment appointment : pastAppointments) {
-                    System.out.println("  " + appointment);
-                }
-                hasPast = true;
-            }
-        }
-
-        if (!hasPast) {
-            System.out.println("No past appointments found.");
-        }
+        printReport(out -> reports.pastAppointments(out, LocalDateTime.now()));
     }
 
     /**
@@ -437,63 +537,29 @@ public class PetCareScheduler {
      * Generate report for pets with appointments in next week
      */
     private static void generateWeeklyReport() {
-        System.out.println("\n=== Pets with Appointments in Next Week ===");
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime nextWeek = now.plusWeeks(1);
-        boolean hasAppointments = false;
-
-        for (Pet pet : pets) {
-            List<Appointment> weeklyAppointments = pet.getAppointments().stream()
-                    .filter(app -> app.getDateTime().isAfter(now) && app.getDateTime().isBefore(nextWeek))
-                    .sorted(Comparator.comparing(Appointment::getDateTime))
-                    .collect(Collectors.toList());
-
-            if (!weeklyAppointments.isEmpty()) {
-                System.out.println("\nPet: " + pet.getName() + " (ID: " + pet.getPetId() + ")");
-                System.out.println("Owner: " + pet.getOwnerName() + " | Contact: " + pet.getContactInfo());
-                for (Appointment appointment : weeklyAppointments) {
-                    System.out.println("  " + appointment);
-                }
-                hasAppointments = true;
-            }
-        }
-
-        if (!hasAppointments) {
-            System.out.println("No appointments scheduled for the next week.");
-        }
+        printReport(out -> reports.weeklyReport(out, LocalDateTime.now()));
     }
 
     /**
      * Generate report for pets overdue for vet visits
      */
     private static void generateOverdueVetReport() {
-        System.out.println("\n=== Pets Overdue for Vet Visit ===");
-        LocalDateTime sixMonthsAgo = LocalDateTime.now().minusMonths(6);
-        boolean hasOverdue = false;
-
-        for (Pet pet : pets) {
-            // Find the most recent vet visit
-            Optional<Appointment> lastVetVisit = pet.getAppointments().stream()
-                    .filter(app -> app.getAppointmentType().toLowerCase().contains("vet"))
-                    .max(Comparator.comparing(Appointment::getDateTime));
-
-            // Check if pet needs vet visit
-            if (!lastVetVisit.isPresent() || lastVetVisit.get().getDateTime().isBefore(sixMonthsAgo)) {
-                System.out.println("\nPet: " + pet.getName() + " (ID: " + pet.getPetId() + ")");
-                System.out.println("Owner: " + pet.getOwnerName() + " | Contact: " + pet.getContactInfo());
-
-                if (!lastVetVisit.isPresent()) {
-                    System.out.println("Last Vet Visit: Never");
-                } else {
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                    System.out.println("Last Vet Visit: " + lastVetVisit.get().getDateTime().format(formatter));
-                }
-                hasOverdue = true;
-            }
-        }
+        printReport(out -> reports.overdueVetReport(out, LocalDateTime.now()));
+    }
+
+    private interface Report {
+        void writeTo(ReportSink out) throws IOException;
+    }
 
-        if (!hasOverdue) {
-            System.out.println("All pets are up to date with vet visits.");
+    /**
+     * Write a report to the console
+     */
+    private static void printReport(Report report) {
+        try {
+            report.writeTo(console);
+            console.flush();
+        } catch (IOException e) {
+            System.out.println("Error writing report: " + e.getMessage());
         }
     }
 
@@ -502,24 +568,8 @@ public class PetCareScheduler {
      */
     private static void storeDataToFiles() {
         try {
-            // Store pets data
-            try (PrintWriter petWriter = new PrintWriter(new FileWriter(PETS_FILE))) {
-                for (Pet pet : pets) {
-                    petWriter.println(pet.getPetId() + "|" + pet.getName() + "|" + pet.getSpeciesBreed() + 
-                                     "|" + pet.getAge() + "|" + pet.getOwnerName() + "|" + pet.getContactInfo() + 
-                                     "|" + pet.getRegistrationDate());
-                }
-            }
-
-            // Store appointments data
-            try (PrintWriter appointmentWriter = new PrintWriter(new FileWriter(APPOINTMENTS_FILE))) {
-                for (Pet pet : pets) {
-                    for (Appointment appointment : pet.getAppointments()) {
-                        appointmentWriter.println(pet.getPetId() + "|" + appointment.getAppointmentType() + 
-                                                "|" + appointment.getDateTime() + "|" + appointment.getNotes());
-                    }
-                }
-            }
+            // Changes are journaled as they happen; this syncs and compacts when due
+            scheduler.save();
 
             System.out.println("\n✓ Data saved successfully to files.");
 
@@ -529,63 +579,168 @@ public class PetCareScheduler {
     }
 
     /**
-     * Load pet and appointment data from files (private method)
+     * Release the data files before exit
      */
-    private static void loadDataFromFiles() {
+    private static void closeDataStore() {
         try {
-            // Load pets data
-            File petsFile = new File(PETS_FILE);
-            if (petsFile.exists()) {
-                try (BufferedReader petReader = new BufferedReader(new FileReader(petsFile))) {
-                    String line;
-                    while ((line = petReader.readLine()) != null) {
-                        String[] parts = line.split("\\|");
-                        if (parts.length == 7) {
-                            Pet pet = new Pet(parts[0], parts[1], parts[2], 
-                                            Integer.parseInt(parts[3]), parts[4], 
-                                            parts[5], LocalDate.parse(parts[6]));
-                            pets.add(pet);
-                        }
-                    }
-                }
+            scheduler.close();
+        } catch (IOException e) {
+            System.out.println("Error closing data files: " + e.getMessage());
+        }
+        if (reminders != null) {
+            reminders.close();
+            try {
+                reminderLog.close();
+            } catch (IOException e) {
+                System.out.println("Error closing the reminder log: " + e.getMessage());
             }
+        }
+    }
 
-            // Load appointments data
-            File appointmentsFile = new File(APPOINTMENTS_FILE);
-            if (appointmentsFile.exists()) {
-                try (BufferedReader appointmentReader = new BufferedReader(new FileReader(appointmentsFile))) {
-                    String line;
-                    while ((line = appointmentReader.readLine()) != null) {
-                        String[] parts = line.split("\\|");
-                        if (parts.length >= 3) {
-                            Pet pet = findPetById(parts[0]);
-                            if (pet != null) {
-                                String notes = parts.length > 3 ? parts[3] : "";
-                                Appointment appointment = new Appointment(parts[1], 
-                                                                        LocalDateTime.parse(parts[2]), notes);
-                                pet.addAppointment(appointment);
-                            }
-                        }
-                    }
-                }
-            }
+    /**
+     * Load pet and appointment data from files (private method)
+     */
+    private static void loadDataFromFiles() {
+        try {
+            BulkLoader.LoadStats[] stats = scheduler.load();
 
-            if (pets.size() > 0) {
-                System.out.println("Loaded " + pets.size() + " pets from existing data files.");
+            if (scheduler.size() > 0) {
+                System.out.println("Loaded " + scheduler.size() + " pets from existing data files.");
+                System.out.println("Pets: " + stats[0] + " | Appointments: " + stats[1] + " | Journal: " + stats[2]);
             }
 
-        } catch (IOException | NumberFormatException e) {
+        } catch (IOException | RuntimeException e) {
             System.out.println("Note: Could not load existing data files. Starting with empty database.");
         }
     }
 
+    /**
+     * Load the data and serve the HTTP/JSON API on localhost until the process is
+     * stopped, then save; the port is the argument after --serve, or
+     * -Dpetcare.http.port (default 8080)
+     */
+    private static void serve(String[] args) {
+        int port;
+        try {
+            port = args.length > 1 ? Integer.parseInt(args[1]) : Integer.getInteger("petcare.http.port", 8080);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid port: " + args[1]);
+            System.exit(2);
+            return;
+        }
+
+        startReminders();
+        loadDataFromFiles();
+        ApiServer server;
+        try {
+            server = new ApiServer(scheduler, reports, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } catch (IOException e) {
+            System.err.println("Could not listen on port " + port + ": " + e.getMessage());
+            closeDataStore();
+            System.exit(2);
+            return;
+        }
+        // The server's dispatcher thread keeps the process alive; Ctrl+C runs this hook
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            storeDataToFiles();
+            closeDataStore();
+        }, "api-shutdown"));
+        server.start();
+        System.out.println("Serving the Pet Care Scheduler API on http://localhost:" + server.getAddress().getPort()
+                + "/ (press Ctrl+C to stop)");
+    }
+
+    /**
+     * With -Dpetcare.reminders=1d,2h (lead times in w, d, h or m), append a reminder
+     * to -Dpetcare.reminders.log (default reminders_log.txt) that long before each
+     * appointment; must run before the data is loaded so loaded appointments are covered
+     */
+    private static void startReminders() {
+        String leadTimes = System.getProperty("petcare.reminders", "").trim();
+        if (leadTimes.isEmpty()) {
+            return;
+        }
+        try {
+            List<Duration> parsed = ReminderService.parseLeadTimes(leadTimes);
+            reminderLog = new ReminderLog(Paths.get(System.getProperty("petcare.reminders.log", REMINDER_LOG_FILE)));
+            reminders = new ReminderService(reminderLog, parsed, LocalDateTime.now());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Note: reminders are off: " + e.getMessage());
+            return;
+        }
+        scheduler.addListener(reminders);
+        reminders.start();
+    }
+
+    /**
+     * Publish the scheduler's metrics over JMX, and with -Dpetcare.metrics.dump=FILE also
+     * append them to FILE every petcare.metrics.intervalSeconds seconds (default 60)
+     */
+    private static void startMetrics() {
+        Metrics metrics = scheduler.getMetrics();
+        try {
+            metrics.registerMBeans();
+        } catch (IllegalStateException e) {
+            System.err.println("Note: metrics are not available over JMX: " + e.getMessage());
+        }
+        String dumpFile = System.getProperty("petcare.metrics.dump");
+        if (dumpFile != null) {
+            metrics.startDump(Paths.get(dumpFile),
+                    Duration.ofSeconds(Long.getLong("petcare.metrics.intervalSeconds", 60)));
+        }
+    }
+
+    /**
+     * A single shard on the classic files, or one shard per clinic or hash bucket
+     * that takes over the classic files' data when first loaded
+     */
+    private static ShardedScheduler openScheduler(String shards) {
+        if (shards.isEmpty()) {
+            return ShardedScheduler.single(new SchedulerService(dataStore("")));
+        }
+        ShardedScheduler sharded = shards.chars().allMatch(Character::isDigit)
+                ? ShardedScheduler.byHash(Integer.parseInt(shards), PetCareScheduler::dataStore)
+                : ShardedScheduler.byClinic(Arrays.asList(shards.split(",")), PetCareScheduler::dataStore);
+        sharded.setUnsharded(dataStore("", 0));
+        return sharded;
+    }
+
+    // Run with -Dpetcare.binarySnapshot=true to keep the snapshot in binary form, with
+    // -Dpetcare.archive.horizonDays=365 to archive appointments older than that when saving, and
+    // with -Dpetcare.lazyHistory=true to read past appointments from the text files only when needed
+    // (-Dpetcare.lazyHistory.cachedAppointments bounds how many stay loaded, and
+    // -Dpetcare.lazyHistory.columnar=true holds them in compact columns in memory instead of the file)
+    private static DataStore dataStore(String shard) {
+        return dataStore(shard, Boolean.getBoolean("petcare.lazyHistory") ? Integer.getInteger(
+                "petcare.lazyHistory.cachedAppointments", AppointmentHistory.DEFAULT_CACHED_APPOINTMENTS) : 0);
+    }
+
+    private static DataStore dataStore(String shard, int cachedHistory) {
+        long horizonDays = Long.getLong("petcare.archive.horizonDays", 0);
+        AppointmentArchive archive = horizonDays <= 0 ? null : new AppointmentArchive(
+                Paths.get(shard.isEmpty() ? ARCHIVE_DIRECTORY : ARCHIVE_DIRECTORY + "." + shard.toLowerCase(Locale.ROOT)),
+                Duration.ofDays(horizonDays));
+        return new DataStore(shardFile(PETS_FILE, shard), shardFile(APPOINTMENTS_FILE, shard),
+                shardFile(JOURNAL_FILE, shard),
+                Boolean.getBoolean("petcare.binarySnapshot") ? shardFile(BINARY_SNAPSHOT_FILE, shard) : null,
+                DataStore.DEFAULT_COMPACTION_THRESHOLD, archive, cachedHistory,
+                Boolean.getBoolean("petcare.lazyHistory.columnar"));
+    }
+
+    // e.g. pets_data.north.txt for shard NORTH
+    private static Path shardFile(String file, String shard) {
+        if (shard.isEmpty()) {
+            return Paths.get(file);
+        }
+        int dot = file.lastIndexOf('.');
+        return Paths.get(file.substring(0, dot) + "." + shard.toLowerCase(Locale.ROOT) + file.substring(dot));
+    }
+
     /**
      * Find pet by ID
      */
     private static Pet findPetById(String petId) {
-        return pets.stream()
-                .filter(pet -> pet.getPetId().equalsIgnoreCase(petId))
-                .findFirst()
-                .orElse(null);
+        return scheduler.findPet(petId);
     }
 }
\ No newline at end of file
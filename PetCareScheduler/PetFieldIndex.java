@@ -0,0 +1,128 @@
+package PetCareScheduler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Secondary index over one text field of the registered pets (e.g. owner name),
+ * for case-insensitive exact and prefix lookups in O(log n + matches).
+ *
+ * Pets are kept in a skip list sorted by the lower-cased, trimmed value, then
+ * by registration order; the index follows registrations and the field's
+ * setter, which notifies petUpdated.
+ */
+public class PetFieldIndex implements PetListener {
+    // Pets with the same value are ordered by registration sequence
+    private static final class Key implements Comparable<Key> {
+        final String value;
+        final long sequence;
+
+        Key(String value, long sequence) {
+            this.value = value;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byValue = value.compareTo(other.value);
+            return byValue != 0 ? byValue : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final Function<Pet, String> field;
+    private final ConcurrentSkipListMap<Key, Pet> byValue = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Pet, Key> keys = new ConcurrentHashMap<>();
+    private final AtomicLong registrations = new AtomicLong();
+
+    /**
+     * @param field the indexed field, e.g. Pet::getOwnerName
+     */
+    public PetFieldIndex(Function<Pet, String> field) {
+        this.field = field;
+    }
+
+    /**
+     * Lookup form of a value: trimmed and lower-cased
+     */
+    public static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Pets whose value equals the query, ignoring case, in registration order
+     */
+    public List<Pet> find(String value) {
+        String key = normalize(value);
+        return collect(byValue.subMap(new Key(key, Long.MIN_VALUE), true, new Key(key, Long.MAX_VALUE), true),
+                Integer.MAX_VALUE);
+    }
+
+    /**
+     * Up to limit pets whose value starts with the prefix, ignoring case,
+     * sorted by value and then registration order
+     */
+    public List<Pet> findByPrefix(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return collect(byValue, limit);
+        }
+        // Every value with the prefix sorts below prefix + the highest char
+        return collect(byValue.subMap(new Key(key, Long.MIN_VALUE), true,
+                new Key(key + Character.MAX_VALUE, Long.MIN_VALUE), false), limit);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    private static List<Pet> collect(NavigableMap<Key, Pet> matches, int limit) {
+        List<Pet> pets = new ArrayList<>();
+        for (Pet pet : matches.values()) {
+            if (pets.size() >= limit) {
+                break;
+            }
+            pets.add(pet);
+        }
+        return pets;
+    }
+
+    @Override
+    public void petRegistered(Pet pet) {
+        refresh(pet);
+    }
+
+    @Override
+    public void petUpdated(Pet pet) {
+        refresh(pet);
+    }
+
+    @Override
+    public void appointmentAdded(Pet pet, Appointment appointment) {
+    }
+
+    @Override
+    public void appointmentRemoved(Pet pet, Appointment appointment) {
+    }
+
+    // Re-position the pet if its value changed; runs under the pet's lock,
+    // or during registration before the pet is visible to other threads
+    private void refresh(Pet pet) {
+        String value = normalize(field.apply(pet));
+        Key current = keys.get(pet);
+        if (current != null && current.value.equals(value)) {
+            return;
+        }
+        Key updated = new Key(value, current != null ? current.sequence : registrations.getAndIncrement());
+        byValue.put(updated, pet);
+        keys.put(pet, updated);
+        if (current != null) {
+            byValue.remove(current, pet);
+        }
+    }
+}
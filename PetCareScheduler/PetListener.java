@@ -0,0 +1,30 @@
+package PetCareScheduler;
+
+/**
+ * Receives notifications when a registered pet's appointments or recurrence rules change
+ */
+public interface PetListener {
+    void appointmentAdded(Pet pet, Appointment appointment);
+
+    void appointmentRemoved(Pet pet, Appointment appointment);
+
+    // Called once the pet has been registered (after its existing appointments were added)
+    default void petRegistered(Pet pet) {
+    }
+
+    // Called after a registered pet's owner name or contact info changed, or a vet visit
+    // loaded from the archive or an unloaded history became its last vet visit
+    default void petUpdated(Pet pet) {
+    }
+
+    // Called when loading lazily, once an unloaded history was handed to the registered pet;
+    // its appointments are never passed to appointmentAdded unless the history is loaded
+    default void historyAttached(Pet pet) {
+    }
+
+    default void recurrenceAdded(Pet pet, RecurrenceRule rule) {
+    }
+
+    default void recurrenceRemoved(Pet pet, RecurrenceRule rule) {
+    }
+}
@@ -0,0 +1,205 @@
+package PetCareScheduler;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of all pets, indexed by case-normalized Pet ID.
+ * Lookups and iteration are lock-free; registrations are serialized so that
+ * registration order stays consistent across the ID map and the ordered view.
+ */
+public class PetRegistry implements PetListener {
+    private final ConcurrentMap<String, Pet> petsById = new ConcurrentHashMap<>();
+    // Pets keyed by registration order, so they are listed in that order
+    private final ConcurrentSkipListMap<Integer, Pet> petsByOrder = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Pet, Integer> registrationOrder = new ConcurrentHashMap<>();
+    private final AppointmentIndex appointmentIndex = new AppointmentIndex();
+    // Pets with recurrence rules, whose occurrences are not in the appointment index
+    private final Set<Pet> petsWithRecurrences = ConcurrentHashMap.newKeySet();
+    // Pets given an unloaded history, whose appointments are not in the index until it is loaded
+    private final Set<Pet> petsWithHistory = ConcurrentHashMap.newKeySet();
+    private final List<PetListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Normalize a Pet ID into its primary-key form
+     */
+    public static String normalizeId(String petId) {
+        return petId == null ? null : petId.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Register a pet; returns false if the ID is already taken
+     */
+    public synchronized boolean register(Pet pet) {
+        String key = normalizeId(pet.getPetId());
+        if (key == null || key.isEmpty() || petsById.containsKey(key)) {
+            return false;
+        }
+        int order = petsByOrder.isEmpty() ? 0 : petsByOrder.lastKey() + 1;
+        registrationOrder.put(pet, order);
+        petsByOrder.put(order, pet);
+        pet.attach(this, appointment -> appointmentAdded(pet, appointment), rule -> recurrenceAdded(pet, rule));
+        for (PetListener listener : listeners) {
+            listener.petRegistered(pet);
+        }
+        petsById.put(key, pet);
+        return true;
+    }
+
+    /**
+     * Find pet by ID (case-insensitive), or null if not registered
+     */
+    public Pet findById(String petId) {
+        String key = normalizeId(petId);
+        return key == null ? null : petsById.get(key);
+    }
+
+    public boolean contains(String petId) {
+        return findById(petId) != null;
+    }
+
+    /**
+     * Read-only view of all pets in registration order
+     */
+    public Collection<Pet> getPets() {
+        return Collections.unmodifiableCollection(petsByOrder.values());
+    }
+
+    public int size() {
+        return petsById.size();
+    }
+
+    public boolean isEmpty() {
+        return petsById.isEmpty();
+    }
+
+    public AppointmentIndex getAppointmentIndex() {
+        return appointmentIndex;
+    }
+
+    /**
+     * Appointments (including recurring occurrences) in a date-time range grouped
+     * by pet; pets are in registration order and each pet's appointments in time
+     * order, or reverse time order if descending (a null bound is open)
+     */
+    public Map<Pet, List<Appointment>> appointmentsByPet(LocalDateTime from, boolean fromInclusive,
+                                                         LocalDateTime to, boolean toInclusive,
+                                                         boolean descending) {
+        Map<Pet, List<Appointment>> grouped = new IdentityHashMap<>();
+        for (AppointmentIndex.Entry entry : appointmentIndex.range(from, fromInclusive, to, toInclusive, descending)) {
+            grouped.computeIfAbsent(entry.getPet(), pet -> new ArrayList<>()).add(entry.getAppointment());
+        }
+        // Occurrences are expanded only for the few pets with rules, and unloaded histories are
+        // read only for pets whose history reaches into the range
+        for (Pet pet : petsWithRecurrences) {
+            regroup(grouped, pet, from, fromInclusive, to, toInclusive, descending);
+        }
+        for (Iterator<Pet> pets = petsWithHistory.iterator(); pets.hasNext(); ) {
+            Pet pet = pets.next();
+            AppointmentHistory.Segment history = pet.getHistory();
+            if (history == null) {
+                pets.remove(); // Loaded into the list, so the index has its appointments
+            } else if (history.overlaps(from, to) && !petsWithRecurrences.contains(pet)) {
+                regroup(grouped, pet, from, fromInclusive, to, toInclusive, descending);
+            }
+        }
+        return inRegistrationOrder(grouped);
+    }
+
+    // Replace a pet's appointments from the index with its full list for the range
+    private static void regroup(Map<Pet, List<Appointment>> grouped, Pet pet, LocalDateTime from,
+                                boolean fromInclusive, LocalDateTime to, boolean toInclusive, boolean descending) {
+        List<Appointment> appointments = pet.getAppointmentsBetween(from, fromInclusive, to, toInclusive);
+        if (appointments.isEmpty()) {
+            grouped.remove(pet);
+            return;
+        }
+        if (descending) {
+            Collections.reverse(appointments);
+        }
+        grouped.put(pet, appointments);
+    }
+
+    /**
+     * The registered pets' entries, ordered by registration
+     */
+    <T> Map<Pet, T> inRegistrationOrder(Map<Pet, T> grouped) {
+        List<Pet> orderedPets = new ArrayList<>(grouped.keySet());
+        orderedPets.sort((a, b) -> Integer.compare(registrationOrder.get(a), registrationOrder.get(b)));
+
+        Map<Pet, T> result = new LinkedHashMap<>();
+        for (Pet pet : orderedPets) {
+            result.put(pet, grouped.get(pet));
+        }
+        return result;
+    }
+
+    /**
+     * Register an additional index to be notified of appointment changes
+     * on every registered pet (called with the pet's lock held)
+     */
+    public void addListener(PetListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void appointmentAdded(Pet pet, Appointment appointment) {
+        appointmentIndex.add(pet, appointment);
+        for (PetListener listener : listeners) {
+            listener.appointmentAdded(pet, appointment);
+        }
+    }
+
+    @Override
+    public void appointmentRemoved(Pet pet, Appointment appointment) {
+        appointmentIndex.remove(pet, appointment);
+        for (PetListener listener : listeners) {
+            listener.appointmentRemoved(pet, appointment);
+        }
+    }
+
+    @Override
+    public void petUpdated(Pet pet) {
+        for (PetListener listener : listeners) {
+            listener.petUpdated(pet);
+        }
+    }
+
+    @Override
+    public void historyAttached(Pet pet) {
+        petsWithHistory.add(pet);
+        for (PetListener listener : listeners) {
+            listener.historyAttached(pet);
+        }
+    }
+
+    @Override
+    public void recurrenceAdded(Pet pet, RecurrenceRule rule) {
+        petsWithRecurrences.add(pet);
+        for (PetListener listener : listeners) {
+            listener.recurrenceAdded(pet, rule);
+        }
+    }
+
+    @Override
+    public void recurrenceRemoved(Pet pet, RecurrenceRule rule) {
+        if (!pet.hasRecurrences()) {
+            petsWithRecurrences.remove(pet);
+        }
+        for (PetListener listener : listeners) {
+            listener.recurrenceRemoved(pet, rule);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package PetCareScheduler;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Validates imported and API-submitted pet and appointment records, given as
+ * text fields in column order (missing optional fields are null), and turns
+ * them into model objects. Rejections are IllegalArgumentExceptions whose
+ * message names the offending field.
+ */
+final class RecordParser {
+    static final String[] PET_COLUMNS = {
+            "petId", "name", "speciesBreed", "age", "ownerName", "contactInfo", "registrationDate" };
+    static final String[] APPOINTMENT_COLUMNS = {
+            "petId", "type", "dateTime", "notes", "durationMinutes" };
+
+    private RecordParser() {
+    }
+
+    /**
+     * A new pet; the registration date defaults to now's date
+     */
+    static Pet toPet(ShardedScheduler scheduler, String[] fields, LocalDateTime now) {
+        String petId = required(fields[0], "Pet ID");
+        scheduler.shardFor(petId); // Rejects an ID no shard takes
+        String name = required(fields[1], "Name");
+        String speciesBreed = required(fields[2], "Species/Breed");
+        int age;
+        try {
+            age = Integer.parseInt(required(fields[3], "Age"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid age: " + fields[3]);
+        }
+        if (age < 0) {
+            throw new IllegalArgumentException("Age cannot be negative");
+        }
+        String ownerName = required(fields[4], "Owner name");
+        String contactInfo = required(fields[5], "Contact info");
+
+        LocalDate registrationDate = now.toLocalDate();
+        if (!isBlank(fields[6])) {
+            try {
+                registrationDate = LocalDate.parse(fields[6]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid registration date: " + fields[6] + " (use yyyy-MM-dd)");
+            }
+        }
+        return new Pet(petId, name, speciesBreed, age, ownerName, contactInfo, registrationDate);
+    }
+
+    /**
+     * A booking at a time after now; the pet is resolved when it is booked
+     */
+    static BookingRequest toBookingRequest(String[] fields, LocalDateTime now) {
+        String petId = required(fields[0], "Pet ID");
+        String type = required(fields[1], "Appointment type");
+
+        LocalDateTime dateTime;
+        try {
+            dateTime = LocalDateTime.parse(required(fields[2], "Date/time").replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date/time: " + fields[2] + " (use yyyy-MM-dd HH:mm)");
+        }
+        if (dateTime.isBefore(now)) {
+            throw new IllegalArgumentException("Appointment must be scheduled for a future date and time");
+        }
+
+        String notes = fields[3] == null ? "" : checkDelimiter(fields[3], "Notes");
+        int durationMinutes = Appointment.DEFAULT_DURATION_MINUTES;
+        if (!isBlank(fields[4])) {
+            try {
+                durationMinutes = Integer.parseInt(fields[4]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid duration: " + fields[4]);
+            }
+        }
+        return new BookingRequest(petId,
+                new Appointment(AppointmentType.of(type), dateTime, notes, durationMinutes));
+    }
+
+    private static String required(String value, String field) {
+        if (isBlank(value)) {
+            throw new IllegalArgumentException(field + " cannot be empty");
+        }
+        return checkDelimiter(value, field);
+    }
+
+    // The data files are pipe-delimited, so a '|' would split the field on the next load
+    private static String checkDelimiter(String value, String field) {
+        if (value.indexOf('|') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException(field + " cannot contain '|' or line breaks");
+        }
+        return value;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
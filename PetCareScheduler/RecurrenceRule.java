@@ -0,0 +1,226 @@
+package PetCareScheduler;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A repeating appointment: every N days, weeks, months or years from a first
+ * occurrence, until a date-time (inclusive) or for a number of occurrences.
+ *
+ * Only the rule is stored; occurrences are computed on demand, each from the
+ * first one (so monthly rules on the 31st do not drift), and only for the
+ * window asked for.
+ */
+public final class RecurrenceRule {
+    private static final Set<ChronoUnit> UNITS =
+            EnumSet.of(ChronoUnit.DAYS, ChronoUnit.WEEKS, ChronoUnit.MONTHS, ChronoUnit.YEARS);
+
+    private final AppointmentType type;
+    private final LocalDateTime start;
+    private final String notes;
+    private final int durationMinutes;
+    private final int interval;
+    private final ChronoUnit unit;
+    private final LocalDateTime until; // Null when limited by count
+    private final int count; // Number of occurrences
+
+    /**
+     * A rule ending at until (inclusive) if it is set, otherwise after count occurrences
+     */
+    public RecurrenceRule(AppointmentType type, LocalDateTime start, String notes, int durationMinutes,
+                          int interval, ChronoUnit unit, LocalDateTime until, int count) {
+        if (type == null || start == null) {
+            throw new IllegalArgumentException("Recurring appointments need a type and a first date and time");
+        }
+        if (durationMinutes <= 0) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Repeat interval must be positive");
+        }
+        if (!UNITS.contains(unit)) {
+            throw new IllegalArgumentException("Repeat unit must be days, weeks, months or years");
+        }
+        // The shortest gap between occurrences: months and years can be as short as 28 and 365 days
+        long shortestGapDays = (long) interval * (unit == ChronoUnit.DAYS ? 1 : unit == ChronoUnit.WEEKS ? 7
+                : unit == ChronoUnit.MONTHS ? 28 : 365);
+        if (durationMinutes > shortestGapDays * 24 * 60) {
+            throw new IllegalArgumentException("Occurrences would overlap each other");
+        }
+        this.type = type;
+        this.start = start;
+        this.notes = notes == null ? "" : notes;
+        this.durationMinutes = durationMinutes;
+        this.interval = interval;
+        this.unit = unit;
+        this.until = until;
+
+        if (until != null) {
+            if (until.isBefore(start)) {
+                throw new IllegalArgumentException("Repeat end must not be before the first appointment");
+            }
+            this.count = countUntil(until);
+        } else if (count > 0) {
+            this.count = count;
+        } else {
+            throw new IllegalArgumentException("Recurring appointments need an end date or a number of occurrences");
+        }
+    }
+
+    /**
+     * Parse a repeat unit such as "week", "weeks" or "MONTHS"
+     */
+    public static ChronoUnit parseUnit(String unit) {
+        String name = unit.trim().toUpperCase(Locale.ROOT);
+        try {
+            ChronoUnit parsed = ChronoUnit.valueOf(name.endsWith("S") ? name : name + "S");
+            if (UNITS.contains(parsed)) {
+                return parsed;
+            }
+        } catch (IllegalArgumentException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Repeat unit must be days, weeks, months or years: " + unit);
+    }
+
+    // Getters
+    public AppointmentType getType() {
+        return type;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public ChronoUnit getUnit() {
+        return unit;
+    }
+
+    // End date-time as given, or null for a rule limited by count
+    public LocalDateTime getUntil() {
+        return until;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public LocalDateTime getLast() {
+        return occurrenceTime(count - 1);
+    }
+
+    /**
+     * Start of the index-th occurrence (0 is the first)
+     */
+    public LocalDateTime occurrenceTime(int index) {
+        return start.plus((long) index * interval, unit);
+    }
+
+    public Appointment occurrence(int index) {
+        return new Appointment(type, occurrenceTime(index), notes, durationMinutes);
+    }
+
+    /**
+     * Occurrences starting after from (or at it, if fromInclusive) and before to
+     * (or at it, if toInclusive), in time order; a null bound is open
+     */
+    public List<Appointment> occurrencesBetween(LocalDateTime from, boolean fromInclusive,
+                                                LocalDateTime to, boolean toInclusive) {
+        int first = from == null ? 0 : countBefore(from, !fromInclusive);
+        int end = to == null ? count : countBefore(to, toInclusive);
+        if (first >= end) {
+            return Collections.emptyList();
+        }
+        List<Appointment> occurrences = new ArrayList<>(end - first);
+        for (int i = first; i < end; i++) {
+            occurrences.add(occurrence(i));
+        }
+        return occurrences;
+    }
+
+    /**
+     * Whether any occurrence starts in [from, to)
+     */
+    public boolean occursBetween(LocalDateTime from, LocalDateTime to) {
+        return countBefore(from, false) < countBefore(to, false);
+    }
+
+    /**
+     * An occurrence overlapping [from, to), or null. Occurrences never overlap
+     * each other, so only the last one starting before to needs checking.
+     */
+    public Appointment findOverlap(LocalDateTime from, LocalDateTime to) {
+        int before = countBefore(to, false);
+        if (before > 0 && occurrenceTime(before - 1).plusMinutes(durationMinutes).isAfter(from)) {
+            return occurrence(before - 1);
+        }
+        return null;
+    }
+
+    // Number of occurrences starting before time (or at it too, if includeEqual)
+    private int countBefore(LocalDateTime time, boolean includeEqual) {
+        if (time.isBefore(start)) {
+            return 0;
+        }
+        // Estimate from whole units elapsed, then correct by stepping
+        long estimate = Math.min(count, unit.between(start, time) / interval);
+        int index = (int) Math.max(0, estimate - 1);
+        while (index < count && isBefore(occurrenceTime(index), time, includeEqual)) {
+            index++;
+        }
+        while (index > 0 && !isBefore(occurrenceTime(index - 1), time, includeEqual)) {
+            index--;
+        }
+        return index;
+    }
+
+    private static boolean isBefore(LocalDateTime occurrence, LocalDateTime time, boolean includeEqual) {
+        return occurrence.isBefore(time) || includeEqual && occurrence.isEqual(time);
+    }
+
+    // Number of occurrences at or before until
+    private int countUntil(LocalDateTime until) {
+        long estimate = unit.between(start, until) / interval + 1;
+        while (estimate > 0 && start.plus((estimate - 1) * interval, unit).isAfter(until)) {
+            estimate--;
+        }
+        while (!start.plus(estimate * interval, unit).isAfter(until)) {
+            estimate++;
+        }
+        if (estimate > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many occurrences");
+        }
+        return (int) estimate;
+    }
+
+    @Override
+    public String toString() {
+        String unitName = unit.toString().toLowerCase(Locale.ROOT);
+        return "Recurring{" +
+                "Type: '" + type.getName() + "'" +
+                ", Every: " + (interval == 1 ? unitName.substring(0, unitName.length() - 1) : interval + " " + unitName) +
+                ", From: " + start.format(Appointment.DATE_TIME_FORMAT) +
+                (until != null ? ", Until: " + until.format(Appointment.DATE_TIME_FORMAT) : "") +
+                ", Occurrences: " + count +
+                ", Duration: " + durationMinutes + " min" +
+                ", Notes: '" + (notes.isEmpty() ? "None" : notes) + "'" +
+                '}';
+    }
+}
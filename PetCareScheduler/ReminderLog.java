@@ -0,0 +1,44 @@
+package PetCareScheduler;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Reminder sink that appends one line per reminder to a text file
+ */
+public class ReminderLog implements ReminderSink, Closeable {
+    private final BufferedWriter writer;
+    private final StringBuilder line = new StringBuilder(256);
+
+    public ReminderLog(Path file) throws IOException {
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void remind(Pet pet, Appointment appointment, Duration leadTime) throws IOException {
+        Appointment.DATE_TIME_FORMAT.formatTo(LocalDateTime.now(), line);
+        line.append(" Reminder (").append(ReminderService.formatLeadTime(leadTime)).append(" ahead): ")
+                .append(pet.getName()).append(" (ID: ").append(pet.getPetId()).append(") | Owner: ")
+                .append(pet.getOwnerName()).append(" | Contact: ").append(pet.getContactInfo()).append(" | ");
+        appointment.appendTo(line).append(System.lineSeparator());
+        writer.append(line);
+        line.setLength(0);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,313 @@
+package PetCareScheduler;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends appointment reminders to a sink at configured lead times before each
+ * appointment (e.g. a day and an hour ahead). Timers sit in a timing wheel
+ * with one-minute ticks, bucketed by minute, hour and day of the year, so
+ * adding one and firing it are O(1) however many are pending.
+ *
+ * Registered as a listener on the pets' registries, so the wheel fills as
+ * appointments are loaded and scheduled. Each appointment has one pending
+ * timer at a time, for its next reminder; a recurring rule has one for its
+ * next occurrence, so rules are expanded an occurrence at a time. Reminders
+ * already due when an appointment is added are skipped, which also keeps a
+ * restart from repeating them; appointments and rules removed after being
+ * added are dropped when their reminder comes due. A reminder the sink fails
+ * to take is retried on the next tick until its appointment starts, and the
+ * rest of the batch is still sent.
+ */
+public class ReminderService implements PetListener {
+    private static final int[] WHEEL_SIZES = {60, 24, 366}; // Minutes, hours, days
+    private static final long TICK_INTERVAL_SECONDS = 5;
+
+    // The pending reminder of one appointment, or of one occurrence of a rule
+    private static final class Reminder extends TimingWheel.Entry {
+        final Pet pet;
+        final Appointment appointment;
+        final RecurrenceRule rule; // Set for an occurrence of a rule
+        final int occurrence;
+        int lead; // Index into leadTimes
+        boolean first; // First reminder of a rule occurrence; firing it queues the next occurrence
+
+        Reminder(Pet pet, Appointment appointment, RecurrenceRule rule, int occurrence, int lead) {
+            this.pet = pet;
+            this.appointment = appointment;
+            this.rule = rule;
+            this.occurrence = occurrence;
+            this.lead = lead;
+            this.first = rule != null;
+        }
+    }
+
+    private final ReminderSink sink;
+    private final Duration[] leadTimes; // Longest first
+    private final TimingWheel<Reminder> wheel; // Guarded by itself
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Reminders from now on, at each of the lead times before an appointment
+     */
+    public ReminderService(ReminderSink sink, List<Duration> leadTimes, LocalDateTime now) {
+        if (leadTimes.isEmpty()) {
+            throw new IllegalArgumentException("At least one reminder lead time is needed");
+        }
+        this.sink = sink;
+        this.leadTimes = leadTimes.stream().distinct().sorted((a, b) -> b.compareTo(a)).toArray(Duration[]::new);
+        if (this.leadTimes[this.leadTimes.length - 1].isNegative()) {
+            throw new IllegalArgumentException("Reminder lead times cannot be negative");
+        }
+        this.wheel = new TimingWheel<>(tick(now), WHEEL_SIZES);
+    }
+
+    /**
+     * Parse comma-separated lead times such as "1d,2h,30m" (w, d, h or m)
+     */
+    public static List<Duration> parseLeadTimes(String leadTimes) {
+        List<Duration> parsed = new ArrayList<>();
+        for (String leadTime : leadTimes.split(",")) {
+            String value = leadTime.trim().toLowerCase(Locale.ROOT);
+            if (value.length() < 2) {
+                throw new IllegalArgumentException("Invalid reminder lead time: " + leadTime);
+            }
+            long amount;
+            try {
+                amount = Long.parseLong(value.substring(0, value.length() - 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid reminder lead time: " + leadTime);
+            }
+            switch (value.charAt(value.length() - 1)) {
+                case 'w':
+                    parsed.add(Duration.ofDays(amount * 7));
+                    break;
+                case 'd':
+                    parsed.add(Duration.ofDays(amount));
+                    break;
+                case 'h':
+                    parsed.add(Duration.ofHours(amount));
+                    break;
+                case 'm':
+                    parsed.add(Duration.ofMinutes(amount));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Reminder lead times end in w, d, h or m: " + leadTime);
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Short form of a lead time, e.g. 1d, 2h or 90m
+     */
+    public static String formatLeadTime(Duration leadTime) {
+        long minutes = leadTime.toMinutes();
+        if (minutes != 0 && minutes % (24 * 60) == 0) {
+            return minutes / (24 * 60) + "d";
+        }
+        return minutes != 0 && minutes % 60 == 0 ? minutes / 60 + "h" : minutes + "m";
+    }
+
+    // Minutes since the epoch, reading date-times as local wall-clock time
+    private static long tick(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    public int getPendingCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Check for due reminders every few seconds on a daemon thread, until close()
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> {
+            try {
+                advanceTo(LocalDateTime.now());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not send reminders: " + e.getMessage());
+            }
+        }, 0, TICK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.shutdown();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Send every reminder due by now. If the sink fails, the reminders it did not
+     * take are queued again for the next tick and the first failure is rethrown
+     * once the others have been sent.
+     */
+    public synchronized void advanceTo(LocalDateTime now) throws IOException {
+        long tick = tick(now);
+        List<Reminder> due = new ArrayList<>();
+        Exception failure = null;
+        while (true) {
+            // Collect under the wheel's lock, but check and send without it: checking takes
+            // the pet's lock, which listeners already hold when they take the wheel's
+            synchronized (wheel) {
+                wheel.advanceTo(tick, due::add);
+            }
+            if (due.isEmpty()) {
+                break;
+            }
+            for (Reminder reminder : due) {
+                try {
+                    fire(reminder);
+                } catch (IOException | RuntimeException e) {
+                    retry(reminder);
+                    failure = addFailure(failure, e);
+                }
+            }
+            due.clear();
+            try {
+                sink.flush();
+            } catch (IOException | RuntimeException e) {
+                failure = addFailure(failure, e);
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    private static Exception addFailure(Exception first, Exception next) {
+        if (first == null) {
+            return next;
+        }
+        first.addSuppressed(next);
+        return first;
+    }
+
+    // Queue a reminder the sink did not take for the next tick, unless its appointment has started
+    private void retry(Reminder reminder) {
+        LocalDateTime time = reminder.rule == null
+                ? reminder.appointment.getDateTime() : reminder.rule.occurrenceTime(reminder.occurrence);
+        synchronized (wheel) {
+            long next = wheel.getCurrentTick() + 1;
+            if (tick(time) >= next) {
+                wheel.schedule(reminder, next);
+            } else if (reminder.first) {
+                // Dropped, but the rule's later occurrences still get their reminders
+                reminder.first = false;
+                startRule(reminder.pet, reminder.rule, reminder.occurrence + 1);
+            }
+        }
+    }
+
+    private void fire(Reminder reminder) throws IOException {
+        Appointment appointment = reminder.rule == null
+                ? reminder.appointment : reminder.rule.occurrence(reminder.occurrence);
+        if (!isBooked(reminder)) {
+            return;
+        }
+        sink.remind(reminder.pet, appointment, leadTimes[reminder.lead]);
+
+        synchronized (wheel) {
+            if (reminder.first) {
+                reminder.first = false;
+                startRule(reminder.pet, reminder.rule, reminder.occurrence + 1);
+            }
+            if (reminder.lead + 1 < leadTimes.length) {
+                reminder.lead++;
+                wheel.schedule(reminder, tick(appointment.getDateTime().minus(leadTimes[reminder.lead])));
+            }
+        }
+    }
+
+    // Whether the appointment or rule is still on the pet's books
+    private static boolean isBooked(Reminder reminder) {
+        if (reminder.rule != null) {
+            return reminder.pet.getRecurrences().contains(reminder.rule);
+        }
+        LocalDateTime time = reminder.appointment.getDateTime();
+        for (Appointment appointment : reminder.pet.getAppointmentsBetween(time, true, time, true)) {
+            if (appointment == reminder.appointment) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void appointmentAdded(Pet pet, Appointment appointment) {
+        synchronized (wheel) {
+            int lead = firstLead(appointment.getDateTime());
+            if (lead >= 0) {
+                Reminder reminder = new Reminder(pet, appointment, null, 0, lead);
+                wheel.schedule(reminder, tick(appointment.getDateTime().minus(leadTimes[lead])));
+            }
+        }
+    }
+
+    @Override
+    public void appointmentRemoved(Pet pet, Appointment appointment) {
+        // Dropped when its reminder comes due
+    }
+
+    @Override
+    public void recurrenceAdded(Pet pet, RecurrenceRule rule) {
+        synchronized (wheel) {
+            startRule(pet, rule, 0);
+        }
+    }
+
+    // Queue the first reminder of the earliest occurrence, from index from, that still has one to come
+    private void startRule(Pet pet, RecurrenceRule rule, int from) {
+        // Occurrence times only increase, so binary search for the first whose last reminder is not yet due
+        long earliest = wheel.getCurrentTick();
+        Duration shortest = leadTimes[leadTimes.length - 1];
+        int low = from;
+        int high = rule.getCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tick(rule.occurrenceTime(mid).minus(shortest)) < earliest) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == rule.getCount()) {
+            return;
+        }
+        LocalDateTime time = rule.occurrenceTime(low);
+        int lead = firstLead(time);
+        wheel.schedule(new Reminder(pet, null, rule, low, lead), tick(time.minus(leadTimes[lead])));
+    }
+
+    // The longest lead time whose reminder for an appointment at time is not yet due, or -1
+    private int firstLead(LocalDateTime time) {
+        long current = wheel.getCurrentTick();
+        for (int lead = 0; lead < leadTimes.length; lead++) {
+            if (tick(time.minus(leadTimes[lead])) >= current) {
+                return lead;
+            }
+        }
+        return -1;
+    }
+}
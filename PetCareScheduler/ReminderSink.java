@@ -0,0 +1,16 @@
+package PetCareScheduler;
+import java.io.Flushable;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Destination for appointment reminders, e.g. a log file or a messaging
+ * gateway. Called from the reminder thread only; flush() follows each batch.
+ */
+public interface ReminderSink extends Flushable {
+
+    /**
+     * The appointment starts in leadTime
+     */
+    void remind(Pet pet, Appointment appointment, Duration leadTime) throws IOException;
+}
@@ -0,0 +1,252 @@
+package PetCareScheduler;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded LRU cache of computed report results, keyed by report kind and
+ * time window, with a time-to-live as a backstop.
+ *
+ * As a registry listener it drops only the entries a change can affect: an
+ * appointment added or removed inside a cached appointment window (or a
+ * recurrence rule with an occurrence there), a vet visit or vet rule removed at
+ * or after a cached overdue cutoff, or a newly registered pet that is overdue
+ * at a cached cutoff. A result computed while such a change happens
+ * is not stored.
+ */
+public class ReportCache implements PetListener {
+
+    public enum Kind {
+        /** Appointments grouped by pet, starting in [from, to) */
+        APPOINTMENTS,
+        /** Pets whose last vet visit is before to, or who never had one */
+        OVERDUE_VET
+    }
+
+    /**
+     * Cache key: a report kind and its window (from is unused for OVERDUE_VET)
+     */
+    public static final class Key {
+        private final Kind kind;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        public Key(Kind kind, LocalDateTime from, LocalDateTime to) {
+            this.kind = kind;
+            this.from = from;
+            this.to = to;
+        }
+
+        // Whether an appointment change at this time can change the result
+        boolean affectedBy(Appointment appointment, boolean removed) {
+            LocalDateTime time = appointment.getDateTime();
+            if (kind == Kind.APPOINTMENTS) {
+                return !time.isBefore(from) && time.isBefore(to);
+            }
+            // Adding a vet visit can only take a pet off the list, which readers filter live
+            return removed && Pet.isVetVisit(appointment) && !time.isBefore(to);
+        }
+
+        // Whether adding or removing a recurrence rule can change the result
+        boolean affectedBy(RecurrenceRule rule, boolean removed) {
+            if (kind == Kind.APPOINTMENTS) {
+                return rule.occursBetween(from, to);
+            }
+            return removed && rule.getType().isVet() && !rule.getLast().isBefore(to);
+        }
+
+        // Whether registering a pet with this last vet visit can change the result
+        boolean affectedByRegistration(LocalDateTime lastVetVisit) {
+            return kind == Kind.OVERDUE_VET && (lastVetVisit == null || lastVetVisit.isBefore(to));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return kind == other.kind && Objects.equals(from, other.from) && Objects.equals(to, other.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, from, to);
+        }
+
+        @Override
+        public String toString() {
+            return kind + "[" + from + ", " + to + ")";
+        }
+    }
+
+    private static final class Result {
+        final Object value;
+        final long expiresAt;
+
+        Result(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // A computation in progress; marked stale if a change affects it before it is stored
+    private static final class Fill {
+        final Key key;
+        boolean stale;
+
+        Fill(Key key) {
+            this.key = key;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Result> entries;
+    private final List<Fill> pending = new ArrayList<>();
+    private long hits;
+    private long misses;
+
+    public ReportCache(int maxEntries, Duration ttl) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<Key, Result>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Result> eldest) {
+                return size() > ReportCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Cached result for the key, computing and caching it on a miss.
+     * The computation runs without the cache lock held.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key key, Supplier<T> compute) {
+        Fill fill;
+        synchronized (this) {
+            Result result = entries.get(key);
+            if (result != null && result.expiresAt - System.nanoTime() > 0) {
+                hits++;
+                return (T) result.value;
+            }
+            misses++;
+            fill = new Fill(key);
+            pending.add(fill);
+        }
+
+        T value = null;
+        try {
+            value = compute.get();
+            return value;
+        } finally {
+            synchronized (this) {
+                pending.remove(fill);
+                if (value != null && !fill.stale) {
+                    entries.put(key, new Result(value, System.nanoTime() + ttlNanos));
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        for (Fill fill : pending) {
+            fill.stale = true;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    @Override
+    public void appointmentAdded(Pet pet, Appointment appointment) {
+        invalidate(appointment, false);
+    }
+
+    @Override
+    public void appointmentRemoved(Pet pet, Appointment appointment) {
+        invalidate(appointment, true);
+    }
+
+    @Override
+    public void recurrenceAdded(Pet pet, RecurrenceRule rule) {
+        invalidate(rule, false);
+    }
+
+    @Override
+    public void recurrenceRemoved(Pet pet, RecurrenceRule rule) {
+        invalidate(rule, true);
+    }
+
+    @Override
+    public void petRegistered(Pet pet) {
+        // Read before locking: listeners are called with the pet's lock held, so never take it under ours
+        LocalDateTime lastVetVisit = pet.getLastVetVisit();
+        synchronized (this) {
+            for (Iterator<Key> keys = entries.keySet().iterator(); keys.hasNext(); ) {
+                if (keys.next().affectedByRegistration(lastVetVisit)) {
+                    keys.remove();
+                }
+            }
+            for (Fill fill : pending) {
+                fill.stale |= fill.key.affectedByRegistration(lastVetVisit);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void petUpdated(Pet pet) {
+        // Owner and contact changes do not change results, but a vet visit loaded from the archive
+        // or a history can move the pet off any overdue list; those are rare, so drop overdue results
+        for (Iterator<Key> keys = entries.keySet().iterator(); keys.hasNext(); ) {
+            if (keys.next().kind == Kind.OVERDUE_VET) {
+                keys.remove();
+            }
+        }
+        for (Fill fill : pending) {
+            fill.stale |= fill.key.kind == Kind.OVERDUE_VET;
+        }
+    }
+
+    private synchronized void invalidate(Appointment appointment, boolean removed) {
+        for (Iterator<Key> keys = entries.keySet().iterator(); keys.hasNext(); ) {
+            if (keys.next().affectedBy(appointment, removed)) {
+                keys.remove();
+            }
+        }
+        for (Fill fill : pending) {
+            fill.stale |= fill.key.affectedBy(appointment, removed);
+        }
+    }
+
+    private synchronized void invalidate(RecurrenceRule rule, boolean removed) {
+        for (Iterator<Key> keys = entries.keySet().iterator(); keys.hasNext(); ) {
+            if (keys.next().affectedBy(rule, removed)) {
+                keys.remove();
+            }
+        }
+        for (Fill fill : pending) {
+            fill.stale |= fill.key.affectedBy(rule, removed);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package PetCareScheduler;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Destination for report rows. Reports call these as they walk the data, so
+ * rows are written as a stream and a full result is never held in memory.
+ * Implementations buffer their output; call flush() before handing the
+ * underlying stream to anything else.
+ */
+public interface ReportSink extends Closeable, Flushable {
+
+    /**
+     * Start a report section
+     */
+    void beginReport(String title) throws IOException;
+
+    /**
+     * A pet whose rows follow, optionally with owner and contact details
+     */
+    void petHeader(Pet pet, boolean withContact) throws IOException;
+
+    void appointment(Pet pet, Appointment appointment) throws IOException;
+
+    /**
+     * A pet with its latest vet visit, or null if it never had one
+     */
+    void lastVetVisit(Pet pet, LocalDateTime lastVetVisit) throws IOException;
+
+    /**
+     * A pet's full record
+     */
+    void pet(Pet pet) throws IOException;
+
+    /**
+     * The report found nothing to list
+     */
+    void noResults(String message) throws IOException;
+
+    /**
+     * An empty in-memory sink in this sink's format, for rendering one
+     * partition of a report on another thread; see append
+     */
+    ReportSink partition();
+
+    /**
+     * Write out a finished partition's rows as if they had been written here
+     */
+    void append(ReportSink partition) throws IOException;
+}
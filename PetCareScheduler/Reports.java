@@ -0,0 +1,376 @@
+package PetCareScheduler;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Record listings and reports over the scheduler's data, written to a sink
+ * row by row. The reference time is passed in so that reports can be reproduced.
+ *
+ * Pets are split into partitions that are rendered in parallel on the common
+ * fork-join pool, each into an in-memory partition of the sink, and appended
+ * in pet order. Output is identical to a sequential run; only a bounded number
+ * of rendered partitions is held at a time.
+ *
+ * Weekly and overdue results are cached per hour-aligned window (see
+ * ReportCache), so repeated runs only re-render.
+ *
+ * Over a ShardedScheduler, each shard's pets are partitioned separately and
+ * the shards are listed in order, giving one merged report.
+ */
+public class Reports {
+    private static final int PARTITION_SIZE = 1024; // Pets per partition
+    private static final int MAX_IN_FLIGHT = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final int CACHE_ENTRIES = 64;
+    private static final Duration CACHE_TTL = Duration.ofMinutes(10);
+
+    private static final boolean PARALLEL = Runtime.getRuntime().availableProcessors() > 1;
+
+    // A shard's service and its result cache (null if uncached)
+    private static final class Shard {
+        final SchedulerService service;
+        final ReportCache cache;
+
+        Shard(SchedulerService service, ReportCache cache) {
+            this.service = service;
+            this.cache = cache;
+            if (cache != null) {
+                service.getRegistry().addListener(cache);
+            }
+        }
+    }
+
+    private final List<Shard> shards;
+    private final boolean parallel;
+    private final Metrics metrics;
+
+    public Reports(SchedulerService service) {
+        this(service, PARALLEL, new ReportCache(CACHE_ENTRIES, CACHE_TTL));
+    }
+
+    /**
+     * Reports that render on the calling thread only, unless parallel is set,
+     * and cache weekly and overdue results in the given cache (or not at all, if null)
+     */
+    public Reports(SchedulerService service, boolean parallel, ReportCache cache) {
+        this.shards = Collections.singletonList(new Shard(service, cache));
+        this.parallel = parallel;
+        this.metrics = new Metrics();
+    }
+
+    /**
+     * Reports merged across all shards, each shard with its own cache, timed
+     * into the scheduler's metrics
+     */
+    public Reports(ShardedScheduler scheduler) {
+        List<Shard> shards = new ArrayList<>(scheduler.getShards().size());
+        for (SchedulerService service : scheduler.getShards()) {
+            shards.add(new Shard(service, new ReportCache(CACHE_ENTRIES, CACHE_TTL)));
+        }
+        this.shards = Collections.unmodifiableList(shards);
+        this.parallel = PARALLEL;
+        this.metrics = scheduler.getMetrics();
+    }
+
+    /**
+     * All registered pets
+     */
+    public void allPets(ReportSink out) throws IOException {
+        long start = System.nanoTime();
+        try {
+            out.beginReport("All Registered Pets");
+            if (shards.stream().allMatch(shard -> shard.service.getRegistry().isEmpty())) {
+                out.noResults("No pets registered.");
+                return;
+            }
+
+            writePartitioned(petsPerShard(), out, (pets, sink) -> {
+                for (Pet pet : pets) {
+                    sink.pet(pet);
+                }
+                return !pets.isEmpty();
+            });
+        } finally {
+            metrics.record(Metrics.Operation.REPORT_ALL_PETS, start);
+        }
+    }
+
+    /**
+     * Upcoming appointments for all pets
+     */
+    public void upcomingAppointments(ReportSink out, LocalDateTime now) throws IOException {
+        long start = System.nanoTime();
+        try {
+            out.beginReport("Upcoming Appointments");
+            if (!appointmentsPerPet(out, now, false, null, false, false, null)) {
+                out.noResults("No upcoming appointments found.");
+            }
+        } finally {
+            metrics.record(Metrics.Operation.REPORT_UPCOMING, start);
+        }
+    }
+
+    /**
+     * Past appointments for all pets, most recent first, including those moved
+     * to each shard's archive (read for this report only)
+     */
+    public void pastAppointments(ReportSink out, LocalDateTime now) throws IOException {
+        long start = System.nanoTime();
+        try {
+            out.beginReport("Past Appointments");
+            if (!appointmentsPerPet(out, null, false, now, false, true, now)) {
+                out.noResults("No past appointments found.");
+            }
+        } finally {
+            metrics.record(Metrics.Operation.REPORT_PAST, start);
+        }
+    }
+
+    /**
+     * Pets with appointments in the week after now
+     */
+    public void weeklyReport(ReportSink out, LocalDateTime now) throws IOException {
+        long start = System.nanoTime();
+        try {
+            out.beginReport("Pets with Appointments in Next Week");
+            LocalDateTime nextWeek = now.plusWeeks(1);
+
+            // The cached window starts on the hour and covers a week from any time in that hour;
+            // it is narrowed to (now, nextWeek) while writing
+            LocalDateTime from = now.truncatedTo(ChronoUnit.HOURS);
+            LocalDateTime to = from.plusWeeks(1).plusHours(1);
+            ReportCache.Key key = new ReportCache.Key(ReportCache.Kind.APPOINTMENTS, from, to);
+            List<Iterable<Map.Entry<Pet, List<Appointment>>>> weekly = new ArrayList<>(shards.size());
+            for (Shard shard : shards) {
+                weekly.add(cached(shard, key,
+                        () -> shard.service.getRegistry().appointmentsByPet(from, true, to, false, false)).entrySet());
+            }
+
+            boolean hasAppointments = writePartitioned(weekly, out, (entries, sink) -> {
+                boolean any = false;
+                for (Map.Entry<Pet, List<Appointment>> entry : entries) {
+                    Pet pet = entry.getKey();
+                    boolean listed = false;
+                    for (Appointment appointment : entry.getValue()) {
+                        if (appointment.getDateTime().isAfter(now) && appointment.getDateTime().isBefore(nextWeek)) {
+                            if (!listed) {
+                                sink.petHeader(pet, true);
+                                listed = true;
+                            }
+                            sink.appointment(pet, appointment);
+                        }
+                    }
+                    any |= listed;
+                }
+                return any;
+            });
+
+            if (!hasAppointments) {
+                out.noResults("No appointments scheduled for the next week.");
+            }
+        } finally {
+            metrics.record(Metrics.Operation.REPORT_WEEKLY, start);
+        }
+    }
+
+    /**
+     * Pets with no vet visit in the six months before now
+     */
+    public void overdueVetReport(ReportSink out, LocalDateTime now) throws IOException {
+        long start = System.nanoTime();
+        try {
+            out.beginReport("Pets Overdue for Vet Visit");
+            LocalDateTime sixMonthsAgo = now.minusMonths(6);
+
+            // Candidates come from the maintained last-vet-visit index as of the end of the hour,
+            // a superset that is narrowed to the exact cutoff while writing
+            LocalDateTime candidateCutoff = now.truncatedTo(ChronoUnit.HOURS).plusHours(1).minusMonths(6);
+            ReportCache.Key key = new ReportCache.Key(ReportCache.Kind.OVERDUE_VET, null, candidateCutoff);
+            List<Iterable<Pet>> candidates = new ArrayList<>(shards.size());
+            for (Shard shard : shards) {
+                candidates.add(cached(shard, key, () -> shard.service.getOverdueVetIndex().overdueAsOf(candidateCutoff)));
+            }
+
+            boolean hasOverdue = writePartitioned(candidates, out, (pets, sink) -> {
+                boolean any = false;
+                for (Pet pet : pets) {
+                    LocalDateTime lastVetVisit = pet.getLastVetVisit();
+                    if (lastVetVisit == null || lastVetVisit.isBefore(sixMonthsAgo)) {
+                        sink.lastVetVisit(pet, lastVetVisit);
+                        any = true;
+                    }
+                }
+                return any;
+            });
+
+            if (!hasOverdue) {
+                out.noResults("All pets are up to date with vet visits.");
+            }
+        } finally {
+            metrics.record(Metrics.Operation.REPORT_OVERDUE_VET, start);
+        }
+    }
+
+    private static <T> T cached(Shard shard, ReportCache.Key key, Supplier<T> compute) {
+        return shard.cache == null ? compute.get() : shard.cache.get(key, compute);
+    }
+
+    private List<Iterable<Pet>> petsPerShard() {
+        List<Iterable<Pet>> pets = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            pets.add(shard.service.getRegistry().getPets());
+        }
+        return pets;
+    }
+
+    // Write each pet's appointments in the range, pet by pet in registration order. They are
+    // taken from each shard's time index, O(log n + k), and grouped by pet; if archivedBefore
+    // is set, archived appointments before it are read and merged in. Returns false if there were none
+    private boolean appointmentsPerPet(ReportSink out, LocalDateTime from, boolean fromInclusive,
+                                       LocalDateTime to, boolean toInclusive, boolean descending,
+                                       LocalDateTime archivedBefore) throws IOException {
+        List<Iterable<Map.Entry<Pet, List<Appointment>>>> grouped = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            PetRegistry registry = shard.service.getRegistry();
+            Map<Pet, List<Appointment>> inRange = registry.appointmentsByPet(from, fromInclusive, to, toInclusive,
+                    false);
+            AppointmentArchive archive = archivedBefore == null ? null : shard.service.getDataStore().getArchive();
+            if (archive != null) {
+                Map<Pet, List<Appointment>> merged = new IdentityHashMap<>(inRange);
+                for (Map.Entry<Pet, List<Appointment>> older : archive.read(registry, archivedBefore).entrySet()) {
+                    merged.merge(older.getKey(), older.getValue(),
+                            (current, archived) -> AppointmentArchive.merge(archived, current));
+                }
+                inRange = registry.inRegistrationOrder(merged);
+            }
+            grouped.add(inRange.entrySet());
+        }
+
+        return writePartitioned(grouped, out, (entries, sink) -> {
+            boolean any = false;
+            for (Map.Entry<Pet, List<Appointment>> entry : entries) {
+                Pet pet = entry.getKey();
+                List<Appointment> appointments = entry.getValue();
+                if (appointments.isEmpty()) {
+                    continue;
+                }
+                sink.petHeader(pet, false);
+                for (int i = 0; i < appointments.size(); i++) {
+                    sink.appointment(pet, appointments.get(descending ? appointments.size() - 1 - i : i));
+                }
+                any = true;
+            }
+            return any;
+        });
+    }
+
+    // Writes the rows for one partition of items; returns false if it wrote none
+    private interface PartitionWriter<T> {
+        boolean write(List<T> partition, ReportSink sink) throws IOException;
+    }
+
+    // Render each shard's items partition by partition, in parallel when there is more
+    // than one partition, appending the results in order; returns false if no rows were written
+    private <T> boolean writePartitioned(List<? extends Iterable<T>> shardItems, ReportSink out,
+                                         PartitionWriter<T> writer) throws IOException {
+        Partitions<T> partitions = new Partitions<>(shardItems);
+        if (!partitions.hasNext()) {
+            return false;
+        }
+        List<T> partition = partitions.next();
+        if (!parallel || !partitions.hasNext()) {
+            boolean any = writer.write(partition, out);
+            while (partitions.hasNext()) {
+                any |= writer.write(partitions.next(), out);
+            }
+            return any;
+        }
+
+        boolean any = false;
+        Deque<CompletableFuture<ReportSink>> inFlight = new ArrayDeque<>();
+        while (partition != null) {
+            List<T> pending = partition;
+            inFlight.addLast(CompletableFuture.supplyAsync(() -> render(pending, out, writer)));
+            while (inFlight.size() >= MAX_IN_FLIGHT) {
+                any |= merge(inFlight.removeFirst(), out);
+            }
+            partition = partitions.hasNext() ? partitions.next() : null;
+        }
+        while (!inFlight.isEmpty()) {
+            any |= merge(inFlight.removeFirst(), out);
+        }
+        return any;
+    }
+
+    // Consecutive runs of up to PARTITION_SIZE items; a partition never spans two shards
+    private static final class Partitions<T> implements Iterator<List<T>> {
+        private final Iterator<? extends Iterable<T>> shards;
+        private Iterator<T> current = Collections.emptyIterator();
+
+        Partitions(List<? extends Iterable<T>> shardItems) {
+            this.shards = shardItems.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && shards.hasNext()) {
+                current = shards.next().iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public List<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<T> partition = new ArrayList<>(PARTITION_SIZE);
+            while (partition.size() < PARTITION_SIZE && current.hasNext()) {
+                partition.add(current.next());
+            }
+            return partition;
+        }
+    }
+
+    // Runs on a pool thread; returns the rendered partition, or null if it is empty
+    private static <T> ReportSink render(List<T> items, ReportSink out, PartitionWriter<T> writer) {
+        ReportSink sink = out.partition();
+        try {
+            return writer.write(items, sink) ? sink : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean merge(CompletableFuture<ReportSink> future, ReportSink out) throws IOException {
+        ReportSink rendered;
+        try {
+            rendered = future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        if (rendered == null) {
+            return false;
+        }
+        out.append(rendered);
+        return true;
+    }
+}
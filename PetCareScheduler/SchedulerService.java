@@ -0,0 +1,334 @@
+package PetCareScheduler;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Registration and scheduling core, shared by every front end (console menu,
+ * batch jobs, booking feeds).
+ *
+ * Concurrency model:
+ * - Pet lookups (by ID, owner or contact) and listings go through concurrent maps and
+ *   skip lists without locking.
+ * - Registrations are serialized, from the ID check through the journal write.
+ * - Appointment changes lock only the pet being changed, and the global time
+ *   index is a lock-free skip list, so scheduling for different pets runs in parallel.
+ * - Conflict checks and the booking they guard run under the ConflictIndex lock
+ *   stripes of the pets and exclusive resources involved.
+ * - Every mutation is journaled and then applied under the shared side of a
+ *   read-write lock; save/compaction takes the exclusive side, so a snapshot never
+ *   races with a half-journaled change. Journal fsyncs are group-committed.
+ * - A mutation whose journal write fails is not applied, so memory and the
+ *   indexes never show a change that would be gone after a restart.
+ */
+public class SchedulerService {
+    // Appointment types that can only be booked once per slot, comma-separated
+    private static final String EXCLUSIVE_RESOURCES = System.getProperty("petcare.exclusiveResources", "Grooming");
+
+    private final PetRegistry registry;
+    private final DataStore dataStore;
+    private final ConflictIndex conflicts;
+    private final OverdueVetIndex overdueVetIndex = new OverdueVetIndex();
+    private final PetFieldIndex ownerIndex = new PetFieldIndex(Pet::getOwnerName);
+    private final PetFieldIndex contactIndex = new PetFieldIndex(Pet::getContactInfo);
+    private final ReadWriteLock persistenceLock = new ReentrantReadWriteLock();
+    private final Object registrationLock = new Object(); // Holds the ID check until the pet is registered
+
+    public SchedulerService(DataStore dataStore) {
+        this(new PetRegistry(), dataStore);
+    }
+
+    public SchedulerService(PetRegistry registry, DataStore dataStore) {
+        this.registry = registry;
+        this.dataStore = dataStore;
+        this.conflicts = new ConflictIndex(Arrays.asList(EXCLUSIVE_RESOURCES.split("\\s*,\\s*")));
+        registry.addListener(conflicts);
+        registry.addListener(overdueVetIndex);
+        registry.addListener(ownerIndex);
+        registry.addListener(contactIndex);
+    }
+
+    public PetRegistry getRegistry() {
+        return registry;
+    }
+
+    public DataStore getDataStore() {
+        return dataStore;
+    }
+
+    public OverdueVetIndex getOverdueVetIndex() {
+        return overdueVetIndex;
+    }
+
+    public PetFieldIndex getOwnerIndex() {
+        return ownerIndex;
+    }
+
+    public PetFieldIndex getContactIndex() {
+        return contactIndex;
+    }
+
+    public Pet findPet(String petId) {
+        return registry.findById(petId);
+    }
+
+    /**
+     * Load the registry from the data store; returns {petStats, appointmentStats, journalStats}
+     */
+    public BulkLoader.LoadStats[] load() throws IOException {
+        persistenceLock.writeLock().lock();
+        try {
+            return dataStore.load(registry);
+        } finally {
+            persistenceLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Register a new pet and journal it; throws ConflictException if its ID is taken
+     */
+    public void registerPet(Pet pet) throws IOException {
+        validate(pet);
+
+        persistenceLock.readLock().lock();
+        try {
+            synchronized (registrationLock) {
+                if (registry.contains(pet.getPetId())) {
+                    throw new ConflictException("Pet ID already exists: " + pet.getPetId());
+                }
+                dataStore.recordPet(pet);
+                registry.register(pet);
+            }
+        } finally {
+            persistenceLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Register a batch of new pets and journal them with a single sync.
+     * Pets whose ID is already taken are skipped; returns the pets registered.
+     */
+    public List<Pet> registerPets(List<Pet> pets) throws IOException {
+        for (Pet pet : pets) {
+            validate(pet);
+        }
+
+        List<Pet> registered = new ArrayList<>(pets.size());
+        persistenceLock.readLock().lock();
+        try {
+            synchronized (registrationLock) {
+                Set<String> ids = new HashSet<>();
+                for (Pet pet : pets) {
+                    if (!registry.contains(pet.getPetId()) && ids.add(PetRegistry.normalizeId(pet.getPetId()))) {
+                        registered.add(pet);
+                    }
+                }
+                if (!registered.isEmpty()) {
+                    dataStore.recordPets(registered);
+                }
+                for (Pet pet : registered) {
+                    registry.register(pet);
+                }
+            }
+        } finally {
+            persistenceLock.readLock().unlock();
+        }
+        return registered;
+    }
+
+    private static void validate(Pet pet) {
+        if (pet.getPetId() == null || pet.getPetId().trim().isEmpty()) {
+            throw new IllegalArgumentException("Pet ID cannot be empty");
+        }
+        if (pet.getAge() < 0) {
+            throw new IllegalArgumentException("Age cannot be negative");
+        }
+    }
+
+    /**
+     * Schedule a future appointment for a registered pet and journal it;
+     * double bookings of the pet or of an exclusive resource are rejected with a ConflictException
+     */
+    public Pet scheduleAppointment(String petId, Appointment appointment) throws IOException {
+        return bookAll(Collections.singletonList(new BookingRequest(petId, appointment))).get(0);
+    }
+
+    /**
+     * Book a batch of appointments atomically: if any request is invalid or
+     * conflicts with an existing booking or another request, nothing is booked.
+     * Returns the pets booked for, in request order.
+     */
+    public List<Pet> bookAll(List<BookingRequest> requests) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        List<Pet> pets = new ArrayList<>(requests.size());
+        List<Appointment> appointments = new ArrayList<>(requests.size());
+        for (BookingRequest request : requests) {
+            Appointment appointment = request.getAppointment();
+            if (appointment.getDateTime() == null || appointment.getDateTime().isBefore(now)) {
+                throw new IllegalArgumentException("Appointment must be scheduled for a future date and time");
+            }
+            Pet pet = registry.findById(request.getPetId());
+            if (pet == null) {
+                throw new IllegalArgumentException("Pet with ID " + request.getPetId() + " not found");
+            }
+            pets.add(pet);
+            appointments.add(appointment);
+        }
+
+        persistenceLock.readLock().lock();
+        List<ReentrantLock> held = conflicts.lock(pets, appointments);
+        try {
+            String conflict = pets.size() == 1
+                    ? conflicts.findConflict(pets.get(0), appointments.get(0))
+                    : conflicts.findConflict(pets, appointments);
+            if (conflict != null) {
+                throw new ConflictException("Scheduling conflict: " + conflict);
+            }
+            dataStore.recordAppointments(pets, appointments);
+            for (int i = 0; i < pets.size(); i++) {
+                pets.get(i).addAppointment(appointments.get(i));
+            }
+        } finally {
+            conflicts.unlock(held);
+            persistenceLock.readLock().unlock();
+        }
+        return pets;
+    }
+
+    /**
+     * Book each request on its own: requests that are invalid or conflict with an
+     * existing booking or an earlier request in the batch are rejected, and the rest
+     * are booked. Each pet is looked up once, every date is checked against the same
+     * now, each pet gets its new appointments in one merge, and the bookings are
+     * journaled with a single sync. Returns one result per request, in request order.
+     */
+    public List<BookingResult> bookEach(List<BookingRequest> requests) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        BookingResult[] results = new BookingResult[requests.size()];
+        Map<String, Pet> petsById = new HashMap<>();
+        List<Integer> candidates = new ArrayList<>(requests.size());
+        List<Pet> pets = new ArrayList<>(requests.size());
+        List<Appointment> appointments = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            Appointment appointment = request.getAppointment();
+            if (appointment.getDateTime() == null || appointment.getDateTime().isBefore(now)) {
+                results[i] = BookingResult.rejected(request, "Appointment must be scheduled for a future date and time");
+                continue;
+            }
+            String key = PetRegistry.normalizeId(request.getPetId());
+            Pet pet = petsById.containsKey(key) ? petsById.get(key) : registry.findById(key);
+            petsById.put(key, pet);
+            if (pet == null) {
+                results[i] = BookingResult.rejected(request, "Pet with ID " + request.getPetId() + " not found");
+                continue;
+            }
+            candidates.add(i);
+            pets.add(pet);
+            appointments.add(appointment);
+        }
+
+        persistenceLock.readLock().lock();
+        List<ReentrantLock> held = conflicts.lock(pets, appointments);
+        try {
+            ConflictIndex.Pending pending = conflicts.pending();
+            Map<Pet, List<Appointment>> bookedByPet = new LinkedHashMap<>();
+            List<Pet> bookedPets = new ArrayList<>(pets.size());
+            List<Appointment> booked = new ArrayList<>(pets.size());
+            for (int c = 0; c < candidates.size(); c++) {
+                int i = candidates.get(c);
+                Pet pet = pets.get(c);
+                Appointment appointment = appointments.get(c);
+                String conflict = conflicts.findConflict(pet, appointment);
+                if (conflict == null) {
+                    conflict = pending.findConflict(pet, appointment);
+                }
+                if (conflict != null) {
+                    results[i] = BookingResult.rejected(requests.get(i), "Scheduling conflict: " + conflict);
+                    continue;
+                }
+                pending.add(pet, appointment);
+                bookedByPet.computeIfAbsent(pet, key -> new ArrayList<>()).add(appointment);
+                bookedPets.add(pet);
+                booked.add(appointment);
+                results[i] = BookingResult.booked(requests.get(i), pet);
+            }
+
+            if (!booked.isEmpty()) {
+                dataStore.recordAppointments(bookedPets, booked);
+            }
+            for (Map.Entry<Pet, List<Appointment>> entry : bookedByPet.entrySet()) {
+                entry.getKey().addAppointments(entry.getValue());
+            }
+        } finally {
+            conflicts.unlock(held);
+            persistenceLock.readLock().unlock();
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Add a recurrence rule to a registered pet and journal it; rejects the rule
+     * if any of its occurrences double-books the pet or an exclusive resource
+     */
+    public Pet scheduleRecurrence(String petId, RecurrenceRule rule) throws IOException {
+        if (rule.getStart().isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Appointment must be scheduled for a future date and time");
+        }
+        Pet pet = registry.findById(petId);
+        if (pet == null) {
+            throw new IllegalArgumentException("Pet with ID " + petId + " not found");
+        }
+
+        persistenceLock.readLock().lock();
+        List<ReentrantLock> held = conflicts.lock(Collections.singletonList(pet),
+                Collections.singletonList(rule.occurrence(0)));
+        try {
+            // Each occurrence is checked against existing bookings; rules cannot overlap themselves
+            for (int i = 0; i < rule.getCount(); i++) {
+                String conflict = conflicts.findConflict(pet, rule.occurrence(i));
+                if (conflict != null) {
+                    throw new ConflictException("Scheduling conflict: " + conflict);
+                }
+            }
+            dataStore.recordRecurrence(pet, rule);
+            pet.addRecurrence(rule);
+        } finally {
+            conflicts.unlock(held);
+            persistenceLock.readLock().unlock();
+        }
+        return pet;
+    }
+
+    /**
+     * Make all changes durable, compacting the journal when due
+     */
+    public void save() throws IOException {
+        persistenceLock.writeLock().lock();
+        try {
+            dataStore.save(registry);
+        } finally {
+            persistenceLock.writeLock().unlock();
+        }
+    }
+
+    public void close() throws IOException {
+        persistenceLock.writeLock().lock();
+        try {
+            dataStore.close();
+        } finally {
+            persistenceLock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package PetCareScheduler;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Pets partitioned into independent shards, one per clinic or by hash of the
+ * Pet ID. Each shard is a full SchedulerService with its own files, indexes and
+ * persistence lock, so one shard's growth or save never stalls the others.
+ *
+ * Pet operations are routed to the pet's shard. Loads and saves run shard by
+ * shard in parallel; listings visit the shards in order (see Reports).
+ * Conflict checks are per shard: a clinic's exclusive resources are its own.
+ * Hot operations are timed into the scheduler's Metrics.
+ *
+ * Loading checks that every pet in a shard's files still routes to that shard,
+ * and fails otherwise: changing the shard settings does not move existing pets.
+ * Data written before sharding was turned on can be moved into the shards on
+ * the first load (see setUnsharded).
+ */
+public class ShardedScheduler {
+    private static final String MIGRATING_SUFFIX = ".migrating";
+    private static final String MIGRATED_SUFFIX = ".migrated";
+    private static final int MAX_LISTED_PETS = 10;
+
+    /**
+     * Maps a normalized Pet ID to a shard index
+     */
+    public interface Router {
+        int shardOf(String petId);
+    }
+
+    private final List<String> names;
+    private final List<SchedulerService> shards;
+    private final Router router;
+    private final ExecutorService executor; // Null with a single shard
+    private final Metrics metrics;
+    private DataStore unsharded; // Moved into the shards by load(), or null
+
+    /**
+     * @param names  shard names, index-aligned with shards
+     * @param router picks the shard of a pet; throws IllegalArgumentException for an ID no shard takes
+     */
+    public ShardedScheduler(List<String> names, List<SchedulerService> shards, Router router) {
+        if (shards.isEmpty() || names.size() != shards.size()) {
+            throw new IllegalArgumentException("Need one name per shard and at least one shard");
+        }
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.router = router;
+        this.executor = shards.size() == 1 ? null : Executors.newFixedThreadPool(shards.size(), task -> {
+            Thread thread = new Thread(task, "shard-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.metrics = new Metrics(this::size, this::appointmentCount,
+                () -> sum(shard -> shard.getDataStore().getBytesRead()),
+                () -> sum(shard -> shard.getDataStore().getBytesWritten()));
+    }
+
+    /**
+     * A single shard holding every pet
+     */
+    public static ShardedScheduler single(SchedulerService service) {
+        return new ShardedScheduler(Collections.singletonList(""), Collections.singletonList(service), petId -> 0);
+    }
+
+    /**
+     * Shards "0" to count - 1, chosen by hash of the Pet ID. The hash is stable
+     * across runs, but changing the count moves pets between shards.
+     */
+    public static ShardedScheduler byHash(int count, Function<String, DataStore> storeForShard) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(Integer.toString(i));
+        }
+        return new ShardedScheduler(names, services(names, storeForShard),
+                petId -> (petId.hashCode() & 0x7fffffff) % count);
+    }
+
+    /**
+     * One shard per clinic; a pet belongs to the clinic named by its Pet ID
+     * prefix, e.g. NORTH-0042 to clinic NORTH
+     */
+    public static ShardedScheduler byClinic(List<String> clinics, Function<String, DataStore> storeForShard) {
+        Map<String, Integer> indexes = new LinkedHashMap<>();
+        for (String clinic : clinics) {
+            String key = clinic.trim().toUpperCase(Locale.ROOT);
+            if (key.isEmpty() || key.indexOf('-') >= 0 || indexes.putIfAbsent(key, indexes.size()) != null) {
+                throw new IllegalArgumentException("Clinic names must be distinct, non-empty and without '-': " + clinic);
+            }
+        }
+        List<String> names = new ArrayList<>(indexes.keySet());
+        return new ShardedScheduler(names, services(names, storeForShard), petId -> {
+            int dash = petId.indexOf('-');
+            Integer index = dash > 0 ? indexes.get(petId.substring(0, dash)) : null;
+            if (index == null) {
+                throw new IllegalArgumentException("Pet ID must start with a clinic prefix (one of "
+                        + String.join(", ", names) + ", e.g. " + names.get(0) + "-001): " + petId);
+            }
+            return index;
+        });
+    }
+
+    private static List<SchedulerService> services(List<String> names, Function<String, DataStore> storeForShard) {
+        List<SchedulerService> services = new ArrayList<>(names.size());
+        for (String name : names) {
+            services.add(new SchedulerService(storeForShard.apply(name)));
+        }
+        return services;
+    }
+
+    public List<String> getShardNames() {
+        return names;
+    }
+
+    public List<SchedulerService> getShards() {
+        return shards;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Files written before sharding was turned on: load() first moves their pets into
+     * the shards, if they have any data and the shards have none (see migrate)
+     */
+    public void setUnsharded(DataStore unsharded) {
+        if (unsharded.getHistory() != null) {
+            throw new IllegalArgumentException("Unsharded data must be loaded eagerly to be moved into shards");
+        }
+        this.unsharded = unsharded;
+    }
+
+    /**
+     * Notify the listener of changes to the pets of every shard, including pets loaded later
+     */
+    public void addListener(PetListener listener) {
+        for (SchedulerService shard : shards) {
+            shard.getRegistry().addListener(listener);
+        }
+    }
+
+    /**
+     * The shard a pet belongs to; throws IllegalArgumentException if none takes its ID
+     */
+    public SchedulerService shardFor(String petId) {
+        String key = PetRegistry.normalizeId(petId);
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("Pet ID cannot be empty");
+        }
+        return shards.get(router.shardOf(key));
+    }
+
+    public Pet findPet(String petId) {
+        long start = System.nanoTime();
+        try {
+            return shardFor(petId).findPet(petId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        } finally {
+            metrics.record(Metrics.Operation.FIND_PET, start);
+        }
+    }
+
+    /**
+     * Up to limit pets whose owner name equals the query, or starts with it if prefix
+     * is set, ignoring case; shard by shard, each shard sorted by owner name
+     */
+    public List<Pet> findPetsByOwner(String query, boolean prefix, int limit) {
+        return search(SchedulerService::getOwnerIndex, query, prefix, limit);
+    }
+
+    /**
+     * Up to limit pets whose contact info equals the query, or starts with it if prefix is set, ignoring case
+     */
+    public List<Pet> findPetsByContact(String query, boolean prefix, int limit) {
+        return search(SchedulerService::getContactIndex, query, prefix, limit);
+    }
+
+    private List<Pet> search(Function<SchedulerService, PetFieldIndex> index, String query, boolean prefix,
+                             int limit) {
+        long start = System.nanoTime();
+        try {
+            List<Pet> pets = new ArrayList<>();
+            for (SchedulerService shard : shards) {
+                if (pets.size() >= limit) {
+                    break;
+                }
+                List<Pet> matches = prefix
+                        ? index.apply(shard).findByPrefix(query, limit - pets.size())
+                        : index.apply(shard).find(query);
+                pets.addAll(matches.subList(0, Math.min(matches.size(), limit - pets.size())));
+            }
+            return pets;
+        } finally {
+            metrics.record(Metrics.Operation.SEARCH_PETS, start);
+        }
+    }
+
+    /**
+     * All pets, shard by shard, each shard in registration order
+     */
+    public Iterable<Pet> getPets() {
+        return () -> shards.stream().flatMap(shard -> shard.getRegistry().getPets().stream()).iterator();
+    }
+
+    public int size() {
+        return (int) sum(shard -> shard.getRegistry().size());
+    }
+
+    // Appointments stored across all shards (recurring occurrences are not counted)
+    public long appointmentCount() {
+        return sum(shard -> shard.getRegistry().getAppointmentIndex().size());
+    }
+
+    private long sum(ToLongFunction<SchedulerService> value) {
+        long sum = 0;
+        for (SchedulerService shard : shards) {
+            sum += value.applyAsLong(shard);
+        }
+        return sum;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Load every shard in parallel, after moving any unsharded data in, and check that
+     * each shard's pets route to it; returns the totals {petStats, appointmentStats, journalStats}
+     */
+    public BulkLoader.LoadStats[] load() throws IOException {
+        long start = System.nanoTime();
+        List<BulkLoader.LoadStats[]> loaded;
+        try {
+            if (unsharded != null) {
+                migrate(unsharded);
+            }
+            loaded = forEachShard(SchedulerService::load);
+            checkRouting();
+        } finally {
+            metrics.record(Metrics.Operation.LOAD, start);
+        }
+        long nanos = System.nanoTime() - start;
+
+        BulkLoader.LoadStats[] totals = new BulkLoader.LoadStats[3];
+        for (int i = 0; i < totals.length; i++) {
+            List<BulkLoader.LoadStats> parts = new ArrayList<>(loaded.size());
+            for (BulkLoader.LoadStats[] stats : loaded) {
+                parts.add(stats[i]);
+            }
+            totals[i] = BulkLoader.LoadStats.combine(parts, nanos);
+        }
+        return totals;
+    }
+
+    // Fail if a shard holds a pet the router sends elsewhere, since lookups would not find it
+    // there and its ID could be registered again in the shard it routes to
+    private void checkRouting() throws IOException {
+        List<String> misplaced = new ArrayList<>();
+        int count = 0;
+        for (int i = 0; i < shards.size(); i++) {
+            for (Pet pet : shards.get(i).getRegistry().getPets()) {
+                String routed;
+                try {
+                    int shard = router.shardOf(PetRegistry.normalizeId(pet.getPetId()));
+                    routed = shard == i ? null : "shard " + names.get(shard);
+                } catch (IllegalArgumentException e) {
+                    routed = "no shard";
+                }
+                if (routed != null && count++ < MAX_LISTED_PETS) {
+                    misplaced.add(pet.getPetId() + " (in shard " + names.get(i) + ", routes to " + routed + ")");
+                }
+            }
+        }
+        if (count > 0) {
+            throw new IOException(count + " pets are stored in a shard they no longer route to, so the shard"
+                    + " settings changed since they were saved; restore the previous settings: "
+                    + String.join(", ", misplaced) + (count > misplaced.size() ? ", ..." : ""));
+        }
+    }
+
+    /**
+     * Move the unsharded store's data into the shards the first time sharding is turned on.
+     * Every pet is routed before anything is written, so an ID no shard takes leaves all files
+     * as they were. Each shard's snapshot is then written with its pets, their appointments and
+     * rules, and their archived appointments go to the shard's archive. Last, the unsharded
+     * files and archive are renamed with a ".migrated" suffix so they are not read again.
+     *
+     * A marker next to the unsharded journal records the move in progress: after a crash it
+     * is redone from the unsharded files, overwriting what reached the shards. Without one,
+     * nothing is moved if the unsharded store is empty, and the move is refused if the shards
+     * already hold data, rather than mixing the two.
+     */
+    private void migrate(DataStore unsharded) throws IOException {
+        Path migrating = unsharded.marker(MIGRATING_SUFFIX);
+        Path migrated = unsharded.marker(MIGRATED_SUFFIX);
+        if (Files.exists(migrated)) {
+            // The shards were written; finish moving the unsharded files aside
+            unsharded.moveAside(MIGRATED_SUFFIX);
+            Files.delete(migrated);
+            return;
+        }
+        if (!Files.exists(migrating)) {
+            if (!unsharded.hasData()) {
+                return;
+            }
+            for (int i = 0; i < shards.size(); i++) {
+                if (shards.get(i).getDataStore().hasData()) {
+                    throw new IOException("Found data both in the unsharded files and in shard " + names.get(i)
+                            + "; move one of them aside before loading");
+                }
+            }
+        }
+
+        PetRegistry all = new PetRegistry();
+        unsharded.load(all);
+        unsharded.close();
+        AppointmentArchive archive = unsharded.getArchive();
+        Map<Pet, List<Appointment>> archived = archive == null
+                ? Collections.emptyMap() : archive.read(all, LocalDateTime.MAX);
+
+        List<PetRegistry> registries = new ArrayList<>(shards.size());
+        List<List<Pet>> archivedPets = new ArrayList<>(shards.size());
+        List<List<Appointment>> archivedAppointments = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            registries.add(new PetRegistry());
+            archivedPets.add(new ArrayList<>());
+            archivedAppointments.add(new ArrayList<>());
+        }
+        for (Pet pet : all.getPets()) {
+            int shard;
+            try {
+                shard = router.shardOf(PetRegistry.normalizeId(pet.getPetId()));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Cannot move the unsharded data into shards: " + e.getMessage(), e);
+            }
+            List<Appointment> older = archived.getOrDefault(pet, Collections.emptyList());
+            if (!older.isEmpty() && shards.get(shard).getDataStore().getArchive() == null) {
+                throw new IOException("Cannot move the unsharded archive into shard " + names.get(shard)
+                        + ", which has no archive; turn archiving on first");
+            }
+            for (Appointment appointment : older) {
+                archivedPets.get(shard).add(pet);
+                archivedAppointments.get(shard).add(appointment);
+            }
+            registries.get(shard).register(pet);
+        }
+
+        if (!Files.exists(migrating)) {
+            Files.createFile(migrating);
+        }
+        for (int i = 0; i < shards.size(); i++) {
+            DataStore store = shards.get(i).getDataStore();
+            if (!archivedAppointments.get(i).isEmpty()) {
+                // Records archived twice by a redone move are dropped when read
+                store.getArchive().append(archivedPets.get(i), archivedAppointments.get(i));
+            }
+            store.compact(registries.get(i));
+            store.close();
+        }
+        Files.move(migrating, migrated, StandardCopyOption.ATOMIC_MOVE);
+        unsharded.moveAside(MIGRATED_SUFFIX);
+        Files.delete(migrated);
+    }
+
+    public void registerPet(Pet pet) throws IOException {
+        long start = System.nanoTime();
+        try {
+            shardFor(pet.getPetId()).registerPet(pet);
+        } finally {
+            metrics.record(Metrics.Operation.REGISTER_PET, start);
+        }
+    }
+
+    /**
+     * Register a batch of new pets, journaling once per shard involved; pets whose
+     * ID is already taken are skipped, and pets no shard takes are rejected up front.
+     * Returns the pets registered, shard by shard.
+     */
+    public List<Pet> registerPets(List<Pet> pets) throws IOException {
+        Map<SchedulerService, List<Pet>> byShard = new IdentityHashMap<>();
+        for (Pet pet : pets) {
+            byShard.computeIfAbsent(shardFor(pet.getPetId()), shard -> new ArrayList<>()).add(pet);
+        }
+        List<Pet> registered = new ArrayList<>(pets.size());
+        for (SchedulerService shard : shards) {
+            List<Pet> shardPets = byShard.get(shard);
+            if (shardPets != null) {
+                registered.addAll(shard.registerPets(shardPets));
+            }
+        }
+        return registered;
+    }
+
+    public Pet scheduleAppointment(String petId, Appointment appointment) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return shardFor(petId).scheduleAppointment(petId, appointment);
+        } finally {
+            metrics.record(Metrics.Operation.SCHEDULE_APPOINTMENT, start);
+        }
+    }
+
+    /**
+     * Book each request on its own (see SchedulerService.bookEach), shard by shard;
+     * requests for a Pet ID no shard takes are rejected. Results are in request order.
+     */
+    public List<BookingResult> bookEach(List<BookingRequest> requests) throws IOException {
+        long start = System.nanoTime();
+        try {
+            BookingResult[] results = new BookingResult[requests.size()];
+            Map<SchedulerService, List<Integer>> byShard = new IdentityHashMap<>();
+            for (int i = 0; i < requests.size(); i++) {
+                try {
+                    byShard.computeIfAbsent(shardFor(requests.get(i).getPetId()), shard -> new ArrayList<>()).add(i);
+                } catch (IllegalArgumentException e) {
+                    results[i] = BookingResult.rejected(requests.get(i), e.getMessage());
+                }
+            }
+            for (SchedulerService shard : shards) {
+                List<Integer> indexes = byShard.get(shard);
+                if (indexes == null) {
+                    continue;
+                }
+                List<BookingRequest> shardRequests = new ArrayList<>(indexes.size());
+                for (int i : indexes) {
+                    shardRequests.add(requests.get(i));
+                }
+                List<BookingResult> shardResults = shard.bookEach(shardRequests);
+                for (int j = 0; j < indexes.size(); j++) {
+                    results[indexes.get(j)] = shardResults.get(j);
+                }
+            }
+            return Arrays.asList(results);
+        } finally {
+            metrics.record(Metrics.Operation.BOOK_BATCH, start);
+        }
+    }
+
+    public Pet scheduleRecurrence(String petId, RecurrenceRule rule) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return shardFor(petId).scheduleRecurrence(petId, rule);
+        } finally {
+            metrics.record(Metrics.Operation.SCHEDULE_RECURRENCE, start);
+        }
+    }
+
+    /**
+     * Save every shard in parallel
+     */
+    public void save() throws IOException {
+        long start = System.nanoTime();
+        try {
+            forEachShard(shard -> {
+                shard.save();
+                return null;
+            });
+        } finally {
+            metrics.record(Metrics.Operation.SAVE, start);
+        }
+    }
+
+    /**
+     * Close every shard, even if closing one fails
+     */
+    public void close() throws IOException {
+        try {
+            forEachShard(shard -> {
+                shard.close();
+                return null;
+            });
+        } finally {
+            metrics.stopDump();
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    // Work done on one shard
+    private interface ShardTask<T> {
+        T run(SchedulerService shard) throws IOException;
+    }
+
+    // Run the task on every shard in parallel and wait for all of them; results are
+    // in shard order, and the first failure is rethrown once every shard has finished
+    private <T> List<T> forEachShard(ShardTask<T> task) throws IOException {
+        if (executor == null) {
+            return Collections.singletonList(task.run(shards.get(0)));
+        }
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (SchedulerService shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.run(shard);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        Throwable failure = null;
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) failure).getCause();
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure != null) {
+            throw new CompletionException(failure);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,132 @@
+package PetCareScheduler;
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.time.LocalDateTime;
+
+/**
+ * Human-readable report text, as shown on the console. Lines are built in one
+ * reused buffer with the cached date formatters and written through a single
+ * buffered writer.
+ */
+public class TextReportSink implements ReportSink {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer writer;
+    private final CharArrayWriter buffer; // Set for partitions, which render into memory
+    private final boolean closeStream;
+    private final StringBuilder line = new StringBuilder(256);
+    private char[] chars = new char[256];
+
+    /**
+     * Write to a stream that the sink owns and closes
+     */
+    public TextReportSink(OutputStream out, Charset charset) {
+        this(out, charset, true);
+    }
+
+    /**
+     * Write to a stream; closing the sink only closes the stream if closeStream is set
+     */
+    public TextReportSink(OutputStream out, Charset charset, boolean closeStream) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, charset), BUFFER_SIZE);
+        this.buffer = null;
+        this.closeStream = closeStream;
+    }
+
+    private TextReportSink(CharArrayWriter buffer) {
+        this.writer = buffer;
+        this.buffer = buffer;
+        this.closeStream = false;
+    }
+
+    @Override
+    public void beginReport(String title) throws IOException {
+        line.append("\n=== ").append(title).append(" ===");
+        writeLine();
+    }
+
+    @Override
+    public void petHeader(Pet pet, boolean withContact) throws IOException {
+        line.append("\nPet: ").append(pet.getName()).append(" (ID: ").append(pet.getPetId()).append(')');
+        writeLine();
+        if (withContact) {
+            contactLine(pet);
+        }
+    }
+
+    @Override
+    public void appointment(Pet pet, Appointment appointment) throws IOException {
+        appointment.appendTo(line.append("  "));
+        writeLine();
+    }
+
+    @Override
+    public void lastVetVisit(Pet pet, LocalDateTime lastVetVisit) throws IOException {
+        petHeader(pet, true);
+        line.append("Last Vet Visit: ");
+        if (lastVetVisit == null) {
+            line.append("Never");
+        } else {
+            Pet.DATE_FORMAT.formatTo(lastVetVisit, line);
+        }
+        writeLine();
+    }
+
+    @Override
+    public void pet(Pet pet) throws IOException {
+        pet.appendTo(line);
+        writeLine();
+    }
+
+    @Override
+    public void noResults(String message) throws IOException {
+        line.append(message);
+        writeLine();
+    }
+
+    @Override
+    public ReportSink partition() {
+        return new TextReportSink(new CharArrayWriter(BUFFER_SIZE));
+    }
+
+    @Override
+    public void append(ReportSink partition) throws IOException {
+        ((TextReportSink) partition).buffer.writeTo(writer);
+    }
+
+    private void contactLine(Pet pet) throws IOException {
+        line.append("Owner: ").append(pet.getOwnerName()).append(" | Contact: ").append(pet.getContactInfo());
+        writeLine();
+    }
+
+    // Copy the line out without creating a String, then reset the buffer
+    private void writeLine() throws IOException {
+        line.append(System.lineSeparator());
+        int length = line.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        line.getChars(0, length, chars, 0);
+        writer.write(chars, 0, length);
+        line.setLength(0);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closeStream) {
+            writer.close();
+        } else {
+            writer.flush();
+        }
+    }
+}
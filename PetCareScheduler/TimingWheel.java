@@ -0,0 +1,157 @@
+package PetCareScheduler;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: entries due at a tick are hashed into a ring of
+ * buckets per level, each level's bucket spanning a full turn of the level
+ * below (e.g. minutes, hours, days). Scheduling is O(1), and each tick only
+ * touches the bucket that expires, plus one bucket per level when that level
+ * turns over, which re-files its entries one level down. Entries beyond the
+ * top level wait in an overflow list that is re-filed once per top-level turn.
+ *
+ * Entries are intrusive (no wrapper object per timer) and can be rescheduled
+ * once they have expired. Not thread-safe; callers synchronize.
+ */
+public class TimingWheel<T extends TimingWheel.Entry> {
+
+    /**
+     * A timer held by the wheel; extend it with the payload
+     */
+    public static class Entry {
+        private long tick;
+        private Entry next;
+
+        public long getTick() {
+            return tick;
+        }
+    }
+
+    private final int[] sizes;   // Buckets per level
+    private final long[] units;  // Ticks spanned by one bucket of each level
+    private final Entry[][] buckets;
+    private final long turn;     // Ticks in one turn of the top level
+    private Entry overflow;
+    private Entry due;           // Scheduled at or before the current tick, expired on the next advance
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param currentTick the tick already reached; entries for it or earlier expire on the next advance
+     * @param sizes       buckets per level, lowest first; each level's bucket spans a turn of the one below
+     */
+    public TimingWheel(long currentTick, int... sizes) {
+        if (sizes.length == 0) {
+            throw new IllegalArgumentException("A timing wheel needs at least one level");
+        }
+        this.sizes = sizes.clone();
+        this.units = new long[sizes.length];
+        this.buckets = new Entry[sizes.length][];
+        long unit = 1;
+        for (int level = 0; level < sizes.length; level++) {
+            if (sizes[level] <= 0) {
+                throw new IllegalArgumentException("Wheel sizes must be positive");
+            }
+            units[level] = unit;
+            buckets[level] = new Entry[sizes[level]];
+            unit = Math.multiplyExact(unit, sizes[level]);
+        }
+        this.turn = unit;
+        this.currentTick = currentTick;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    // Entries waiting to expire
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedule an entry, not currently scheduled, to expire at the tick
+     */
+    public void schedule(T entry, long tick) {
+        Entry timer = entry; // Private fields are not reachable through the type variable
+        timer.tick = tick;
+        file(timer);
+        size++;
+    }
+
+    /**
+     * Advance to the tick, passing each entry that expires on the way to the
+     * consumer; the consumer may schedule more entries
+     */
+    @SuppressWarnings("unchecked")
+    public void advanceTo(long tick, Consumer<? super T> expired) {
+        expireDue(expired);
+        while (currentTick < tick) {
+            currentTick++;
+            if (Math.floorMod(currentTick, turn) == 0) {
+                Entry waiting = overflow;
+                overflow = null;
+                refile(waiting);
+            }
+            // Top level first, so entries re-filed down land in buckets not yet visited this tick
+            for (int level = sizes.length - 1; level > 0; level--) {
+                if (Math.floorMod(currentTick, units[level]) == 0) {
+                    refile(take(level, Math.floorDiv(currentTick, units[level])));
+                }
+            }
+            for (Entry entry = take(0, currentTick); entry != null; ) {
+                Entry next = entry.next;
+                entry.next = null;
+                size--;
+                expired.accept((T) entry);
+                entry = next;
+            }
+            expireDue(expired);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expireDue(Consumer<? super T> expired) {
+        while (due != null) {
+            Entry entry = due;
+            due = entry.next;
+            entry.next = null;
+            size--;
+            expired.accept((T) entry);
+        }
+    }
+
+    // Put the entry in the lowest level whose ring still reaches its tick
+    private void file(Entry entry) {
+        if (entry.tick <= currentTick) {
+            entry.next = due;
+            due = entry;
+            return;
+        }
+        for (int level = 0; level < sizes.length; level++) {
+            long slot = Math.floorDiv(entry.tick, units[level]);
+            if (slot - Math.floorDiv(currentTick, units[level]) < sizes[level]) {
+                int index = (int) Math.floorMod(slot, (long) sizes[level]);
+                entry.next = buckets[level][index];
+                buckets[level][index] = entry;
+                return;
+            }
+        }
+        entry.next = overflow;
+        overflow = entry;
+    }
+
+    private Entry take(int level, long slot) {
+        int index = (int) Math.floorMod(slot, (long) sizes[level]);
+        Entry head = buckets[level][index];
+        buckets[level][index] = null;
+        return head;
+    }
+
+    private void refile(Entry entry) {
+        while (entry != null) {
+            Entry next = entry.next;
+            file(entry);
+            entry = next;
+        }
+    }
+}
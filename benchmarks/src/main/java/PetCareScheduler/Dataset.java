@@ -0,0 +1,116 @@
+package PetCareScheduler;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Synthetic data set shared by the benchmarks: one pet per ten appointments,
+ * appointments spread over two years around a fixed reference time.
+ * Generation is seeded, so every run sees the same files.
+ */
+@State(Scope.Benchmark)
+public abstract class Dataset {
+    /** Reference "now" for reports, in the middle of the generated range */
+    static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    private static final String[] TYPES = { "Vet Visit", "Vaccination", "Grooming", "Dental Cleaning" };
+    private static final String[] SPECIES = { "Dog", "Cat", "Rabbit", "Parrot" };
+
+    @Param({ "10000", "1000000", "10000000" })
+    public int appointments;
+
+    protected Path directory;
+    protected Path petsFile;
+    protected Path appointmentsFile;
+    protected Path journalFile;
+
+    protected int petCount() {
+        return Math.max(1, appointments / 10);
+    }
+
+    static String petId(int index) {
+        return "P" + index;
+    }
+
+    /**
+     * Write the pets and appointments files into a fresh temporary directory
+     */
+    protected void generate() throws IOException {
+        directory = Files.createTempDirectory("petcare-bench");
+        petsFile = directory.resolve("pets_data.txt");
+        appointmentsFile = directory.resolve("appointments_data.txt");
+        journalFile = directory.resolve("journal_data.txt");
+
+        Random random = new Random(42);
+        int pets = petCount();
+        try (BufferedWriter writer = Files.newBufferedWriter(petsFile, StandardCharsets.UTF_8)) {
+            LocalDate firstRegistration = LocalDate.of(2020, 1, 1);
+            for (int i = 0; i < pets; i++) {
+                writer.write(petId(i) + "|Pet" + i + "|" + SPECIES[i % SPECIES.length] + "|" + random.nextInt(15)
+                        + "|Owner" + random.nextInt(pets) + "|555-" + (1000 + random.nextInt(9000)) + "|"
+                        + firstRegistration.plusDays(i % 1500));
+                writer.newLine();
+            }
+        }
+
+        // Each pet gets consecutive, non-overlapping slots from a random starting point
+        LocalDateTime rangeStart = NOW.minusYears(1);
+        int perPet = appointments / pets;
+        int remainder = appointments % pets;
+        try (BufferedWriter writer = Files.newBufferedWriter(appointmentsFile, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < pets; i++) {
+                LocalDateTime slot = rangeStart.plusMinutes(30L * random.nextInt(17_520));
+                int count = perPet + (i < remainder ? 1 : 0);
+                for (int j = 0; j < count; j++) {
+                    slot = slot.plusHours(1 + random.nextInt(24 * 7));
+                    writer.write(petId(i) + "|" + TYPES[random.nextInt(TYPES.length)] + "|" + slot
+                            + "|note " + random.nextInt(1_000_000) + "|" + (15 * (1 + random.nextInt(4))));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    protected SchedulerService loadService(int compactionThreshold) throws IOException {
+        SchedulerService service = new SchedulerService(
+                new DataStore(petsFile, appointmentsFile, journalFile, compactionThreshold));
+        service.load();
+        return service;
+    }
+
+    protected void deleteFiles() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * A stream that discards its output, so reports measure formatting and not the console
+     */
+    static OutputStream nullOutput() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+    }
+}
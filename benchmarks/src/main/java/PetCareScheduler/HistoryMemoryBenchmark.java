@@ -0,0 +1,83 @@
+package PetCareScheduler;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Heap retained by a loaded registry whose appointments have all ended:
+ * eager holds them as Appointment objects, file leaves them in the appointments
+ * file, and columnar holds them in primitive columns. The retainedMegabytes
+ * counter is the heap in use after a full GC, less what it was before the load.
+ * The time includes those collections; LoadBenchmark measures load speed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HistoryMemoryBenchmark extends Dataset {
+    @Param({ "eager", "file", "columnar" })
+    public String storage;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Heap {
+        public long retainedMegabytes;
+    }
+
+    private long baseline;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        generate();
+    }
+
+    @Setup(Level.Iteration)
+    public void measureBaseline() {
+        baseline = usedHeap();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        deleteFiles();
+    }
+
+    @Benchmark
+    public PetRegistry load(Heap heap) throws IOException {
+        boolean eager = storage.equals("eager");
+        SchedulerService service = new SchedulerService(new DataStore(petsFile, appointmentsFile, journalFile,
+                null, DataStore.DEFAULT_COMPACTION_THRESHOLD, null,
+                eager ? 0 : AppointmentHistory.DEFAULT_CACHED_APPOINTMENTS, storage.equals("columnar")));
+        service.load();
+        heap.retainedMegabytes = (usedHeap() - baseline) / (1024 * 1024);
+        service.close();
+        Files.deleteIfExists(journalFile);
+        return service.getRegistry();
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
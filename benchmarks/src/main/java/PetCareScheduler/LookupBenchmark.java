@@ -0,0 +1,56 @@
+package PetCareScheduler;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pet lookup by ID, in mixed case as typed at the menu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark extends Dataset {
+    private SchedulerService service;
+    private String[] ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        generate();
+        service = loadService(DataStore.DEFAULT_COMPACTION_THRESHOLD);
+        Random random = new Random(7);
+        ids = new String[4096];
+        for (int i = 0; i < ids.length; i++) {
+            String id = petId(random.nextInt(petCount()));
+            ids[i] = i % 2 == 0 ? id : id.toLowerCase();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        service.close();
+        deleteFiles();
+    }
+
+    @Benchmark
+    public Pet findPetById() {
+        next = (next + 1) & (ids.length - 1);
+        return service.findPet(ids[next]);
+    }
+}
@@ -0,0 +1,85 @@
+package PetCareScheduler;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Report generation at a fixed reference time, with the output discarded;
+ * compare parallel=true and false for the partitioned rendering speed-up,
+ * and the *Cached variants for repeat runs served from the report cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark extends Dataset {
+    @Param({ "true", "false" })
+    public boolean parallel;
+
+    private SchedulerService service;
+    private Reports reports;
+    private Reports cachedReports;
+    private ReportSink out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        generate();
+        service = loadService(DataStore.DEFAULT_COMPACTION_THRESHOLD);
+        reports = new Reports(service, parallel, null);
+        cachedReports = new Reports(service, parallel, new ReportCache(64, Duration.ofMinutes(10)));
+        out = new TextReportSink(nullOutput(), StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        service.close();
+        deleteFiles();
+    }
+
+    @Benchmark
+    public void upcoming() throws IOException {
+        reports.upcomingAppointments(out, NOW);
+    }
+
+    @Benchmark
+    public void past() throws IOException {
+        reports.pastAppointments(out, NOW);
+    }
+
+    @Benchmark
+    public void weekly() throws IOException {
+        reports.weeklyReport(out, NOW);
+    }
+
+    @Benchmark
+    public void overdueVet() throws IOException {
+        reports.overdueVetReport(out, NOW);
+    }
+
+    @Benchmark
+    public void weeklyCached() throws IOException {
+        cachedReports.weeklyReport(out, NOW);
+    }
+
+    @Benchmark
+    public void overdueVetCached() throws IOException {
+        cachedReports.overdueVetReport(out, NOW);
+    }
+}
@@ -0,0 +1,62 @@
+package PetCareScheduler;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Persistence cost: a full snapshot rewrite, and one journaled booking made durable
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveBenchmark extends Dataset {
+    private static final String BENCH_PET = "BENCH";
+
+    private SchedulerService service;
+    private LocalDateTime nextSlot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        generate();
+        // Never compact, so the journaled save measures only the append and fsync
+        service = loadService(Integer.MAX_VALUE);
+        service.registerPet(new Pet(BENCH_PET, "Bench", "Dog", 3, "Owner", "555-0000", Dataset.NOW.toLocalDate()));
+        nextSlot = LocalDateTime.now().plusYears(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        service.close();
+        deleteFiles();
+    }
+
+    @Benchmark
+    public void snapshot() throws IOException {
+        DataStore.writeSnapshot(service.getRegistry(), directory.resolve("pets_out.txt"),
+                directory.resolve("appointments_out.txt"));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void journaledAppointment() throws IOException {
+        nextSlot = nextSlot.plusHours(1);
+        service.scheduleAppointment(BENCH_PET, new Appointment(AppointmentType.VACCINATION, nextSlot, "bench", 30));
+        service.save();
+    }
+}
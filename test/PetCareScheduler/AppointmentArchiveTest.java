@@ -0,0 +1,122 @@
+package PetCareScheduler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AppointmentArchiveTest {
+    private static final LocalDateTime MARCH = LocalDateTime.of(2024, 3, 4, 10, 0);
+
+    @TempDir
+    Path dir;
+
+    private PetRegistry registry;
+    private Pet pet;
+    private AppointmentArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        registry = new PetRegistry();
+        pet = new Pet("P1", "Rex", "Dog", 3, "Ann", "555-0100", LocalDate.of(2020, 1, 1));
+        registry.register(pet);
+        archive = new AppointmentArchive(dir, Duration.ofDays(365));
+    }
+
+    private void archive(Appointment... appointments) throws IOException {
+        archive.append(Collections.nCopies(appointments.length, pet), Arrays.asList(appointments));
+    }
+
+    private List<LocalDateTime> archivedTimes() throws IOException {
+        Map<Pet, List<Appointment>> read = archive.read(registry, LocalDateTime.of(2025, 1, 1, 0, 0));
+        List<LocalDateTime> times = new ArrayList<>();
+        for (Appointment appointment : read.getOrDefault(pet, Collections.emptyList())) {
+            times.add(appointment.getDateTime());
+        }
+        return times;
+    }
+
+    @Test
+    void eachRunIsReadBack() throws IOException {
+        archive(new Appointment("Grooming", MARCH, "", 30));
+        archive(new Appointment("Grooming", MARCH.plusDays(1), "", 30),
+                new Appointment("Vet Visit", MARCH.plusMonths(1), "", 30));
+
+        assertEquals(Arrays.asList(MARCH, MARCH.plusDays(1), MARCH.plusMonths(1)), archivedTimes());
+        assertEquals(3, countFiles(".txt.gz"));
+    }
+
+    @Test
+    void interruptedRunDoesNotHideLaterRuns() throws IOException {
+        archive(new Appointment("Grooming", MARCH, "", 30));
+        // A run interrupted while writing: its file was never moved into place
+        Files.write(dir.resolve("appointments-2024-03.2.txt.gz.tmp"), new byte[] { 0x1f, (byte) 0x8b, 8 });
+        // The interrupted run's appointment was still in the snapshot, so the next save archives it again
+        archive(new Appointment("Grooming", MARCH.plusDays(1), "", 30),
+                new Appointment("Grooming", MARCH.plusDays(2), "", 30));
+
+        assertEquals(Arrays.asList(MARCH, MARCH.plusDays(1), MARCH.plusDays(2)), archivedTimes());
+        assertEquals(0, countFiles(".tmp"));
+    }
+
+    @Test
+    void tornMemberInOldMonthFileKeepsLaterRunsReadable() throws IOException {
+        // An earlier version appended each run to one file per month; the second member was cut short
+        byte[] first = gzip("P1|Grooming|" + MARCH + "||30\n");
+        byte[] second = gzip("P1|Grooming|" + MARCH.plusDays(1) + "||30\n");
+        try (OutputStream out = Files.newOutputStream(dir.resolve("appointments-2024-03.txt.gz"))) {
+            out.write(first);
+            out.write(second, 0, second.length / 2);
+        }
+        archive(new Appointment("Grooming", MARCH.plusDays(1), "", 30),
+                new Appointment("Grooming", MARCH.plusDays(2), "", 30));
+        archive(new Appointment("Grooming", MARCH.plusDays(3), "", 30));
+
+        assertEquals(Arrays.asList(MARCH, MARCH.plusDays(1), MARCH.plusDays(2), MARCH.plusDays(3)), archivedTimes());
+    }
+
+    @Test
+    void tornVetVisitLineIsNotJoinedToTheNext() throws IOException {
+        archive(new Appointment("Vet Visit", MARCH, "", 30));
+        Files.write(dir.resolve("vet_visits.txt"), "P1|2024-0".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        archive(new Appointment("Vet Visit", MARCH.plusMonths(2), "", 30));
+
+        Pet reloaded = new Pet("P1", "Rex", "Dog", 3, "Ann", "555-0100", LocalDate.of(2020, 1, 1));
+        PetRegistry fresh = new PetRegistry();
+        fresh.register(reloaded);
+        archive.loadVetVisits(fresh);
+        assertEquals(MARCH.plusMonths(2), reloaded.getLastVetVisit());
+    }
+
+    private long countFiles(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(suffix)).count();
+        }
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,238 @@
+package PetCareScheduler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AppointmentHistoryTest {
+    private static final LocalDateTime FUTURE = LocalDateTime.now().plusYears(1).truncatedTo(ChronoUnit.HOURS);
+
+    @TempDir
+    Path dir;
+
+    private DataStore store;
+    private PetRegistry registry;
+    private AppointmentHistory history;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.write(dir.resolve("pets.txt"), Arrays.asList(
+                "P1|Rex|Dog|3|Ann|555-0100|2019-01-01",
+                "P2|Tom|Cat|2|Bob|555-0101|2019-01-01",
+                "P3|Max|Dog|5|Cid|555-0102|2019-01-01"), StandardCharsets.UTF_8);
+        Files.write(dir.resolve("appointments.txt"), Arrays.asList(
+                "P1|Vet Visit|2020-01-01T10:00|a|30",
+                "P1|Grooming|2020-02-01T10:00|b|30",
+                "P1|Walk|2020-03-01T10:00|c|30",
+                "P2|Walk|2020-01-05T10:00|d|30",
+                "P2|Vet Visit|2021-01-05T10:00|e|30",
+                "P2|Walk|" + FUTURE + "|f|30",
+                "P3|Walk|2022-01-01T10:00|h|30",
+                "P3|Walk|2022-01-02T10:00|i|30",
+                "P3|Walk|2022-01-03T10:00|j|30"), StandardCharsets.UTF_8);
+        store = store(new AppointmentArchive(dir.resolve("archive"), Duration.ofDays(365 * 100)));
+        registry = new PetRegistry();
+        store.load(registry);
+        history = store.getHistory();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    // Keeps at most three history appointments loaded
+    private DataStore store(AppointmentArchive archive) {
+        return new DataStore(dir.resolve("pets.txt"), dir.resolve("appointments.txt"), dir.resolve("journal.txt"),
+                null, DataStore.DEFAULT_COMPACTION_THRESHOLD, archive, 3);
+    }
+
+    private static List<String> notes(Pet pet) {
+        List<String> notes = new ArrayList<>();
+        for (Appointment appointment : pet.getAppointments()) {
+            notes.add(appointment.getNotes());
+        }
+        return notes;
+    }
+
+    @Test
+    void endedAppointmentsStayInTheFileUntilAskedFor() {
+        Pet rex = registry.findById("P1");
+        Pet tom = registry.findById("P2");
+        assertEquals(3, rex.getHistory().getCount());
+        assertEquals(2, tom.getHistory().getCount());
+        assertEquals(1, registry.getAppointmentIndex().size());
+        assertEquals(3, rex.getAppointmentCount());
+        assertEquals(LocalDateTime.of(2020, 1, 1, 10, 0), rex.getLastVetVisit());
+        assertEquals(LocalDateTime.of(2021, 1, 5, 10, 0), tom.getLastVetVisit());
+        assertEquals(0, history.getLoadCount());
+
+        assertEquals(Arrays.asList("a", "b", "c"), notes(rex));
+        assertEquals(Arrays.asList("d", "e", "f"), notes(tom));
+        assertEquals(2, history.getLoadCount());
+        // Ranges clear of the history do not read it
+        assertEquals(1, tom.getAppointmentsBetween(FUTURE.minusDays(1), true, null, false).size());
+        assertEquals(2, history.getLoadCount());
+    }
+
+    @Test
+    void leastRecentlyUsedHistoryIsEvicted() {
+        Pet rex = registry.findById("P1");
+        Pet tom = registry.findById("P2");
+        notes(rex);
+        notes(rex);
+        assertEquals(1, history.getLoadCount());
+        assertEquals(1, history.getHitCount());
+        assertEquals(3, history.getCachedAppointments());
+
+        notes(tom); // Two more than the bound allows, so Rex's three go
+        assertEquals(2, history.getCachedAppointments());
+        notes(tom);
+        assertEquals(2, history.getLoadCount());
+        notes(rex);
+        assertEquals(3, history.getLoadCount());
+        assertEquals(3, history.getCachedAppointments());
+    }
+
+    @Test
+    void compactionRepointsSegments() throws IOException {
+        Pet rex = registry.findById("P1");
+        Pet tom = registry.findById("P2");
+        // A new line after Rex's history moves Tom's history further into the file
+        Appointment walk = new Appointment("Walk", FUTURE.plusDays(1), "g", 30);
+        rex.addAppointment(walk);
+        store.recordAppointment(rex, walk);
+        store.compact(registry);
+        assertTrue(Files.readAllLines(dir.resolve("appointments.txt")).get(3).contains("|g|"));
+
+        // Nothing cached, so both are read from their new places
+        assertEquals(0, history.getCachedAppointments());
+        assertEquals(Arrays.asList("d", "e", "f"), notes(tom));
+        assertEquals(Arrays.asList("a", "b", "c", "g"), notes(rex));
+
+        store.compact(registry);
+        notes(registry.findById("P1")); // Evicts Tom's history
+        assertEquals(Arrays.asList("d", "e", "f"), notes(tom));
+    }
+
+    @Test
+    void archivingNarrowsHistoryWithoutLoadingIt() throws IOException {
+        Pet rex = registry.findById("P1");
+        Pet tom = registry.findById("P2");
+        assertEquals(3, store.archiveBefore(registry, LocalDateTime.of(2020, 2, 15, 0, 0)));
+
+        assertNotNull(rex.getHistory());
+        assertEquals(1, rex.getHistory().getCount());
+        assertEquals(1, rex.getAppointmentCount());
+        assertEquals(1, registry.getAppointmentIndex().size());
+        assertEquals(LocalDateTime.of(2020, 1, 1, 10, 0), rex.getLastVetVisit());
+        assertEquals(Arrays.asList("e", "f"), notes(tom));
+        notes(registry.findById("P3")); // Evicts the others; the archived lines are skipped when read again
+        assertEquals(Arrays.asList("c"), notes(rex));
+        assertEquals(Arrays.asList("e", "f"), notes(tom));
+
+        store.compact(registry);
+        List<String> lines = Files.readAllLines(dir.resolve("appointments.txt"));
+        assertEquals(6, lines.size());
+        assertFalse(lines.stream().anyMatch(line -> line.contains("2020-01-") || line.contains("2020-02-")));
+        notes(registry.findById("P3")); // Evicts the others, so they are read from their new places
+        assertEquals(Arrays.asList("c"), notes(rex));
+        assertEquals(Arrays.asList("e", "f"), notes(tom));
+
+        PetRegistry reloaded = new PetRegistry();
+        DataStore eager = new DataStore(dir.resolve("pets.txt"), dir.resolve("appointments.txt"),
+                dir.resolve("journal.txt"));
+        eager.load(reloaded);
+        eager.close();
+        assertEquals(Arrays.asList("c"), notes(reloaded.findById("P1")));
+        assertEquals(Arrays.asList("e", "f"), notes(reloaded.findById("P2")));
+
+        // The pet with only archived history has none left
+        assertEquals(1, store.archiveBefore(registry, LocalDateTime.of(2020, 6, 1, 0, 0)));
+        assertNull(rex.getHistory());
+        assertEquals(0, rex.getAppointmentCount());
+    }
+
+    @Test
+    void removingHistoryAppointmentIndexesTheRest() {
+        Pet rex = registry.findById("P1");
+        Appointment grooming = rex.getAppointments().get(1);
+        assertTrue(rex.removeAppointment(grooming));
+        assertNull(rex.getHistory());
+        assertEquals(Arrays.asList("a", "c"), notes(rex));
+        assertEquals(3, registry.getAppointmentIndex().size());
+
+        // An appointment that is not the pet's leaves the history alone
+        Pet tom = registry.findById("P2");
+        assertFalse(tom.removeAppointment(grooming));
+        assertNotNull(tom.getHistory());
+    }
+
+    @Test
+    void columnarHistoryBuildsAppointmentsOnlyWhenAskedFor() throws IOException {
+        store.close();
+        // Rex's run is out of order, and Tom's last past appointment has seconds the columns cannot hold
+        Files.write(dir.resolve("appointments.txt"), Arrays.asList(
+                "P1|Walk|2020-03-01T10:00|c \u00e9|30",
+                "P1|Vet Visit|2020-01-01T10:00|a|45",
+                "P1|grooming|2020-02-01T10:00||30",
+                "P2|Walk|2020-01-05T10:00|d|30",
+                "P2|Walk|2020-01-06T10:00:30|e|30",
+                "P2|Walk|" + FUTURE + "|f|30"), StandardCharsets.UTF_8);
+        store = new DataStore(dir.resolve("pets.txt"), dir.resolve("appointments.txt"), dir.resolve("journal.txt"),
+                null, DataStore.DEFAULT_COMPACTION_THRESHOLD,
+                new AppointmentArchive(dir.resolve("archive"), Duration.ofDays(365 * 100)), 3, true);
+        registry = new PetRegistry();
+        store.load(registry);
+        history = store.getHistory();
+        Files.delete(dir.resolve("appointments.txt")); // Columnar histories never read the file again
+
+        Pet rex = registry.findById("P1");
+        Pet tom = registry.findById("P2");
+        assertEquals(3, rex.getHistory().getCount());
+        assertEquals(1, tom.getHistory().getCount());
+        assertEquals(2, registry.getAppointmentIndex().size());
+        assertEquals(LocalDateTime.of(2020, 1, 1, 10, 0), rex.getLastVetVisit());
+        assertTrue(history.getColumnarBytes() > 0);
+        assertEquals(0, history.getCachedAppointments());
+
+        List<Appointment> appointments = rex.getAppointments();
+        assertEquals(Arrays.asList("a", "", "c \u00e9"), notes(rex));
+        assertEquals("grooming", appointments.get(1).getAppointmentType());
+        assertEquals(45, appointments.get(0).getDurationMinutes());
+        assertEquals(Arrays.asList("d", "e", "f"), notes(tom));
+        assertEquals(0, history.getBytesRead());
+
+        // Archived rows are skipped, then left out of the file and the columns by compaction
+        long bytes = history.getColumnarBytes();
+        assertEquals(2, store.archiveBefore(registry, LocalDateTime.of(2020, 1, 5, 12, 0)));
+        notes(registry.findById("P3"));
+        assertEquals(Arrays.asList("", "c \u00e9"), notes(rex));
+        store.compact(registry);
+        assertTrue(history.getColumnarBytes() < bytes);
+        assertEquals(Arrays.asList(
+                "P1|grooming|2020-02-01T10:00||30",
+                "P1|Walk|2020-03-01T10:00|c \u00e9|30",
+                "P2|Walk|2020-01-06T10:00:30|e|30",
+                "P2|Walk|" + FUTURE + "|f|30"), Files.readAllLines(dir.resolve("appointments.txt")));
+        notes(registry.findById("P3"));
+        assertEquals(Arrays.asList("", "c \u00e9"), notes(rex));
+        assertEquals(Arrays.asList("e", "f"), notes(tom));
+    }
+}
@@ -0,0 +1,54 @@
+package PetCareScheduler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+class AppointmentTypeTest {
+
+    @Test
+    void keepsTheGivenSpellingForEqualTypes() {
+        AppointmentType shouted = AppointmentType.of("  GROOMING ");
+        assertEquals("GROOMING", shouted.getName());
+        assertEquals(AppointmentType.GROOMING, shouted);
+        assertEquals(AppointmentType.GROOMING.hashCode(), shouted.hashCode());
+        assertEquals(AppointmentType.GROOMING.getCode(), shouted.getCode());
+        assertSame(AppointmentType.GROOMING, AppointmentType.of("Grooming"));
+
+        Appointment appointment = new Appointment("vet visit", LocalDateTime.of(2030, 1, 1, 9, 0), "");
+        assertEquals("vet visit", appointment.getAppointmentType());
+        assertTrue(appointment.getType().isVet());
+    }
+
+    @Test
+    void boundsTheTablesForFreeTextTypes() {
+        for (int i = 0; i < AppointmentType.MAX_SPELLINGS * 2; i++) {
+            AppointmentType type = AppointmentType.of("Free text type " + i);
+            assertEquals("Free text type " + i, type.getName());
+            assertEquals(type, AppointmentType.of("free text type " + i));
+        }
+        assertTrue(AppointmentType.internedTypes() <= AppointmentType.MAX_INTERNED);
+        // Racing threads may each add one spelling past the check
+        assertTrue(AppointmentType.cachedSpellings() <= AppointmentType.MAX_SPELLINGS + 1);
+        AppointmentType uninterned = AppointmentType.of("Free text type " + AppointmentType.MAX_SPELLINGS);
+        assertEquals(-1, uninterned.getCode());
+        AppointmentType shouted = AppointmentType.of(" FREE TEXT TYPE " + AppointmentType.MAX_SPELLINGS);
+        assertEquals(uninterned, shouted);
+        assertEquals(uninterned.hashCode(), shouted.hashCode());
+        assertNotEquals(AppointmentType.GROOMING, uninterned);
+    }
+
+    @Test
+    void defaultAppointmentHasNoType() {
+        Appointment appointment = new Appointment();
+        assertNull(appointment.getAppointmentType());
+        appointment.setAppointmentType("Walk");
+        assertEquals("Walk", appointment.getAppointmentType());
+        appointment.setAppointmentType(null);
+        assertNull(appointment.getType());
+    }
+}
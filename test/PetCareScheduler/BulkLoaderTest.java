@@ -0,0 +1,32 @@
+package PetCareScheduler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class BulkLoaderTest {
+
+    private static int parseInt(String text) {
+        byte[] bytes = ("|" + text + "|").getBytes(StandardCharsets.UTF_8);
+        return BulkLoader.parseInt(bytes, 1, bytes.length - 1);
+    }
+
+    @Test
+    void parseIntAgreesWithIntegerParseInt() {
+        String[] inputs = {"0", "7", "-7", "+5", "-0", "007", "123456789", "-123456789", "1234567890",
+                "2147483647", "-2147483648", "+2147483647"};
+        for (String input : inputs) {
+            assertEquals(Integer.parseInt(input), parseInt(input), input);
+        }
+    }
+
+    @Test
+    void parseIntRejectsWhatIntegerParseIntRejects() {
+        String[] inputs = {"", "-", "+", "--5", "+-5", "5-", "1a", " 5", "2147483648", "-2147483649"};
+        for (String input : inputs) {
+            assertThrows(NumberFormatException.class, () -> Integer.parseInt(input), input);
+            assertThrows(NumberFormatException.class, () -> parseInt(input), input);
+        }
+    }
+}
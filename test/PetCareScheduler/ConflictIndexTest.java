@@ -0,0 +1,145 @@
+package PetCareScheduler;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConflictIndexTest {
+    private static final LocalDateTime TEN = LocalDateTime.of(2030, 5, 6, 10, 0);
+
+    private ConflictIndex conflicts;
+    private PetRegistry registry;
+    private Pet rex;
+    private Pet tom;
+
+    @BeforeEach
+    void setUp() {
+        conflicts = new ConflictIndex(Collections.singletonList("Grooming"));
+        registry = new PetRegistry();
+        registry.addListener(conflicts);
+        rex = pet("P1");
+        tom = pet("P2");
+    }
+
+    private Pet pet(String id) {
+        Pet pet = new Pet(id, "Rex", "Dog", 3, "Ann", "555-0100", LocalDate.of(2024, 1, 1));
+        registry.register(pet);
+        return pet;
+    }
+
+    private static Appointment grooming(LocalDateTime start, int minutes) {
+        return new Appointment("Grooming", start, "", minutes);
+    }
+
+    private static Appointment walk(LocalDateTime start, int minutes) {
+        return new Appointment("Walk", start, "", minutes);
+    }
+
+    @Test
+    void overlappingSlotOfSamePetConflicts() {
+        rex.addAppointment(walk(TEN, 60));
+        assertNotNull(conflicts.findConflict(rex, walk(TEN.plusMinutes(30), 60)));
+        assertNotNull(conflicts.findConflict(rex, walk(TEN.minusMinutes(30), 60)));
+        assertNotNull(conflicts.findConflict(rex, walk(TEN.plusMinutes(10), 10)));
+        assertNull(conflicts.findConflict(tom, walk(TEN, 60)));
+    }
+
+    @Test
+    void overlappingSlotOfExclusiveResourceConflicts() {
+        rex.addAppointment(grooming(TEN, 60));
+        assertNotNull(conflicts.findConflict(tom, grooming(TEN.plusMinutes(59), 30)));
+        assertNotNull(conflicts.findConflict(tom, grooming(TEN.minusMinutes(15), 30)));
+        // Other appointment types do not use the grooming table
+        assertNull(conflicts.findConflict(tom, walk(TEN, 60)));
+    }
+
+    @Test
+    void touchingSlotsDoNotConflict() {
+        rex.addAppointment(grooming(TEN, 60));
+        assertNull(conflicts.findConflict(tom, grooming(TEN.plusMinutes(60), 30)));
+        assertNull(conflicts.findConflict(tom, grooming(TEN.minusMinutes(30), 30)));
+        assertNull(conflicts.findConflict(rex, walk(TEN.plusMinutes(60), 30)));
+        assertNull(conflicts.findConflict(rex, walk(TEN.minusMinutes(30), 30)));
+    }
+
+    @Test
+    void overlappingLoadedAppointmentsAreAllChecked(@TempDir Path dir) throws IOException {
+        // Loaded data is not checked for overlaps: a long walk covers a shorter one after it
+        Files.write(dir.resolve("pets.txt"), Collections.singletonList("P9|Rex|Dog|3|Ann|555-0100|2024-01-01"));
+        Files.write(dir.resolve("appointments.txt"), Arrays.asList(
+                "P9|Walk|2030-05-06T10:00|long|120", "P9|Walk|2030-05-06T10:30|short|30"));
+        DataStore store = new DataStore(dir.resolve("pets.txt"), dir.resolve("appointments.txt"),
+                dir.resolve("journal.txt"));
+        store.load(registry);
+        store.close();
+        Pet loaded = registry.findById("P9");
+        assertNotNull(conflicts.findConflict(loaded, walk(TEN.plusMinutes(90), 30)));
+        assertNotNull(loaded.findOverlap(TEN.plusMinutes(110), TEN.plusMinutes(140)));
+        assertNull(loaded.findOverlap(TEN.plusMinutes(120), TEN.plusMinutes(150)));
+    }
+
+    @Test
+    void sameStartBookingsAreAllKept() {
+        // Loaded data may hold bookings that share a start
+        Appointment longer = grooming(TEN, 90);
+        Appointment shorter = grooming(TEN, 30);
+        rex.addAppointment(longer);
+        tom.addAppointment(shorter);
+        Pet third = pet("P3");
+        assertNotNull(conflicts.findConflict(third, grooming(TEN.plusMinutes(60), 30)));
+
+        rex.removeAppointment(longer);
+        assertNull(conflicts.findConflict(third, grooming(TEN.plusMinutes(60), 30)));
+        assertNotNull(conflicts.findConflict(third, grooming(TEN.plusMinutes(15), 30)));
+
+        tom.removeAppointment(shorter);
+        assertNull(conflicts.findConflict(third, grooming(TEN, 30)));
+    }
+
+    @Test
+    void longLoadedBookingIsFoundBehindLaterShortOnes() {
+        rex.addAppointment(grooming(TEN, 240));
+        tom.addAppointment(grooming(TEN.plusMinutes(30), 15));
+        assertNotNull(conflicts.findConflict(pet("P3"), grooming(TEN.plusMinutes(120), 30)));
+    }
+
+    @Test
+    void batchInternalOverlapConflicts() {
+        Pet third = pet("P3");
+        assertNotNull(conflicts.findConflict(Arrays.asList(rex, tom),
+                Arrays.asList(grooming(TEN, 60), grooming(TEN.plusMinutes(30), 60))));
+        assertNotNull(conflicts.findConflict(Arrays.asList(rex, rex),
+                Arrays.asList(walk(TEN, 60), walk(TEN.plusMinutes(59), 10))));
+        assertNull(conflicts.findConflict(Arrays.asList(rex, tom, third),
+                Arrays.asList(grooming(TEN, 60), grooming(TEN.plusMinutes(60), 60), walk(TEN, 60))));
+    }
+
+    @Test
+    void pendingBookingsConflictWithLaterRequests() {
+        ConflictIndex.Pending pending = conflicts.pending();
+        pending.add(rex, grooming(TEN, 60));
+        assertNotNull(pending.findConflict(tom, grooming(TEN.plusMinutes(30), 30)));
+        assertNotNull(pending.findConflict(rex, walk(TEN.plusMinutes(30), 30)));
+        assertNull(pending.findConflict(tom, grooming(TEN.plusMinutes(60), 30)));
+    }
+
+    @Test
+    void recurringBookingOfResourceConflicts() {
+        rex.addRecurrence(new RecurrenceRule(AppointmentType.GROOMING, TEN, "", 60, 1,
+                ChronoUnit.WEEKS, null, 4));
+        assertNotNull(conflicts.findConflict(tom, grooming(TEN.plusWeeks(2).plusMinutes(30), 30)));
+        assertNull(conflicts.findConflict(tom, grooming(TEN.plusWeeks(4), 30)));
+        assertTrue(conflicts.isExclusive(AppointmentType.GROOMING));
+    }
+}
@@ -0,0 +1,143 @@
+package PetCareScheduler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DataStoreTest {
+    private static final LocalDateTime NEXT_YEAR = LocalDateTime.now().plusYears(1).withNano(0).withSecond(0);
+
+    @TempDir
+    Path dir;
+
+    private DataStore store() {
+        return new DataStore(dir.resolve("pets.txt"), dir.resolve("appointments.txt"), dir.resolve("journal.txt"));
+    }
+
+    private static Pet pet(String id) {
+        return new Pet(id, "Rex", "Dog", 3, "Ann", "555-0100", LocalDate.of(2024, 1, 1));
+    }
+
+    private PetRegistry reload() throws IOException {
+        PetRegistry registry = new PetRegistry();
+        DataStore store = store();
+        store.load(registry);
+        store.close();
+        return registry;
+    }
+
+    @Test
+    void replaysJournaledChanges() throws IOException {
+        DataStore store = store();
+        store.load(new PetRegistry());
+        Pet pet = pet("P1");
+        store.recordPet(pet);
+        store.recordAppointment(pet, new Appointment("Vet Visit", NEXT_YEAR, "checkup", 45));
+        store.close();
+
+        Pet loaded = reload().findById("p1");
+        assertNotNull(loaded);
+        List<Appointment> appointments = loaded.getAppointments();
+        assertEquals(1, appointments.size());
+        assertEquals(NEXT_YEAR, appointments.get(0).getDateTime());
+        assertEquals(45, appointments.get(0).getDurationMinutes());
+        assertEquals(NEXT_YEAR, loaded.getLastVetVisit());
+    }
+
+    @Test
+    void appendAfterTornRecordSurvivesReplay() throws IOException {
+        DataStore store = store();
+        store.load(new PetRegistry());
+        Pet pet = pet("P1");
+        store.recordPet(pet);
+        store.close();
+        // A crash cut the next record short, before its line terminator
+        Files.write(dir.resolve("journal.txt"), "A|P1|Grooming|2031-01-01T10:".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        PetRegistry registry = new PetRegistry();
+        store = store();
+        BulkLoader.LoadStats[] stats = store.load(registry);
+        assertEquals(1, stats[2].getRows());
+        store.recordAppointment(registry.findById("P1"), new Appointment("Vet Visit", NEXT_YEAR, "", 30));
+        store.close();
+
+        PetRegistry replayed = new PetRegistry();
+        store = store();
+        stats = store.load(replayed);
+        store.close();
+        assertEquals(2, stats[2].getRows());
+        assertEquals(0, stats[2].getSkipped());
+        List<Appointment> appointments = replayed.findById("P1").getAppointments();
+        assertEquals(1, appointments.size());
+        assertEquals(NEXT_YEAR, appointments.get(0).getDateTime());
+    }
+
+    @Test
+    void interruptedCompactionRollsForward() throws IOException {
+        DataStore store = store();
+        PetRegistry registry = new PetRegistry();
+        store.load(registry);
+        Pet first = pet("P1");
+        registry.register(first);
+        store.recordPet(first);
+        store.compact(registry);
+        Files.copy(dir.resolve("pets.txt"), dir.resolve("old-pets.txt"));
+        Files.copy(dir.resolve("appointments.txt"), dir.resolve("old-appointments.txt"));
+        Pet second = pet("P2");
+        registry.register(second);
+        store.recordPet(second);
+        store.compact(registry);
+        store.close();
+
+        // Crash after the journal was set aside, before the new snapshot was moved in
+        for (String name : new String[] { "pets.txt", "appointments.txt" }) {
+            Files.move(dir.resolve(name), dir.resolve(name + ".tmp"));
+            Files.move(dir.resolve("old-" + name), dir.resolve(name));
+        }
+        Files.move(dir.resolve("journal.txt"), dir.resolve("journal.txt.compacting"));
+
+        PetRegistry recovered = reload();
+        assertNotNull(recovered.findById("P1"));
+        assertNotNull(recovered.findById("P2"));
+        assertFalse(Files.exists(dir.resolve("journal.txt.compacting")));
+        assertFalse(Files.exists(dir.resolve("pets.txt.tmp")));
+        assertFalse(Files.exists(dir.resolve("appointments.txt.tmp")));
+        // The new snapshot was moved in, so P2 survives another load
+        assertNotNull(reload().findById("P2"));
+    }
+
+    @Test
+    void snapshotWrittenBeforeACrashIsDiscarded() throws IOException {
+        DataStore store = store();
+        PetRegistry registry = new PetRegistry();
+        store.load(registry);
+        Pet pet = pet("P1");
+        registry.register(pet);
+        store.recordPet(pet);
+        store.compact(registry);
+        store.recordAppointment(pet, new Appointment("Vet Visit", NEXT_YEAR, "", 30));
+        store.close();
+
+        // Crash while the new snapshot was written: the journal was not set aside yet
+        Files.copy(dir.resolve("pets.txt"), dir.resolve("pets.txt.tmp"));
+        Files.write(dir.resolve("appointments.txt.tmp"), "P9|Gro".getBytes(StandardCharsets.UTF_8));
+
+        PetRegistry recovered = reload();
+        assertEquals(1, recovered.findById("P1").getAppointments().size());
+        assertNull(recovered.findById("P9"));
+        assertFalse(Files.exists(dir.resolve("pets.txt.tmp")));
+        assertFalse(Files.exists(dir.resolve("appointments.txt.tmp")));
+    }
+}
@@ -0,0 +1,83 @@
+package PetCareScheduler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RecurrenceRuleTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 31, 9, 0);
+
+    private static RecurrenceRule rule(int interval, ChronoUnit unit, LocalDateTime until, int count) {
+        return new RecurrenceRule(AppointmentType.GROOMING, START, "", 60, interval, unit, until, count);
+    }
+
+    @Test
+    void monthlyOccurrencesAreComputedFromTheFirstOne() {
+        RecurrenceRule monthly = rule(1, ChronoUnit.MONTHS, null, 4);
+        assertEquals(LocalDateTime.of(2030, 2, 28, 9, 0), monthly.occurrenceTime(1));
+        // Not carried over from February's 28th
+        assertEquals(LocalDateTime.of(2030, 3, 31, 9, 0), monthly.occurrenceTime(2));
+        assertEquals(LocalDateTime.of(2030, 4, 30, 9, 0), monthly.getLast());
+    }
+
+    @Test
+    void untilIsInclusive() {
+        RecurrenceRule weekly = rule(1, ChronoUnit.WEEKS, START.plusWeeks(3), 0);
+        assertEquals(4, weekly.getCount());
+        assertEquals(START.plusWeeks(3), weekly.getLast());
+        assertEquals(3, rule(1, ChronoUnit.WEEKS, START.plusWeeks(3).minusMinutes(1), 0).getCount());
+    }
+
+    @Test
+    void expandsOnlyTheWindowAskedFor() {
+        RecurrenceRule daily = rule(2, ChronoUnit.DAYS, null, 1_000_000);
+        List<Appointment> window = daily.occurrencesBetween(START.plusDays(10), true, START.plusDays(16), false);
+        assertEquals(3, window.size());
+        assertEquals(START.plusDays(10), window.get(0).getDateTime());
+        assertEquals(START.plusDays(14), window.get(2).getDateTime());
+        assertEquals(60, window.get(0).getDurationMinutes());
+
+        assertEquals(2, daily.occurrencesBetween(START.plusDays(10), false, START.plusDays(14), true).size());
+        assertEquals(3, daily.occurrencesBetween(null, false, START.plusDays(4), true).size());
+        assertTrue(daily.occurrencesBetween(START.minusDays(5), true, START, false).isEmpty());
+        assertEquals(START.plusDays(2L * 999_999), daily.getLast());
+    }
+
+    @Test
+    void findsTheOccurrenceOverlappingASlot() {
+        RecurrenceRule weekly = rule(1, ChronoUnit.WEEKS, null, 10);
+        LocalDateTime second = START.plusWeeks(1);
+        assertNotNull(weekly.findOverlap(second.plusMinutes(59), second.plusMinutes(90)));
+        assertNull(weekly.findOverlap(second.plusMinutes(60), second.plusMinutes(90)));
+        assertTrue(weekly.occursBetween(second, second.plusMinutes(1)));
+        assertFalse(weekly.occursBetween(second.plusMinutes(1), START.plusWeeks(2)));
+    }
+
+    @Test
+    void petAppointmentsIncludeOccurrences() {
+        Pet pet = new Pet("P1", "Rex", "Dog", 3, "Ann", "555-0100", LocalDate.of(2024, 1, 1));
+        pet.addAppointment(new Appointment("Walk", START.plusDays(1), "", 30));
+        pet.addRecurrence(rule(1, ChronoUnit.WEEKS, null, 3));
+        List<Appointment> between = pet.getAppointmentsBetween(START, true, START.plusWeeks(1), true);
+        assertEquals(3, between.size());
+        assertEquals(START, between.get(0).getDateTime());
+        assertEquals(START.plusDays(1), between.get(1).getDateTime());
+        assertEquals(START.plusWeeks(1), between.get(2).getDateTime());
+    }
+
+    @Test
+    void rejectsOverlappingOccurrences() {
+        assertThrows(IllegalArgumentException.class, () -> new RecurrenceRule(AppointmentType.GROOMING, START, "",
+                25 * 60, 1, ChronoUnit.DAYS, null, 3));
+        assertThrows(IllegalArgumentException.class, () -> rule(1, ChronoUnit.HOURS, null, 3));
+        assertThrows(IllegalArgumentException.class, () -> rule(1, ChronoUnit.DAYS, START.minusDays(1), 0));
+    }
+}
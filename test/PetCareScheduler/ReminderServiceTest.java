@@ -0,0 +1,120 @@
+package PetCareScheduler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReminderServiceTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    // Records reminders as "petId leadTime"; fails the reminders of failPet while failures remain
+    private static final class RecordingSink implements ReminderSink {
+        final List<String> sent = new ArrayList<>();
+        String failPet;
+        int failures;
+        int flushFailures;
+
+        @Override
+        public void remind(Pet pet, Appointment appointment, Duration leadTime) throws IOException {
+            if (pet.getPetId().equals(failPet) && failures > 0) {
+                failures--;
+                throw new IOException("gateway unavailable");
+            }
+            sent.add(pet.getPetId() + " " + ReminderService.formatLeadTime(leadTime));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (flushFailures > 0) {
+                flushFailures--;
+                throw new IOException("flush failed");
+            }
+        }
+    }
+
+    private RecordingSink sink;
+    private ReminderService reminders;
+    private PetRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        sink = new RecordingSink();
+        reminders = new ReminderService(sink, Arrays.asList(Duration.ofDays(1), Duration.ofHours(1)), NOW);
+        registry = new PetRegistry();
+        registry.addListener(reminders);
+    }
+
+    private void book(String petId, LocalDateTime time) {
+        Pet pet = registry.findById(petId);
+        if (pet == null) {
+            pet = new Pet(petId, "Rex", "Dog", 3, "Ann", "555-0100", LocalDate.of(2024, 1, 1));
+            registry.register(pet);
+        }
+        pet.addAppointment(new Appointment("Grooming", time, "", 30));
+    }
+
+    @Test
+    void sendsEachLeadTimeOnce() throws IOException {
+        book("P1", NOW.plusDays(2));
+        reminders.advanceTo(NOW.plusHours(23));
+        assertEquals(0, sink.sent.size());
+        reminders.advanceTo(NOW.plusDays(1));
+        assertEquals(Arrays.asList("P1 1d"), sink.sent);
+        reminders.advanceTo(NOW.plusDays(3));
+        assertEquals(Arrays.asList("P1 1d", "P1 1h"), sink.sent);
+        assertEquals(0, reminders.getPendingCount());
+    }
+
+    @Test
+    void failedReminderIsRetriedAndRestOfBatchSent() throws IOException {
+        book("P1", NOW.plusDays(2));
+        book("P2", NOW.plusDays(2));
+        book("P3", NOW.plusDays(2));
+        sink.failPet = "P2";
+        sink.failures = 2;
+
+        assertThrows(IOException.class, () -> reminders.advanceTo(NOW.plusDays(1)));
+        assertEquals(2, sink.sent.size());
+        assertThrows(IOException.class, () -> reminders.advanceTo(NOW.plusDays(1).plusMinutes(1)));
+        reminders.advanceTo(NOW.plusDays(1).plusMinutes(2));
+        assertEquals(3, sink.sent.size());
+        assertEquals("P2 1d", sink.sent.get(2));
+
+        // The retried reminder's later lead time is still queued
+        reminders.advanceTo(NOW.plusDays(2));
+        assertEquals(6, sink.sent.size());
+        assertEquals(3, sink.sent.stream().filter(line -> line.endsWith("1h")).count());
+    }
+
+    @Test
+    void flushFailureKeepsLaterReminders() throws IOException {
+        book("P1", NOW.plusDays(2));
+        sink.flushFailures = 1;
+        assertThrows(IOException.class, () -> reminders.advanceTo(NOW.plusDays(1)));
+        reminders.advanceTo(NOW.plusDays(2));
+        assertEquals(Arrays.asList("P1 1d", "P1 1h"), sink.sent);
+    }
+
+    @Test
+    void reminderIsDroppedOnceItsAppointmentHasStarted() throws IOException {
+        book("P1", NOW.plusHours(2));
+        sink.failPet = "P1";
+        sink.failures = Integer.MAX_VALUE;
+        for (int minute = 60; minute <= 180; minute++) {
+            try {
+                reminders.advanceTo(NOW.plusMinutes(minute));
+            } catch (IOException e) {
+                // Retried until the appointment starts
+            }
+        }
+        assertEquals(0, reminders.getPendingCount());
+    }
+}
@@ -0,0 +1,103 @@
+package PetCareScheduler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReportCacheTest {
+    private static final LocalDateTime MAY = LocalDateTime.of(2030, 5, 1, 0, 0);
+    private static final LocalDateTime JUNE = MAY.plusMonths(1);
+    private static final ReportCache.Key MAY_APPOINTMENTS =
+            new ReportCache.Key(ReportCache.Kind.APPOINTMENTS, MAY, JUNE);
+    private static final ReportCache.Key OVERDUE_IN_MAY = new ReportCache.Key(ReportCache.Kind.OVERDUE_VET, null, MAY);
+
+    private final AtomicInteger computed = new AtomicInteger();
+    private ReportCache cache;
+    private PetRegistry registry;
+    private Pet rex;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ReportCache(16, Duration.ofHours(1));
+        registry = new PetRegistry();
+        registry.addListener(cache);
+        rex = pet("P1");
+    }
+
+    private Pet pet(String id) {
+        Pet pet = new Pet(id, "Rex", "Dog", 3, "Ann", "555-0100", LocalDate.of(2024, 1, 1));
+        registry.register(pet);
+        return pet;
+    }
+
+    // Number of times the key's result was computed so far, after asking for it
+    private int computations(ReportCache.Key key) {
+        cache.get(key, computed::incrementAndGet);
+        return computed.get();
+    }
+
+    @Test
+    void appointmentInsideTheWindowInvalidates() {
+        assertEquals(1, computations(MAY_APPOINTMENTS));
+        assertEquals(1, computations(MAY_APPOINTMENTS));
+        Appointment walk = new Appointment("Walk", MAY.plusDays(3), "", 30);
+        rex.addAppointment(walk);
+        assertEquals(2, computations(MAY_APPOINTMENTS));
+        rex.removeAppointment(walk);
+        assertEquals(3, computations(MAY_APPOINTMENTS));
+    }
+
+    @Test
+    void appointmentOutsideTheWindowKeepsTheResult() {
+        assertEquals(1, computations(MAY_APPOINTMENTS));
+        rex.addAppointment(new Appointment("Walk", JUNE, "", 30));
+        rex.addAppointment(new Appointment("Walk", MAY.minusMinutes(30), "", 30));
+        assertEquals(1, computations(MAY_APPOINTMENTS));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void ruleWithAnOccurrenceInTheWindowInvalidates() {
+        assertEquals(1, computations(MAY_APPOINTMENTS));
+        rex.addRecurrence(new RecurrenceRule(AppointmentType.GROOMING, MAY.minusYears(1), "", 60, 1,
+                ChronoUnit.YEARS, null, 1));
+        assertEquals(1, computations(MAY_APPOINTMENTS));
+        rex.addRecurrence(new RecurrenceRule(AppointmentType.GROOMING, MAY.minusWeeks(2), "", 60, 1,
+                ChronoUnit.WEEKS, null, 3));
+        assertEquals(2, computations(MAY_APPOINTMENTS));
+    }
+
+    @Test
+    void overdueResultsFollowVetVisitsAndRegistrations() {
+        Appointment visit = new Appointment("Vet Visit", MAY.plusDays(1), "", 30);
+        rex.addAppointment(visit);
+        assertEquals(1, computations(OVERDUE_IN_MAY));
+        // A new vet visit only takes pets off the list
+        rex.addAppointment(new Appointment("Vet Visit", MAY.plusDays(2), "", 30));
+        assertEquals(1, computations(OVERDUE_IN_MAY));
+        rex.removeAppointment(visit);
+        assertEquals(2, computations(OVERDUE_IN_MAY));
+        // A pet with no vet visit is overdue at any cutoff
+        pet("P2");
+        assertEquals(3, computations(OVERDUE_IN_MAY));
+        // Appointment windows are not affected by registrations
+        assertEquals(4, computations(MAY_APPOINTMENTS));
+        pet("P3");
+        assertEquals(4, computations(MAY_APPOINTMENTS));
+    }
+
+    @Test
+    void resultComputedDuringAChangeIsNotStored() {
+        cache.get(MAY_APPOINTMENTS, () -> {
+            rex.addAppointment(new Appointment("Walk", MAY.plusDays(3), "", 30));
+            return computed.incrementAndGet();
+        });
+        assertEquals(0, cache.size());
+        assertEquals(2, computations(MAY_APPOINTMENTS));
+    }
+}
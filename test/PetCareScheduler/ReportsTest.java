@@ -0,0 +1,87 @@
+package PetCareScheduler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReportsTest {
+    private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+    @TempDir
+    Path dir;
+
+    private DataStore store;
+    private SchedulerService service;
+    private Reports reports;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.write(dir.resolve("pets.txt"), Arrays.asList(
+                "P1|Rex|Dog|3|Ann|555-0100|2019-01-01",
+                "P2|Tom|Cat|2|Bob|555-0101|2019-01-01",
+                "P3|Max|Dog|5|Cid|555-0102|2019-01-01"), StandardCharsets.UTF_8);
+        // The ended appointments stay in the file as unloaded histories
+        Files.write(dir.resolve("appointments.txt"), Arrays.asList(
+                "P1|Walk|2020-01-01T10:00|a|30",
+                "P1|Walk|2020-02-01T10:00|b|30",
+                "P1|Walk|" + NOW.plusDays(2) + "|c|30",
+                "P2|Walk|2020-01-05T10:00|d|30",
+                "P2|Walk|" + NOW.plusDays(1) + "|e|30"), StandardCharsets.UTF_8);
+        store = new DataStore(dir.resolve("pets.txt"), dir.resolve("appointments.txt"), dir.resolve("journal.txt"),
+                null, DataStore.DEFAULT_COMPACTION_THRESHOLD, null, 100);
+        service = new SchedulerService(store);
+        service.load();
+        reports = new Reports(service, false, null);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    // Pet ID and notes of each appointment row
+    private static List<String> rows(ByteArrayOutputStream out) {
+        List<String> rows = new ArrayList<>();
+        for (String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split("\r?\n")) {
+            if (line.startsWith("P")) {
+                String[] columns = line.split(",");
+                rows.add(columns[0] + ":" + columns[columns.length - 1]);
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void upcomingAndPastComeFromTheTimeIndex() throws IOException {
+        service.scheduleRecurrence("P3", new RecurrenceRule(AppointmentType.GROOMING, NOW.plusDays(3), "f", 30,
+                1, ChronoUnit.WEEKS, null, 2));
+        // Past appointments can only come from data, not from booking
+        service.findPet("P1").addAppointment(new Appointment("Walk", NOW.minusDays(1), "g", 30));
+
+        ByteArrayOutputStream upcoming = new ByteArrayOutputStream();
+        try (CsvReportSink sink = new CsvReportSink(upcoming)) {
+            reports.upcomingAppointments(sink, NOW);
+        }
+        assertEquals(Arrays.asList("P1:c", "P2:e", "P3:f", "P3:f"), rows(upcoming));
+
+        // Unloaded histories are read for the past report, most recent first
+        ByteArrayOutputStream past = new ByteArrayOutputStream();
+        try (CsvReportSink sink = new CsvReportSink(past)) {
+            reports.pastAppointments(sink, NOW);
+        }
+        assertEquals(Arrays.asList("P1:g", "P1:b", "P1:a", "P2:d"), rows(past));
+    }
+}
@@ -0,0 +1,174 @@
+package PetCareScheduler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SchedulerServiceTest {
+    private static final LocalDateTime NEXT_YEAR = LocalDateTime.now().plusYears(1).truncatedTo(ChronoUnit.HOURS);
+
+    // A data store whose journal writes fail while failing is set
+    private static final class FailingDataStore extends DataStore {
+        boolean failing;
+
+        FailingDataStore(Path dir) {
+            super(dir.resolve("pets.txt"), dir.resolve("appointments.txt"), dir.resolve("journal.txt"));
+        }
+
+        private void check() throws IOException {
+            if (failing) {
+                throw new IOException("disk full");
+            }
+        }
+
+        @Override
+        public void recordPet(Pet pet) throws IOException {
+            check();
+            super.recordPet(pet);
+        }
+
+        @Override
+        public void recordPets(List<Pet> pets) throws IOException {
+            check();
+            super.recordPets(pets);
+        }
+
+        @Override
+        public void recordAppointments(List<Pet> pets, List<Appointment> appointments) throws IOException {
+            check();
+            super.recordAppointments(pets, appointments);
+        }
+
+        @Override
+        public void recordRecurrence(Pet pet, RecurrenceRule rule) throws IOException {
+            check();
+            super.recordRecurrence(pet, rule);
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    private FailingDataStore store;
+    private SchedulerService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new FailingDataStore(dir);
+        service = new SchedulerService(store);
+        service.load();
+    }
+
+    private static Pet pet(String id) {
+        return new Pet(id, "Rex", "Dog", 3, "Ann " + id, "555-" + id, LocalDate.of(2024, 1, 1));
+    }
+
+    @Test
+    void failedRegistrationLeavesNoPet() throws IOException {
+        store.failing = true;
+        assertThrows(IOException.class, () -> service.registerPet(pet("P1")));
+        assertThrows(IOException.class, () -> service.registerPets(Arrays.asList(pet("P2"), pet("P3"))));
+
+        assertNull(service.findPet("P1"));
+        assertNull(service.findPet("P2"));
+        assertTrue(service.getOwnerIndex().find("Ann P1").isEmpty());
+
+        store.failing = false;
+        service.registerPet(pet("P1"));
+        assertEquals(1, service.getRegistry().size());
+    }
+
+    @Test
+    void failedBookingLeavesNoAppointment() throws IOException {
+        service.registerPet(pet("P1"));
+        store.failing = true;
+        Appointment appointment = new Appointment("Grooming", NEXT_YEAR, "", 30);
+        assertThrows(IOException.class, () -> service.scheduleAppointment("P1", appointment));
+        assertThrows(IOException.class,
+                () -> service.bookEach(Collections.singletonList(new BookingRequest("P1", appointment))));
+        RecurrenceRule rule = new RecurrenceRule(AppointmentType.GROOMING, NEXT_YEAR, "", 30, 1, ChronoUnit.WEEKS,
+                null, 4);
+        assertThrows(IOException.class, () -> service.scheduleRecurrence("P1", rule));
+
+        Pet pet = service.findPet("P1");
+        assertEquals(0, pet.getAppointmentCount());
+        assertFalse(pet.hasRecurrences());
+        assertEquals(0, service.getRegistry().getAppointmentIndex().size());
+
+        // The slot is still free once the journal works again
+        store.failing = false;
+        service.scheduleAppointment("P1", appointment);
+        assertEquals(1, pet.getAppointmentCount());
+    }
+
+    @Test
+    void duplicateIdsInBatchRegisterOnce() throws IOException {
+        service.registerPet(pet("P1"));
+        List<Pet> registered = service.registerPets(Arrays.asList(pet("p1"), pet("P2"), pet("p2")));
+        assertEquals(1, registered.size());
+        assertEquals("P2", registered.get(0).getPetId());
+        assertThrows(ConflictException.class, () -> service.registerPet(pet("p2")));
+    }
+
+    @Test
+    void appointmentListsCanBeReadWhileBooking() throws Exception {
+        service.registerPet(pet("P1"));
+        Pet pet = service.findPet("P1");
+        Thread booking = new Thread(() -> {
+            try {
+                for (int i = 0; i < 500; i++) {
+                    service.scheduleAppointment("P1", new Appointment("Walk", NEXT_YEAR.plusHours(499 - i), "", 30));
+                }
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+        booking.start();
+        while (booking.isAlive()) {
+            List<Appointment> appointments = pet.getAppointments();
+            for (int i = 1; i < appointments.size(); i++) {
+                assertTrue(appointments.get(i - 1).getDateTime().isBefore(appointments.get(i).getDateTime()));
+            }
+        }
+        booking.join();
+        List<Appointment> taken = pet.getAppointments();
+        service.scheduleAppointment("P1", new Appointment("Walk", NEXT_YEAR.minusHours(1), "", 30));
+        assertEquals(500, taken.size());
+        assertEquals(501, pet.getAppointments().size());
+    }
+
+    @Test
+    void bookedAppointmentsAndRegisteredIdsAreFixed() throws IOException {
+        Pet pet = pet("P1");
+        pet.setPetId("P2");
+        service.registerPet(pet);
+        assertThrows(IllegalStateException.class, () -> pet.setPetId("P3"));
+
+        Appointment appointment = new Appointment("Walk", NEXT_YEAR, "", 30);
+        service.scheduleAppointment("P2", appointment);
+        assertThrows(IllegalStateException.class, () -> appointment.setDateTime(NEXT_YEAR.plusDays(1)));
+        assertThrows(IllegalStateException.class, () -> appointment.setDurationMinutes(60));
+        assertThrows(IllegalStateException.class, () -> appointment.setAppointmentType("Grooming"));
+        appointment.setNotes("Bring the lead");
+
+        // Removed, changed, and added again, the appointment is indexed under its new time
+        pet.removeAppointment(appointment);
+        appointment.setDateTime(NEXT_YEAR.plusDays(1));
+        service.scheduleAppointment("P2", appointment);
+        assertEquals(1, service.getRegistry().getAppointmentIndex().size());
+        assertEquals(NEXT_YEAR.plusDays(1), pet.getAppointments().get(0).getDateTime());
+    }
+}
@@ -0,0 +1,144 @@
+package PetCareScheduler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShardedSchedulerTest {
+    private static final LocalDateTime NEXT_YEAR = LocalDateTime.now().plusYears(1).truncatedTo(ChronoUnit.HOURS);
+
+    @TempDir
+    Path dir;
+
+    private ShardedScheduler scheduler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        scheduler = ShardedScheduler.byHash(2, shard -> new DataStore(dir.resolve("pets." + shard),
+                dir.resolve("appointments." + shard), dir.resolve("journal." + shard)));
+        scheduler.load();
+        scheduler.registerPet(new Pet("P1", "Rex", "Dog", 3, "Ann", "555-0100", LocalDate.of(2024, 1, 1)));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        scheduler.close();
+    }
+
+    @Test
+    void recurrencesAreTimedApartFromSingleBookings() throws IOException {
+        Metrics metrics = scheduler.getMetrics();
+        scheduler.scheduleAppointment("P1", new Appointment("Walk", NEXT_YEAR, "", 30));
+        scheduler.scheduleRecurrence("P1", new RecurrenceRule(AppointmentType.of("Walk"), NEXT_YEAR.plusHours(1),
+                "", 30, 1, ChronoUnit.DAYS, null, 100));
+
+        assertEquals(1, metrics.getLatency(Metrics.Operation.SCHEDULE_APPOINTMENT).getCount());
+        assertEquals(1, metrics.getLatency(Metrics.Operation.SCHEDULE_RECURRENCE).getCount());
+    }
+
+    private ShardedScheduler open(Path directory, int count) {
+        ShardedScheduler sharded = ShardedScheduler.byHash(count, shard -> new DataStore(
+                directory.resolve("pets." + shard), directory.resolve("appointments." + shard),
+                directory.resolve("journal." + shard)));
+        sharded.setUnsharded(new DataStore(directory.resolve("pets"), directory.resolve("appointments"),
+                directory.resolve("journal")));
+        return sharded;
+    }
+
+    // Unsharded files with pets P1 to P10, each with one appointment
+    private static void writeUnsharded(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        List<String> pets = new ArrayList<>();
+        List<String> appointments = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            pets.add("P" + i + "|Rex|Dog|3|Ann|555-0100|2024-01-01");
+            appointments.add("P" + i + "|Walk|" + NEXT_YEAR.plusHours(i) + "|walk " + i + "|30");
+        }
+        Files.write(directory.resolve("pets"), pets, StandardCharsets.UTF_8);
+        Files.write(directory.resolve("appointments"), appointments, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void unshardedDataMovesIntoShardsOnce() throws IOException {
+        Path directory = dir.resolve("migrated");
+        writeUnsharded(directory);
+        ShardedScheduler sharded = open(directory, 2);
+        sharded.load();
+        assertEquals(10, sharded.size());
+        assertEquals(10, sharded.appointmentCount());
+        assertTrue(sharded.getShards().get(0).getRegistry().size() > 0);
+        assertTrue(sharded.getShards().get(1).getRegistry().size() > 0);
+        sharded.close();
+        assertFalse(Files.exists(directory.resolve("pets")));
+        assertTrue(Files.exists(directory.resolve("pets.migrated")));
+
+        sharded = open(directory, 2);
+        sharded.load();
+        assertEquals(10, sharded.size());
+        assertEquals("walk 7", sharded.findPet("p7").getAppointments().get(0).getNotes());
+        sharded.close();
+    }
+
+    @Test
+    void interruptedMoveIsRedone() throws IOException {
+        Path directory = dir.resolve("interrupted");
+        writeUnsharded(directory);
+        // A crash after shard 0 was written with only part of its pets
+        Files.createFile(directory.resolve("journal.migrating"));
+        Files.write(directory.resolve("pets.0"), Collections.singletonList("P9|Old|Dog|3|Ann|555-0100|2024-01-01"),
+                StandardCharsets.UTF_8);
+
+        ShardedScheduler sharded = open(directory, 2);
+        sharded.load();
+        assertEquals(10, sharded.size());
+        assertFalse(Files.exists(directory.resolve("journal.migrating")));
+        sharded.close();
+    }
+
+    @Test
+    void unshardedAndShardedDataAreNotMixed() throws IOException {
+        Path directory = dir.resolve("both");
+        writeUnsharded(directory);
+        Files.write(directory.resolve("journal.1"),
+                Collections.singletonList("P|X1|Rex|Dog|3|Ann|555-0100|2024-01-01"), StandardCharsets.UTF_8);
+        ShardedScheduler sharded = open(directory, 2);
+        assertThrows(IOException.class, sharded::load);
+        sharded.close();
+        assertTrue(Files.exists(directory.resolve("pets")));
+    }
+
+    @Test
+    void changedShardCountIsRejected() throws IOException {
+        for (int i = 2; i <= 10; i++) {
+            scheduler.registerPet(new Pet("P" + i, "Rex", "Dog", 3, "Ann", "555-0100", LocalDate.of(2024, 1, 1)));
+        }
+        scheduler.close();
+        scheduler = ShardedScheduler.byHash(3, shard -> new DataStore(dir.resolve("pets." + shard),
+                dir.resolve("appointments." + shard), dir.resolve("journal." + shard)));
+        IOException rejected = assertThrows(IOException.class, scheduler::load);
+        assertTrue(rejected.getMessage().contains("routes to shard"));
+
+        // Back on the settings the pets were saved with, they load
+        scheduler.close();
+        scheduler = ShardedScheduler.byHash(2, shard -> new DataStore(dir.resolve("pets." + shard),
+                dir.resolve("appointments." + shard), dir.resolve("journal." + shard)));
+        scheduler.load();
+        assertNotNull(scheduler.findPet("P10"));
+    }
+}
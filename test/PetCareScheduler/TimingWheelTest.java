@@ -0,0 +1,100 @@
+package PetCareScheduler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+    private static final class Timer extends TimingWheel.Entry {
+        long expiredAt = -1;
+    }
+
+    // Levels of 4, 3 and 2 buckets: one tick, four ticks and twelve ticks per bucket, 24 ticks per turn
+    private static TimingWheel<Timer> wheel(long currentTick) {
+        return new TimingWheel<>(currentTick, 4, 3, 2);
+    }
+
+    private static List<Timer> scheduleEach(TimingWheel<Timer> wheel, long from, long to) {
+        List<Timer> timers = new ArrayList<>();
+        for (long tick = from; tick <= to; tick++) {
+            Timer timer = new Timer();
+            wheel.schedule(timer, tick);
+            timers.add(timer);
+        }
+        return timers;
+    }
+
+    @Test
+    void cascadesThroughLevelsOneTickAtATime() {
+        TimingWheel<Timer> wheel = wheel(0);
+        List<Timer> timers = scheduleEach(wheel, 1, 23);
+        for (long tick = 1; tick <= 23; tick++) {
+            wheel.advanceTo(tick, timer -> timer.expiredAt = wheel.getCurrentTick());
+        }
+        for (Timer timer : timers) {
+            assertEquals(timer.getTick(), timer.expiredAt);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void refilesOverflowOnEachTurn() {
+        // Starting mid-turn, so overflow entries wait for the top level to turn over
+        TimingWheel<Timer> wheel = wheel(5);
+        List<Timer> timers = scheduleEach(wheel, 6, 130);
+        assertEquals(125, wheel.size());
+        List<Long> order = new ArrayList<>();
+        wheel.advanceTo(130, timer -> {
+            timer.expiredAt = wheel.getCurrentTick();
+            order.add(timer.getTick());
+        });
+        for (Timer timer : timers) {
+            assertEquals(timer.getTick(), timer.expiredAt);
+        }
+        for (int i = 1; i < order.size(); i++) {
+            assertEquals(order.get(i - 1) + 1, (long) order.get(i));
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void overflowEntryScheduledJustPastATurnBoundary() {
+        TimingWheel<Timer> wheel = wheel(23);
+        Timer far = new Timer();
+        wheel.schedule(far, 23 + 24 * 3 + 1);
+        wheel.advanceTo(23 + 24 * 3, timer -> timer.expiredAt = wheel.getCurrentTick());
+        assertEquals(-1, far.expiredAt);
+        assertEquals(1, wheel.size());
+        wheel.advanceTo(200, timer -> timer.expiredAt = wheel.getCurrentTick());
+        assertEquals(far.getTick(), far.expiredAt);
+    }
+
+    @Test
+    void pastEntriesExpireOnNextAdvance() {
+        TimingWheel<Timer> wheel = wheel(10);
+        Timer late = new Timer();
+        wheel.schedule(late, 3);
+        wheel.advanceTo(10, timer -> timer.expiredAt = wheel.getCurrentTick());
+        assertEquals(10, late.expiredAt);
+    }
+
+    @Test
+    void entriesRescheduledWhileExpiringFireAgain() {
+        TimingWheel<Timer> wheel = wheel(0);
+        Timer timer = new Timer();
+        wheel.schedule(timer, 2);
+        List<Long> fired = new ArrayList<>();
+        wheel.advanceTo(60, expired -> {
+            fired.add(wheel.getCurrentTick());
+            if (fired.size() < 3) {
+                wheel.schedule(expired, wheel.getCurrentTick() + 17);
+            }
+        });
+        assertEquals(3, fired.size());
+        assertEquals(2L, (long) fired.get(0));
+        assertEquals(19L, (long) fired.get(1));
+        assertEquals(36L, (long) fired.get(2));
+    }
+}